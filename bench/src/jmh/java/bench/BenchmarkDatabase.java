@@ -0,0 +1,66 @@
+package bench;
+
+import db.ConnectionPool;
+import db.SchemaMigrator;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Banco H2 em memória, no modo MySQL, com o schema das migrações e dados sintéticos.
+public class BenchmarkDatabase {
+
+    public static final int DEPARTMENTS = 8;
+
+    private static final AtomicInteger databaseNumber = new AtomicInteger();
+
+    public static ConnectionPool create(int sellers) throws SQLException {
+        String url = "jdbc:h2:mem:bench" + databaseNumber.incrementAndGet()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1";
+        Properties properties = new Properties();
+        properties.setProperty("pool.minSize", "1");
+        properties.setProperty("pool.maxSize", "4");
+
+        ConnectionPool pool = new ConnectionPool(url, properties);
+        // mesmo schema e índices da aplicação
+        new SchemaMigrator(pool).migrate();
+        try (Connection connection = pool.getConnection()) {
+            seed(connection, sellers);
+        }
+        return pool;
+    }
+
+    private static void seed(Connection connection, int sellers) throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement department = connection.prepareStatement("INSERT INTO department (Name) VALUES (?)")) {
+            for (int i = 1; i <= DEPARTMENTS; i++) {
+                department.setString(1, "Department " + i);
+                department.addBatch();
+            }
+            department.executeBatch();
+        }
+        try (PreparedStatement seller = connection.prepareStatement("INSERT INTO seller\n" +
+                "(Name, Email, BirthDate, BaseSalary, DepartmentId)\n" +
+                "VALUES\n" +
+                "(?, ?, ?, ?, ?)")) {
+            LocalDate firstBirthDate = LocalDate.of(1960, 1, 1);
+            for (int i = 0; i < sellers; i++) {
+                seller.setString(1, "Seller " + Integer.toString(i * 7919 % sellers, 36));
+                seller.setString(2, "seller" + i + "@example.com");
+                seller.setDate(3, java.sql.Date.valueOf(firstBirthDate.plusDays(i % 15000)));
+                seller.setDouble(4, 1000.0 + (i % 5000));
+                seller.setInt(5, 1 + i % DEPARTMENTS);
+                seller.addBatch();
+                if (i % 1000 == 999) {
+                    seller.executeBatch();
+                }
+            }
+            seller.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+}
@@ -0,0 +1,78 @@
+package bench;
+
+import db.ConnectionPool;
+import model.dao.CachedDepartmentDao;
+import model.dao.DepartmentDaoJDBC;
+import model.dao.SellerDaoJDBC;
+import model.entities.Department;
+import model.entities.Seller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Alocação dos Department no mapeamento das linhas de findAll, para ler com -prof gc.
+// Com departmentCache=true as linhas usam as instâncias do cache e nenhum Department é alocado;
+// com false o DepartmentIdentityMap aloca um por departamento distinto. A diferença de
+// gc.alloc.rate.norm entre os dois tem que ficar em torno de DEPARTMENTS objetos por operação,
+// com 1000 ou 100000 linhas; se crescer com rows, voltou a haver um Department por linha.
+//
+//   gradle :bench:jmh -Pjmh.includes=DepartmentIdentity
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DepartmentIdentityBenchmark {
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    @Param({"false", "true"})
+    public boolean departmentCache;
+
+    private ConnectionPool pool;
+    private SellerDaoJDBC sellerDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        pool = BenchmarkDatabase.create(rows);
+        sellerDao = new SellerDaoJDBC(pool);
+        // o H2 não aceita o fetch size de streaming do MySQL
+        sellerDao.setFetchSize(1000);
+        if (departmentCache) {
+            CachedDepartmentDao cache = new CachedDepartmentDao(new DepartmentDaoJDBC(pool), Long.MAX_VALUE);
+            cache.findAll();
+            sellerDao.setDepartmentCache(cache);
+        }
+        // medir só faz sentido se o resultado compartilha os departamentos
+        Set<Department> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Seller seller : sellerDao.findAll()) {
+            instances.add(seller.getDepartment());
+        }
+        if (instances.size() != BenchmarkDatabase.DEPARTMENTS) {
+            throw new IllegalStateException(instances.size() + " Department instances for "
+                    + BenchmarkDatabase.DEPARTMENTS + " departments");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<Seller> findAll() {
+        return sellerDao.findAll();
+    }
+}
@@ -0,0 +1,159 @@
+package bench;
+
+import db.ConnectionPool;
+import model.dao.CachedDepartmentDao;
+import model.dao.DepartmentDaoJDBC;
+import model.dao.SellerDaoJDBC;
+import model.entities.Department;
+import model.entities.Seller;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Mede os caminhos quentes do SellerDaoJDBC. O contador "rows" vira uma taxa de linhas por segundo
+// no relatório do JMH; o inverso dele é a latência por linha do mapeamento do ResultSet.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SellerDaoBenchmark {
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private ConnectionPool pool;
+    private SellerDaoJDBC sellerDao;
+    private Department department;
+    private List<Integer> departmentIds;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class RowCounter {
+
+        public long rows;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+        }
+    }
+
+    // Cada thread edita a sua própria linha, para que as versões não entrem em conflito.
+    @State(Scope.Thread)
+    public static class EditedSeller {
+
+        private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+        public Seller seller;
+
+        @Setup(Level.Trial)
+        public void load(SellerDaoBenchmark benchmark) {
+            seller = benchmark.sellerDao.findById(1 + NEXT_ID.getAndIncrement() % benchmark.rows);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        pool = BenchmarkDatabase.create(rows);
+        sellerDao = new SellerDaoJDBC(pool);
+        // o H2 não aceita o fetch size de streaming do MySQL
+        sellerDao.setFetchSize(1000);
+        CachedDepartmentDao departmentCache = new CachedDepartmentDao(new DepartmentDaoJDBC(pool), Long.MAX_VALUE);
+        // carrega o snapshot antes: as consultas de vendedores não recarregam o cache
+        departmentCache.findAll();
+        sellerDao.setDepartmentCache(departmentCache);
+        department = new Department(1, "Department 1");
+        departmentIds = new ArrayList<>();
+        for (int i = 1; i <= BenchmarkDatabase.DEPARTMENTS; i++) {
+            departmentIds.add(i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<Seller> findAll(RowCounter counter) {
+        List<Seller> list = sellerDao.findAll();
+        counter.rows += list.size();
+        return list;
+    }
+
+    @Benchmark
+    public long streamAll(RowCounter counter) {
+        long sum = 0;
+        try (Stream<Seller> stream = sellerDao.streamAll()) {
+            Iterator<Seller> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                sum += iterator.next().getId();
+                counter.rows++;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public List<Seller> findByDepartment(RowCounter counter) {
+        List<Seller> list = sellerDao.findByDepartment(department);
+        counter.rows += list.size();
+        return list;
+    }
+
+    // Os mesmos vendedores de findByDepartment repetido para cada departamento, numa ida ao banco.
+    @Benchmark
+    public Map<Integer, List<Seller>> findByDepartments(RowCounter counter) {
+        Map<Integer, List<Seller>> sellers = sellerDao.findByDepartments(departmentIds);
+        for (List<Seller> list : sellers.values()) {
+            counter.rows += list.size();
+        }
+        return sellers;
+    }
+
+    @Benchmark
+    public Seller findById(RowCounter counter) {
+        Seller seller = sellerDao.findById(randomId());
+        counter.rows++;
+        return seller;
+    }
+
+    @Benchmark
+    public Seller insert(RowCounter counter) {
+        Seller seller = new Seller(null, "Bench seller", "bench@example.com", new Date(), 2500.0, department);
+        sellerDao.insert(seller);
+        counter.rows++;
+        return seller;
+    }
+
+    // Altera só o salário de uma linha já lida: o UPDATE grava uma coluna e confere a versão.
+    @Benchmark
+    public Seller update(EditedSeller edited, RowCounter counter) {
+        Seller seller = edited.seller;
+        seller.setBaseSalary(ThreadLocalRandom.current().nextDouble(1000, 5000));
+        sellerDao.update(seller);
+        counter.rows++;
+        return seller;
+    }
+
+    private int randomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(rows);
+    }
+}
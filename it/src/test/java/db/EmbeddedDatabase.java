@@ -0,0 +1,43 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Banco H2 em memória, no modo MySQL, com o schema das migrações. Cada chamada cria um banco novo.
+public class EmbeddedDatabase {
+
+    private static final AtomicInteger databaseNumber = new AtomicInteger();
+
+    public static String newUrl(String prefix) {
+        return "jdbc:h2:mem:" + prefix + databaseNumber.incrementAndGet()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1";
+    }
+
+    public static Properties poolProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("pool.minSize", "1");
+        properties.setProperty("pool.maxSize", "4");
+        return properties;
+    }
+
+    public static ConnectionPool create() {
+        return create(newUrl("it"));
+    }
+
+    public static ConnectionPool create(String url) {
+        ConnectionPool pool = new ConnectionPool(url, poolProperties());
+        new SchemaMigrator(pool).migrate();
+        return pool;
+    }
+
+    public static void execute(ConnectionPool pool, String sql) {
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+    }
+}
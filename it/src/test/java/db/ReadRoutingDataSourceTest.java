@@ -0,0 +1,143 @@
+package db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Primário e réplica são dois bancos H2 separados; cada um tem uma linha em "origin" com o próprio nome,
+// então a leitura mostra de onde veio. O atraso da réplica é controlado pelo teste.
+class ReadRoutingDataSourceTest {
+
+    private ConnectionPool primary;
+    private ConnectionPool replica;
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private ReadRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (routing != null) {
+            routing.shutdown();
+        } else {
+            primary.shutdown();
+            replica.shutdown();
+        }
+    }
+
+    @Test
+    void readsGoToHealthyReplicaAndWritesToPrimary() throws SQLException {
+        routing = routing(List.of(replica), 0);
+
+        assertEquals(1, routing.getHealthyReplicaCount());
+        assertEquals("replica", readOrigin(routing));
+        assertEquals("primary", readOrigin(routing.getWriteDataSource()));
+        assertEquals(1, routing.getReplicaReads());
+    }
+
+    @Test
+    void readsStayOnPrimaryDuringAndRightAfterWrite() throws SQLException {
+        routing = routing(List.of(replica), 60_000);
+
+        assertFalse(routing.isSticky());
+        try (Connection write = routing.getWriteDataSource().getConnection()) {
+            assertTrue(routing.isSticky());
+            assertEquals("primary", readOrigin(routing));
+        }
+        // a janela começa no fim da gravação
+        assertTrue(routing.isSticky());
+        assertEquals("primary", readOrigin(routing));
+        assertEquals(0, routing.getReplicaReads());
+    }
+
+    @Test
+    void stickyWindowExpires() throws Exception {
+        routing = routing(List.of(replica), 100);
+
+        routing.getWriteDataSource().getConnection().close();
+        assertEquals("primary", readOrigin(routing));
+        Thread.sleep(200);
+        assertFalse(routing.isSticky());
+        assertEquals("replica", readOrigin(routing));
+    }
+
+    @Test
+    void laggingReplicaIsEjectedAndComesBack() throws SQLException {
+        routing = routing(List.of(replica), 0);
+
+        lagSeconds.set(60);
+        routing.checkReplicas();
+        assertEquals(0, routing.getHealthyReplicaCount());
+        assertEquals("primary", readOrigin(routing));
+
+        lagSeconds.set(1);
+        routing.checkReplicas();
+        assertEquals(1, routing.getHealthyReplicaCount());
+        assertEquals("replica", readOrigin(routing));
+    }
+
+    @Test
+    void stoppedReplicationEjectsReplica() throws SQLException {
+        routing = routing(List.of(replica), 0);
+
+        lagSeconds.set(-1);
+        routing.checkReplicas();
+        assertEquals(0, routing.getHealthyReplicaCount());
+        assertEquals("primary", readOrigin(routing));
+    }
+
+    @Test
+    void unreachableReplicaDoesNotBlockCreationAndReadsFallBackToPrimary() throws SQLException {
+        // nada escuta na porta 1: a conexão é recusada
+        ConnectionPool unreachable = DB.createLazyPool("jdbc:h2:tcp://localhost:1/unreachable",
+                EmbeddedDatabase.poolProperties());
+        routing = routing(List.of(unreachable, replica), 0);
+
+        assertEquals(1, routing.getHealthyReplicaCount());
+        for (int i = 0; i < 4; i++) {
+            assertEquals("replica", readOrigin(routing));
+        }
+    }
+
+    private ReadRoutingDataSource routing(List<ConnectionPool> replicas, long stickyMillis) {
+        Properties properties = new Properties();
+        properties.setProperty("replica.stickyMillis", String.valueOf(stickyMillis));
+        properties.setProperty("replica.maxLagSeconds", "5");
+        // sem a thread de verificação: o teste chama checkReplicas()
+        properties.setProperty("replica.healthCheckMillis", "0");
+        return new ReadRoutingDataSource(primary, replicas, connection -> lagSeconds.get(), properties);
+    }
+
+    private static ConnectionPool database(String origin) {
+        ConnectionPool pool = new ConnectionPool(EmbeddedDatabase.newUrl(origin), EmbeddedDatabase.poolProperties());
+        EmbeddedDatabase.execute(pool, "CREATE TABLE origin (Name VARCHAR(20))");
+        EmbeddedDatabase.execute(pool, "INSERT INTO origin (Name) VALUES ('" + origin + "')");
+        return pool;
+    }
+
+    private static String readOrigin(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT Name FROM origin")) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaMigratorTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ConnectionPool(EmbeddedDatabase.newUrl("migrator"), EmbeddedDatabase.poolProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void migrateAppliesEveryVersionOnceInOrder() {
+        SchemaMigrator migrator = new SchemaMigrator(pool);
+        List<Migration> applied = migrator.migrate();
+
+        assertEquals(Migrations.all(), applied);
+        assertEquals(last(Migrations.all()), migrator.currentVersion());
+        assertTrue(migrator.migrate().isEmpty());
+        assertTrue(migrator.pending().isEmpty());
+    }
+
+    // Como o DDL do MySQL faz commit implícito, uma versão interrompida deixa parte dos comandos no banco.
+    @Test
+    void versionInterruptedHalfwayCanBeAppliedAgain() {
+        List<Migration> all = Migrations.all();
+        Migration lastColumns = find(all, 6);
+        new SchemaMigrator(pool, all.subList(0, all.indexOf(lastColumns))).migrate();
+        // a primeira coluna e o primeiro índice da versão 6 já foram criados, a versão não foi registrada
+        EmbeddedDatabase.execute(pool, lastColumns.getStatements().get(0));
+        EmbeddedDatabase.execute(pool, lastColumns.getStatements().get(2));
+
+        SchemaMigrator migrator = new SchemaMigrator(pool);
+        List<Migration> applied = migrator.migrate();
+
+        assertEquals(6, applied.get(0).getVersion());
+        assertEquals(last(all), migrator.currentVersion());
+    }
+
+    private static Migration find(List<Migration> migrations, int version) {
+        return migrations.stream().filter(migration -> migration.getVersion() == version).findFirst().orElseThrow();
+    }
+
+    private static int last(List<Migration> migrations) {
+        return migrations.get(migrations.size() - 1).getVersion();
+    }
+}
@@ -0,0 +1,73 @@
+package db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatementCacheTest {
+
+    private static final String SQL = "SELECT x FROM SYSTEM_RANGE(1, 10) WHERE x > ?";
+
+    private Connection connection;
+    private AtomicLong hits;
+    private StatementCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection(EmbeddedDatabase.newUrl("statements"));
+        hits = new AtomicLong();
+        cache = new StatementCache(connection, 10, hits, new AtomicLong());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        cache.closeAll();
+        connection.close();
+    }
+
+    @Test
+    void checkInRestoresTheStatementAsPrepared() throws Exception {
+        PreparedStatement fresh = cache.prepare(SQL, Statement.NO_GENERATED_KEYS);
+        int fetchSize = fresh.getFetchSize();
+        int maxRows = fresh.getMaxRows();
+        int queryTimeout = fresh.getQueryTimeout();
+        fresh.close();
+
+        PreparedStatement used = cache.prepare(SQL, Statement.NO_GENERATED_KEYS);
+        used.setFetchSize(fetchSize + 7);
+        used.setMaxRows(2);
+        used.setQueryTimeout(queryTimeout + 5);
+        used.setInt(1, 0);
+        ResultSet left = used.executeQuery();
+        assertTrue(left.next());
+        used.close();
+        assertTrue(left.isClosed());
+
+        PreparedStatement reused = cache.prepare(SQL, Statement.NO_GENERATED_KEYS);
+        assertEquals(2, hits.get());
+        assertEquals(fetchSize, reused.getFetchSize());
+        assertEquals(maxRows, reused.getMaxRows());
+        assertEquals(queryTimeout, reused.getQueryTimeout());
+        reused.setInt(1, 0);
+        int rows = 0;
+        try (ResultSet resultSet = reused.executeQuery()) {
+            while (resultSet.next()) {
+                rows++;
+            }
+        }
+        assertEquals(10, rows);
+        reused.close();
+        assertFalse(connection.isClosed());
+    }
+}
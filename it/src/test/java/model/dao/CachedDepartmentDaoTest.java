@@ -0,0 +1,81 @@
+package model.dao;
+
+import db.ConnectionPool;
+import db.EmbeddedDatabase;
+import db.SchemaMigrator;
+import model.entities.Department;
+import model.entities.Seller;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CachedDepartmentDaoTest {
+
+    private ConnectionPool pool;
+    private CachedDepartmentDao cache;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = EmbeddedDatabase.poolProperties();
+        // uma conexão só: um segundo empréstimo na mesma thread esgotaria o tempo de espera
+        properties.setProperty("pool.maxSize", "1");
+        properties.setProperty("pool.borrowTimeoutMillis", "2000");
+        pool = new ConnectionPool(EmbeddedDatabase.newUrl("cache"), properties);
+        new SchemaMigrator(pool).migrate();
+        cache = new CachedDepartmentDao(new DepartmentDaoJDBC(pool), 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void writesThroughTheCacheInvalidateTheSnapshot() {
+        Department books = new Department(null, "Books");
+        cache.insert(books);
+        assertEquals(List.of("Books"), names(cache.findAll()));
+
+        Department music = new Department(null, "Music");
+        cache.insert(music);
+        assertEquals(List.of("Books", "Music"), names(cache.findAll()));
+
+        Department edited = cache.findById(books.getId());
+        edited.setName("Comics");
+        cache.update(edited);
+        assertEquals(List.of("Comics", "Music"), names(cache.findAll()));
+
+        cache.deleteById(music.getId());
+        assertEquals(List.of("Comics"), names(cache.findAll()));
+        assertNull(cache.findById(music.getId()));
+    }
+
+    @Test
+    void sellerQueryWithAColdCacheDoesNotBorrowASecondConnection() {
+        Department books = new Department(null, "Books");
+        new DepartmentDaoJDBC(pool).insert(books);
+        SellerDaoJDBC sellerDao = new SellerDaoJDBC(pool);
+        sellerDao.setFetchSize(100);
+        sellerDao.insert(new Seller(null, "Anna", "anna@example.com",
+                Date.valueOf(LocalDate.of(1990, 1, 1)), 1000.0, books));
+        sellerDao.setDepartmentCache(cache);
+
+        List<Seller> sellers = sellerDao.findAll();
+
+        assertEquals(1, sellers.size());
+        assertEquals("Books", sellers.get(0).getDepartment().getName());
+    }
+
+    private static List<String> names(List<Department> departments) {
+        return departments.stream().map(Department::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,104 @@
+package model.dao;
+
+import db.ConnectionPool;
+import db.DbException;
+import db.EmbeddedDatabase;
+import db.StaleEntityException;
+import db.Transaction;
+import model.entities.Department;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DepartmentDaoJDBCTest {
+
+    private ConnectionPool pool;
+    private DepartmentDaoJDBC dao;
+
+    @BeforeEach
+    void setUp() {
+        pool = EmbeddedDatabase.create();
+        dao = new DepartmentDaoJDBC(pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void insertFillsIdAndFindByIdReadsItBack() {
+        Department department = new Department(null, "Books");
+        dao.insert(department);
+
+        assertNotNull(department.getId());
+        Department found = dao.findById(department.getId());
+        assertEquals("Books", found.getName());
+        assertEquals(0, found.getVersion());
+    }
+
+    @Test
+    void findAllIsOrderedByName() {
+        dao.insert(new Department(null, "Electronics"));
+        dao.insert(new Department(null, "Books"));
+        dao.insert(new Department(null, "Computers"));
+
+        List<Department> all = dao.findAll();
+        assertEquals(List.of("Books", "Computers", "Electronics"), names(all));
+    }
+
+    @Test
+    void updateBumpsVersionAndRejectsStaleCopy() {
+        Department department = new Department(null, "Books");
+        dao.insert(department);
+        Department stale = dao.findById(department.getId());
+
+        department.setName("Old Books");
+        dao.update(department);
+        assertEquals(1, department.getVersion());
+        assertEquals("Old Books", dao.findById(department.getId()).getName());
+
+        stale.setName("New Books");
+        assertThrows(StaleEntityException.class, () -> dao.update(stale));
+        assertEquals("Old Books", dao.findById(department.getId()).getName());
+    }
+
+    @Test
+    void rolledBackUpdateKeepsVersion() {
+        Department department = new Department(null, "Books");
+        dao.insert(department);
+
+        try (Transaction transaction = Transaction.begin(pool, Transaction.DEFAULT_ISOLATION, false)) {
+            department.setName("Old Books");
+            new DepartmentDaoJDBC(transaction.getDataSource()).update(department);
+            assertEquals(0, department.getVersion());
+            transaction.rollback();
+        }
+        assertEquals(0, department.getVersion());
+        dao.update(department);
+        assertEquals(1, department.getVersion());
+        assertEquals("Old Books", dao.findById(department.getId()).getName());
+    }
+
+    @Test
+    void deleteByIdRemovesRowAndRejectsUnknownId() {
+        Department department = new Department(null, "Books");
+        dao.insert(department);
+
+        dao.deleteById(department.getId());
+        assertNull(dao.findById(department.getId()));
+        assertThrows(DbException.class, () -> dao.deleteById(department.getId()));
+    }
+
+    private static List<String> names(List<Department> departments) {
+        return departments.stream().map(Department::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,136 @@
+package model.dao;
+
+import db.ConnectionPool;
+import db.EmbeddedDatabase;
+import model.entities.Department;
+import model.entities.Seller;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DepartmentIdentityMapTest {
+
+    private static final int DEPARTMENTS = 3;
+    private static final int SELLERS_PER_DEPARTMENT = 10;
+
+    private ConnectionPool pool;
+    private SellerDaoJDBC dao;
+    private final List<Department> departments = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        pool = EmbeddedDatabase.create();
+        // sem cache de departamentos: cada Department do resultado é alocado pela consulta
+        dao = new SellerDaoJDBC(pool);
+        dao.setFetchSize(100);
+        DepartmentDaoJDBC departmentDao = new DepartmentDaoJDBC(pool);
+        for (int d = 0; d < DEPARTMENTS; d++) {
+            Department department = new Department(null, "Department " + d);
+            departmentDao.insert(department);
+            departments.add(department);
+        }
+        // em ordem de nome os departamentos se alternam linha a linha
+        for (int i = 0; i < SELLERS_PER_DEPARTMENT; i++) {
+            for (int d = 0; d < DEPARTMENTS; d++) {
+                String name = String.format("Seller %02d-%d", i, d);
+                dao.insert(new Seller(null, name, name.replace(' ', '.') + "@example.com",
+                        Date.valueOf(LocalDate.of(1990, 1, 1)), 1000.0, departments.get(d)));
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void findAllAllocatesOneDepartmentPerDistinctId() {
+        List<Seller> sellers = dao.findAll();
+
+        assertEquals(DEPARTMENTS * SELLERS_PER_DEPARTMENT, sellers.size());
+        assertSharedDepartments(sellers, DEPARTMENTS);
+    }
+
+    @Test
+    void findByDepartmentSharesOneDepartment() {
+        List<Seller> sellers = dao.findByDepartment(departments.get(1));
+
+        assertEquals(SELLERS_PER_DEPARTMENT, sellers.size());
+        assertSharedDepartments(sellers, 1);
+    }
+
+    @Test
+    void pagesShareDepartmentsWithinThePage() {
+        int pageSize = 2 * DEPARTMENTS + 1;
+        assertSharedDepartments(dao.findPage(null, pageSize, PageDirection.FORWARD), DEPARTMENTS);
+        assertSharedDepartments(dao.findPage(DEPARTMENTS, pageSize), DEPARTMENTS);
+        assertSharedDepartments(dao.findPage(new SellerQuery(), null, pageSize, PageDirection.FORWARD), DEPARTMENTS);
+        assertSharedDepartments(dao.findPage(new SellerQuery(), 0, pageSize), DEPARTMENTS);
+    }
+
+    @Test
+    void streamAllSharesDepartmentsAcrossTheWholeStream() {
+        List<Seller> sellers;
+        try (Stream<Seller> stream = dao.streamAll()) {
+            sellers = stream.collect(Collectors.toList());
+        }
+
+        assertEquals(DEPARTMENTS * SELLERS_PER_DEPARTMENT, sellers.size());
+        assertSharedDepartments(sellers, DEPARTMENTS);
+    }
+
+    @Test
+    void mapKeepsIdsThatCollideInTheTableAcrossResizes() {
+        DepartmentIdentityMap map = new DepartmentIdentityMap();
+        Map<Integer, Department> expected = new HashMap<>();
+        // múltiplos do tamanho inicial da tabela, mais do que cabe nela sem crescer
+        for (int id = 16; id <= 16 * 40; id += 16) {
+            Department department = new Department(id, "Department " + id);
+            map.put(id, department);
+            expected.put(id, department);
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Integer, Department> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), map.get(entry.getKey()));
+        }
+        assertNull(map.get(8));
+        assertNull(map.get(16 * 41));
+    }
+
+    // Vendedores do mesmo departamento apontam para a mesma instância, e as instâncias distintas
+    // são tantas quantos os departamentos, não tantas quantas as linhas.
+    private static void assertSharedDepartments(List<Seller> sellers, int distinctDepartments) {
+        Map<Integer, Department> byId = new HashMap<>();
+        Set<Department> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Seller seller : sellers) {
+            Department department = seller.getDepartment();
+            assertNotNull(department, seller.getName());
+            Department first = byId.putIfAbsent(department.getId(), department);
+            if (first != null) {
+                assertSame(first, department, seller.getName());
+            }
+            instances.add(department);
+        }
+        assertEquals(distinctDepartments, byId.size());
+        assertEquals(distinctDepartments, instances.size());
+    }
+}
@@ -0,0 +1,102 @@
+package model.dao;
+
+import db.ConnectionPool;
+import db.DbException;
+import db.EmbeddedDatabase;
+import db.SchemaMigrator;
+import model.entities.Department;
+import model.entities.Seller;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OfflineStoreTest {
+
+    private ConnectionPool server;
+    private ConnectionPool local;
+    private OfflineStore store;
+    private final AtomicInteger setups = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        Properties localProperties = EmbeddedDatabase.poolProperties();
+        local = new ConnectionPool(EmbeddedDatabase.newUrl("offline"), localProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.shutdown();
+        } else {
+            local.shutdown();
+        }
+        server.shutdown();
+    }
+
+    @Test
+    void opensWithServerDownAndRetriesSetupOnNextSync() {
+        // pool sem conexões na criação, como o do primário com offline.enabled=true; nada escuta na porta 1
+        server = new ConnectionPool("jdbc:h2:tcp://localhost:1/unreachable", lazyPoolProperties());
+        store = store();
+
+        assertFalse(store.isReady());
+        assertThrows(DbException.class, store::sync);
+        assertThrows(DbException.class, store::sync);
+        assertEquals(0, setups.get());
+        // as leituras continuam na cópia local, vazia até a primeira sincronização
+        assertTrue(new SellerDaoJDBC(store.getLocalDataSource()).findAll().isEmpty());
+    }
+
+    @Test
+    void firstSyncThatReachesServerRunsSetupBeforeCopying() {
+        // servidor sem schema: quem cria é o serverSetup, como as migrações adiadas do DaoFactory
+        server = new ConnectionPool(EmbeddedDatabase.newUrl("server"), lazyPoolProperties());
+        store = store();
+
+        store.sync();
+        assertEquals(1, setups.get());
+        assertTrue(store.isReady());
+
+        Department books = new Department(null, "Books");
+        new DepartmentDaoJDBC(server).insert(books);
+        new SellerDaoJDBC(server).insert(new Seller(null, "Anna", "anna@example.com",
+                Date.valueOf(LocalDate.of(1990, 1, 1)), 3000.0, books));
+        assertEquals(2, store.sync());
+        assertEquals(1, setups.get());
+
+        SellerDaoJDBC localDao = new SellerDaoJDBC(store.getLocalDataSource());
+        localDao.setFetchSize(100);
+        List<Seller> sellers = localDao.findAll();
+        assertEquals(1, sellers.size());
+        assertEquals("Books", sellers.get(0).getDepartment().getName());
+    }
+
+    private OfflineStore store() {
+        Properties properties = new Properties();
+        // o H2 não aceita o fetch size de streaming do MySQL
+        properties.setProperty("dao.fetchSize", "100");
+        OfflineStore offlineStore = new OfflineStore(server, local, properties);
+        offlineStore.setServerSetup(() -> {
+            setups.incrementAndGet();
+            new SchemaMigrator(server).migrate();
+        });
+        return offlineStore;
+    }
+
+    private static Properties lazyPoolProperties() {
+        Properties properties = EmbeddedDatabase.poolProperties();
+        properties.setProperty("pool.minSize", "0");
+        return properties;
+    }
+}
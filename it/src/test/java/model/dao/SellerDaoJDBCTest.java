@@ -0,0 +1,255 @@
+package model.dao;
+
+import db.ConnectionPool;
+import db.DbException;
+import db.EmbeddedDatabase;
+import db.StaleEntityException;
+import db.Transaction;
+import model.entities.Department;
+import model.entities.Seller;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SellerDaoJDBCTest {
+
+    private ConnectionPool pool;
+    private SellerDaoJDBC dao;
+    private Department books;
+    private Department music;
+
+    @BeforeEach
+    void setUp() {
+        pool = EmbeddedDatabase.create();
+        dao = new SellerDaoJDBC(pool);
+        // o H2 não aceita o fetch size de streaming do MySQL
+        dao.setFetchSize(100);
+        DepartmentDaoJDBC departmentDao = new DepartmentDaoJDBC(pool);
+        books = new Department(null, "Books");
+        music = new Department(null, "Music");
+        departmentDao.insert(books);
+        departmentDao.insert(music);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void insertFillsIdAndFindByIdReadsItBack() {
+        Seller seller = seller("Anna", 3000.0, books);
+        dao.insert(seller);
+
+        assertNotNull(seller.getId());
+        assertTrue(seller.getDirtyFields().isEmpty());
+        Seller found = dao.findById(seller.getId());
+        assertEquals("Anna", found.getName());
+        assertEquals("anna@example.com", found.getEmail());
+        assertEquals(3000.0, found.getBaseSalary());
+        assertEquals(books.getId(), found.getDepartment().getId());
+        assertEquals("Books", found.getDepartment().getName());
+    }
+
+    @Test
+    void updateWritesChangedFieldsAndRejectsStaleCopy() {
+        Seller seller = seller("Anna", 3000.0, books);
+        dao.insert(seller);
+        Seller stale = dao.findById(seller.getId());
+
+        seller.setBaseSalary(3500.0);
+        dao.update(seller);
+        assertEquals(1, seller.getVersion());
+        assertTrue(seller.getDirtyFields().isEmpty());
+        assertEquals(3500.0, dao.findById(seller.getId()).getBaseSalary());
+
+        stale.setName("Anne");
+        assertThrows(StaleEntityException.class, () -> dao.update(stale));
+        assertEquals("Anna", dao.findById(seller.getId()).getName());
+    }
+
+    @Test
+    void updateInTransactionBumpsVersionOnlyAfterCommit() {
+        Seller seller = seller("Anna", 3000.0, books);
+        dao.insert(seller);
+
+        try (Transaction transaction = Transaction.begin(pool, Transaction.DEFAULT_ISOLATION, false)) {
+            seller.setBaseSalary(3500.0);
+            new SellerDaoJDBC(transaction.getDataSource()).update(seller);
+            assertEquals(0, seller.getVersion());
+            assertFalse(seller.getDirtyFields().isEmpty());
+            transaction.commit();
+        }
+        assertEquals(1, seller.getVersion());
+        assertTrue(seller.getDirtyFields().isEmpty());
+        assertEquals(1, dao.findById(seller.getId()).getVersion());
+    }
+
+    @Test
+    void rolledBackUpdateKeepsVersionSoTheSaveCanBeRetried() {
+        Seller seller = seller("Anna", 3000.0, books);
+        Seller other = seller("Bob", 2000.0, music);
+        dao.insert(seller);
+        dao.insert(other);
+
+        try (Transaction transaction = Transaction.begin(pool, Transaction.DEFAULT_ISOLATION, false)) {
+            SellerDaoJDBC transactionDao = new SellerDaoJDBC(transaction.getDataSource());
+            seller.setBaseSalary(3500.0);
+            transactionDao.update(seller);
+            other.setBaseSalary(2500.0);
+            transactionDao.updateAll(List.of(other));
+            // sem commit: close() desfaz
+        }
+        assertEquals(0, seller.getVersion());
+        assertEquals(0, other.getVersion());
+        assertEquals(3000.0, dao.findById(seller.getId()).getBaseSalary());
+
+        // a versão não ficou adiantada: a mesma instância grava sem StaleEntityException
+        dao.update(seller);
+        dao.updateAll(List.of(other));
+        assertEquals(1, seller.getVersion());
+        assertEquals(1, other.getVersion());
+        assertEquals(3500.0, dao.findById(seller.getId()).getBaseSalary());
+        assertEquals(2500.0, dao.findById(other.getId()).getBaseSalary());
+    }
+
+    @Test
+    void deleteByIdRemovesRowAndRejectsUnknownId() {
+        Seller seller = seller("Anna", 3000.0, books);
+        dao.insert(seller);
+
+        dao.deleteById(seller.getId());
+        assertNull(dao.findById(seller.getId()));
+        assertThrows(DbException.class, () -> dao.deleteById(seller.getId()));
+    }
+
+    @Test
+    void insertAllFillsIdsAndUpdateAllWritesEveryRow() {
+        List<Seller> sellers = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            sellers.add(seller("Seller " + (char) ('a' + i), 1000.0 + i, i % 2 == 0 ? books : music));
+        }
+        dao.setBatchSize(10);
+        dao.insertAll(sellers);
+        for (Seller seller : sellers) {
+            assertNotNull(seller.getId());
+        }
+
+        for (Seller seller : sellers) {
+            seller.setBaseSalary(seller.getBaseSalary() + 100.0);
+        }
+        dao.updateAll(sellers);
+        for (Seller seller : sellers) {
+            assertEquals(seller.getBaseSalary(), dao.findById(seller.getId()).getBaseSalary());
+        }
+        assertEquals(25, dao.count());
+    }
+
+    @Test
+    void findAllAndFindByDepartmentAreOrderedByName() {
+        dao.insert(seller("Carl", 1000.0, books));
+        dao.insert(seller("Anna", 1000.0, music));
+        dao.insert(seller("Bob", 1000.0, books));
+
+        assertEquals(List.of("Anna", "Bob", "Carl"), names(dao.findAll()));
+        assertEquals(List.of("Bob", "Carl"), names(dao.findByDepartment(books)));
+    }
+
+    @Test
+    void findByDepartmentsKeepsRequestOrderAndEmptyDepartments() {
+        dao.insert(seller("Bob", 1000.0, books));
+        dao.insert(seller("Anna", 1000.0, books));
+        Department empty = new Department(null, "Empty");
+        new DepartmentDaoJDBC(pool).insert(empty);
+        // blocos de uma id só: o resultado não depende do tamanho da lista IN
+        dao.setInListSize(1);
+
+        Map<Integer, List<Seller>> result = dao.findByDepartments(List.of(empty.getId(), books.getId()));
+        assertEquals(List.of(empty.getId(), books.getId()), new ArrayList<>(result.keySet()));
+        assertTrue(result.get(empty.getId()).isEmpty());
+        assertEquals(List.of("Anna", "Bob"), names(result.get(books.getId())));
+    }
+
+    @Test
+    void keysetPagesWalkForwardAndBackwardWithoutGapsOrRepeats() {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            String name = String.format("Seller %02d", i);
+            dao.insert(seller(name, 1000.0, books));
+            expected.add(name);
+        }
+        // nomes repetidos: o desempate é pelo Id
+        dao.insert(seller("Seller 05", 1000.0, music, "other05@example.com"));
+        expected.add(6, "Seller 05");
+
+        List<String> forward = new ArrayList<>();
+        List<Seller> page = dao.findPage(null, 5, PageDirection.FORWARD);
+        List<Seller> last = page;
+        while (!page.isEmpty()) {
+            forward.addAll(names(page));
+            last = page;
+            page = dao.findPage(page.get(page.size() - 1), 5, PageDirection.FORWARD);
+        }
+        assertEquals(expected, forward);
+
+        List<Seller> previous = dao.findPage(last.get(0), 5, PageDirection.BACKWARD);
+        assertEquals(expected.subList(15, 20), names(previous));
+        assertEquals(expected.subList(10, 15), names(dao.findPage(10, 5)));
+    }
+
+    @Test
+    void queryFiltersCountAndPagesOnTheServer() {
+        dao.insert(seller("Anna", 1000.0, books));
+        dao.insert(seller("Andy", 5000.0, music));
+        dao.insert(seller("Bob", 5000.0, books));
+
+        SellerQuery query = new SellerQuery();
+        query.setNamePrefix("An");
+        query.setDepartmentIds(Set.of(music.getId()));
+
+        assertEquals(1, dao.count(query));
+        assertEquals(List.of("Andy"), names(dao.findPage(query, null, 10, PageDirection.FORWARD)));
+        assertEquals(List.of("Andy"), names(dao.findPage(query, 0, 10)));
+    }
+
+    @Test
+    void streamAllReadsEveryRowInOrder() {
+        dao.insert(seller("Bob", 1000.0, books));
+        dao.insert(seller("Anna", 1000.0, music));
+
+        try (Stream<Seller> stream = dao.streamAll()) {
+            assertEquals(List.of("Anna", "Bob"), stream.map(Seller::getName).collect(Collectors.toList()));
+        }
+        List<String> visited = new ArrayList<>();
+        dao.forEach(seller -> visited.add(seller.getName()));
+        assertEquals(List.of("Anna", "Bob"), visited);
+    }
+
+    private static Seller seller(String name, double baseSalary, Department department) {
+        return seller(name, baseSalary, department, name.toLowerCase().replace(' ', '.') + "@example.com");
+    }
+
+    private static Seller seller(String name, double baseSalary, Department department, String email) {
+        return new Seller(null, name, email, Date.valueOf(LocalDate.of(1990, 1, 1)), baseSalary, department);
+    }
+
+    private static List<String> names(List<Seller> sellers) {
+        return sellers.stream().map(Seller::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,107 @@
+package model.dao;
+
+import db.ConnectionPool;
+import db.EmbeddedDatabase;
+import model.entities.Department;
+import model.entities.Seller;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransactionTemplateTest {
+
+    private ConnectionPool pool;
+    private SellerDaoJDBC sellerDao;
+    private Department books;
+
+    @BeforeEach
+    void setUp() {
+        pool = EmbeddedDatabase.create();
+        sellerDao = new SellerDaoJDBC(pool);
+        sellerDao.setFetchSize(100);
+        books = new Department(null, "Books");
+        new DepartmentDaoJDBC(pool).insert(books);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void defaultFactoriesWriteThroughTheTransactionWithoutDbProperties() {
+        TransactionTemplate template = new TransactionTemplate(pool);
+
+        template.runInTransaction(work -> work.getSellerDao().insertAll(List.of(seller("Anna"), seller("Bob"))));
+
+        assertEquals(2, sellerDao.count());
+    }
+
+    @Test
+    void configuredFactoryProvidesTheDaosOfTheUnitOfWork() {
+        TransactionTemplate template = new TransactionTemplate(pool);
+        List<SellerDao> created = new ArrayList<>();
+        template.setSellerDaoFactory(dataSource -> {
+            SellerDao dao = new SellerDaoJDBC(dataSource);
+            created.add(dao);
+            return dao;
+        });
+
+        SellerDao used = template.inTransaction(UnitOfWork::getSellerDao);
+
+        assertEquals(List.of(used), created);
+    }
+
+    @Test
+    void rollbackOnlyKeepsTheDaosUsableAndUndoesEverythingAtTheEnd() {
+        TransactionTemplate template = new TransactionTemplate(pool);
+        AtomicInteger changes = new AtomicInteger();
+        template.setDepartmentsChanged(changes::incrementAndGet);
+
+        template.runInTransaction(work -> {
+            work.getSellerDao().insert(seller("Anna"));
+            work.setRollbackOnly();
+            work.getSellerDao().insert(seller("Bob"));
+            work.getDepartmentDao().insert(new Department(null, "Music"));
+            assertEquals(2, work.getSellerDao().count());
+        });
+
+        assertEquals(0, sellerDao.count());
+        assertEquals(1, new DepartmentDaoJDBC(pool).findAll().size());
+        assertEquals(0, changes.get());
+    }
+
+    @Test
+    void departmentsChangedRunsOnlyAfterACommitThatUsedDepartments() {
+        TransactionTemplate template = new TransactionTemplate(pool);
+        AtomicInteger changes = new AtomicInteger();
+        template.setDepartmentsChanged(changes::incrementAndGet);
+
+        template.runInTransaction(work -> work.getSellerDao().insert(seller("Anna")));
+        assertEquals(0, changes.get());
+
+        template.runInTransaction(work -> work.getDepartmentDao().insert(new Department(null, "Music")));
+        assertEquals(1, changes.get());
+
+        assertThrows(IllegalStateException.class, () -> template.runInTransaction(work -> {
+            work.getDepartmentDao().insert(new Department(null, "Games"));
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(1, changes.get());
+        assertEquals(2, new DepartmentDaoJDBC(pool).findAll().size());
+    }
+
+    private Seller seller(String name) {
+        return new Seller(null, name, name.toLowerCase() + "@example.com",
+                Date.valueOf(LocalDate.of(1990, 1, 1)), 1000.0, books);
+    }
+}
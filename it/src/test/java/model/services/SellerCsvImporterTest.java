@@ -0,0 +1,120 @@
+package model.services;
+
+import db.ConnectionPool;
+import db.DbException;
+import db.EmbeddedDatabase;
+import model.dao.DepartmentDaoJDBC;
+import model.dao.SellerDaoJDBC;
+import model.entities.Department;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SellerCsvImporterTest {
+
+    @TempDir
+    Path directory;
+
+    private ConnectionPool pool;
+    private SellerDaoJDBC sellerDao;
+    private SellerCsvImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        pool = EmbeddedDatabase.create();
+        sellerDao = new SellerDaoJDBC(pool);
+        DepartmentDaoJDBC departmentDao = new DepartmentDaoJDBC(pool);
+        departmentDao.insert(new Department(null, "Books"));
+        importer = new SellerCsvImporter(sellerDao, departmentDao);
+        importer.setThreads(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void importsValidRowsAndWritesRejectedOnesWithLineAndReason() throws Exception {
+        Path csv = write("sellers.csv",
+                "Name,Email,BirthDate,BaseSalary,Department",
+                "Anna,anna@example.com,1990-01-01,3000,Books",
+                "Bob,bob@example.com,not a date,2000,Books",
+                "Carl,carl@example.com,1985-05-05,2500,Music");
+        Path rejects = directory.resolve("sellers.rejects.csv");
+
+        ImportProgress result = importer.importFile(csv, rejects);
+
+        assertEquals(3, result.getRowsRead());
+        assertEquals(1, result.getRowsImported());
+        assertEquals(2, result.getRowsRejected());
+        assertEquals("Anna", sellerDao.findAll().get(0).getName());
+        List<String> rejected = Files.readAllLines(rejects, StandardCharsets.UTF_8);
+        assertEquals(3, rejected.size());
+        assertTrue(rejected.get(1).startsWith("3,"));
+        assertTrue(rejected.get(2).startsWith("4,"));
+    }
+
+    @Test
+    void duplicateEmailRejectsOnlyThatRow() throws Exception {
+        Path csv = write("sellers.csv",
+                "Name,Email,BirthDate,BaseSalary,Department",
+                "Anna,anna@example.com,1990-01-01,3000,Books",
+                "Anne,anna@example.com,1991-01-01,3100,Books",
+                "Bob,bob@example.com,1985-05-05,2500,Books");
+        Path rejects = directory.resolve("sellers.rejects.csv");
+
+        ImportProgress result = importer.importFile(csv, rejects);
+
+        assertEquals(2, result.getRowsImported());
+        assertEquals(1, result.getRowsRejected());
+        assertEquals(2, sellerDao.count());
+    }
+
+    @Test
+    void databaseErrorThatIsNotAboutTheRowsAbortsTheImport() throws Exception {
+        Path csv = write("sellers.csv",
+                "Name,Email,BirthDate,BaseSalary,Department",
+                "Anna,anna@example.com,1990-01-01,3000,Books",
+                "Bob,bob@example.com,1985-05-05,2500,Books");
+        Path rejects = directory.resolve("sellers.rejects.csv");
+        // nenhuma linha tem culpa: recusar todas e terminar "com sucesso" esconderia o erro
+        EmbeddedDatabase.execute(pool, "DROP TABLE seller");
+
+        DbException error = assertThrows(DbException.class, () -> importer.importFile(csv, rejects));
+        assertFalse(error.isIntegrityViolation());
+    }
+
+    @Test
+    void missingFileIsAnIoErrorNotADatabaseError() {
+        Path missing = directory.resolve("missing.csv");
+
+        assertThrows(UncheckedIOException.class,
+                () -> importer.importFile(missing, directory.resolve("missing.rejects.csv")));
+    }
+
+    @Test
+    void unwritableRejectFileIsAnIoError() throws Exception {
+        Path csv = write("sellers.csv", "Name,Email,BirthDate,BaseSalary,Department");
+        // um diretório no lugar do arquivo de rejeitados
+        Path rejects = Files.createDirectory(directory.resolve("rejects"));
+
+        assertThrows(UncheckedIOException.class, () -> importer.importFile(csv, rejects));
+    }
+
+    private Path write(String name, String... lines) throws Exception {
+        return Files.write(directory.resolve(name), List.of(lines), StandardCharsets.UTF_8);
+    }
+}
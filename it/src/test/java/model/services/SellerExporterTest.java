@@ -0,0 +1,96 @@
+package model.services;
+
+import db.ConnectionPool;
+import db.EmbeddedDatabase;
+import model.dao.DepartmentDaoJDBC;
+import model.dao.SellerDaoJDBC;
+import model.dao.SellerQuery;
+import model.entities.Department;
+import model.entities.Seller;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SellerExporterTest {
+
+    private static final int SELLERS = 5000;
+
+    @TempDir
+    Path directory;
+
+    private ConnectionPool pool;
+    private SellerExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        pool = EmbeddedDatabase.create();
+        Department books = new Department(null, "Books");
+        new DepartmentDaoJDBC(pool).insert(books);
+        SellerDaoJDBC sellerDao = new SellerDaoJDBC(pool);
+        // o H2 não aceita o fetch size de streaming do MySQL
+        sellerDao.setFetchSize(100);
+        List<Seller> sellers = new ArrayList<>();
+        for (int i = 0; i < SELLERS; i++) {
+            sellers.add(new Seller(null, String.format("Seller %05d", i), "seller" + i + "@example.com",
+                    Date.valueOf(LocalDate.of(1990, 1, 1)), 1000.0 + i, books));
+        }
+        sellerDao.insertAll(sellers);
+        exporter = new SellerExporter(sellerDao);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void exportsEveryRowAsCsv() throws Exception {
+        Path file = directory.resolve("sellers.csv");
+
+        assertEquals(SELLERS, exporter.export(new SellerQuery(), file, SellerExporter.Format.CSV));
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(SELLERS + 1, lines.size());
+        assertEquals("\uFEFFId,Name,Email,BirthDate,BaseSalary,Department", lines.get(0));
+        assertEquals(0, pool.getMetrics().getActiveConnections());
+    }
+
+    @Test
+    void cancelStopsExportLeavesNoFileAndReturnsConnection() {
+        Path file = directory.resolve("sellers.csv");
+        exporter.setProgressIntervalMillis(0);
+        // cancela no primeiro aviso de progresso, com a maior parte das linhas ainda no banco
+        exporter.setProgressListener(rows -> exporter.cancel());
+
+        assertThrows(CancellationException.class,
+                () -> exporter.export(new SellerQuery(), file, SellerExporter.Format.XLSX));
+
+        assertFalse(Files.exists(file));
+        assertFalse(Files.exists(directory.resolve("sellers.csv.tmp")));
+        assertEquals(0, pool.getMetrics().getActiveConnections());
+    }
+
+    @Test
+    void unwritableTargetIsAnIoError() {
+        Path file = directory.resolve("missing").resolve("sellers.csv");
+
+        assertThrows(UncheckedIOException.class,
+                () -> exporter.export(new SellerQuery(), file, SellerExporter.Format.CSV));
+        assertEquals(0, pool.getMetrics().getActiveConnections());
+    }
+}
@@ -0,0 +1,90 @@
+package model.services;
+
+import db.ConnectionPool;
+import db.EmbeddedDatabase;
+import model.dao.DepartmentDaoJDBC;
+import model.dao.SellerDaoJDBC;
+import model.dao.SellerStatsDaoJDBC;
+import model.dao.TransactionTemplate;
+import model.entities.Department;
+import model.entities.DepartmentStats;
+import model.entities.Seller;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SellerServiceTest {
+
+    private ConnectionPool pool;
+    // réplica que ainda não recebeu nada do primário
+    private ConnectionPool replica;
+    private SellerStatsDaoJDBC statsDao;
+    private SellerService service;
+    private Department books;
+    private Department music;
+
+    @BeforeEach
+    void setUp() {
+        pool = EmbeddedDatabase.create();
+        replica = EmbeddedDatabase.create();
+        DepartmentDaoJDBC departmentDao = new DepartmentDaoJDBC(pool);
+        books = new Department(null, "Books");
+        music = new Department(null, "Music");
+        departmentDao.insert(books);
+        departmentDao.insert(music);
+
+        SellerDaoJDBC sellerDao = new SellerDaoJDBC(pool);
+        sellerDao.setReadDataSource(replica);
+        sellerDao.setFetchSize(100);
+        statsDao = new SellerStatsDaoJDBC(pool);
+        statsDao.setSummaryMaintained(true);
+        service = new SellerService(sellerDao, new TransactionTemplate(pool), statsDao);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void movingASellerRefreshesTheOldDepartmentWithoutReadingTheReplica() {
+        Seller seller = new Seller(null, "Anna", "anna@example.com", new Date(), 3000.0, books);
+        service.savedOrUpdate(seller);
+        assertEquals(1, headcount(books));
+
+        seller.setDepartment(music);
+        service.savedOrUpdate(seller);
+
+        assertEquals(0, headcount(books));
+        assertEquals(1, headcount(music));
+    }
+
+    @Test
+    void movingASellerOfUnknownOriginRebuildsTheSummary() {
+        Seller seller = new Seller(null, "Anna", "anna@example.com", new Date(), 3000.0, books);
+        service.savedOrUpdate(seller);
+
+        // como um vendedor da fila de gravação de uma versão anterior: sem o departamento lido
+        Seller detached = new Seller(seller.getId(), "Anna", "anna@example.com", seller.getBirthDate(), 3000.0, books);
+        detached.setVersion(seller.getVersion());
+        detached.setDepartment(music);
+        service.savedOrUpdate(detached);
+
+        assertEquals(0, headcount(books));
+        assertEquals(1, headcount(music));
+    }
+
+    private int headcount(Department department) {
+        for (DepartmentStats stats : statsDao.findAll()) {
+            if (stats.getDepartment().getId().equals(department.getId())) {
+                return stats.getHeadcount();
+            }
+        }
+        return 0;
+    }
+}
@@ -1,10 +1,17 @@
 package application;
 
+import db.DB;
+import db.DbException;
+import gui.util.Alerts;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.scene.control.ScrollPane;
 import javafx.stage.Stage;
+import model.dao.DaoFactory;
+import model.services.ServiceExecutor;
+import model.services.WriteBehindQueue;
 
 import java.io.IOException;
 
@@ -12,8 +19,25 @@ public class Main extends Application {
 
     private static Scene mainScene;
 
+    // falha das migrações, mostrada quando a janela abrir
+    private DbException migrationError;
+
+    // Roda na thread do launcher, antes do start(): as migrações não travam a thread do JavaFX.
+    @Override
+    public void init() {
+        try {
+            DaoFactory.migrateSchema();
+        } catch (DbException e) {
+            migrationError = e;
+        }
+    }
+
     @Override
     public void start(Stage primaryStage) {
+        if (migrationError != null) {
+            Alerts.showAlerts("Error migrating database", null, migrationError.getMessage(), Alert.AlertType.ERROR);
+        }
+
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/gui/MainView.fxml"));
             ScrollPane scrollPane = loader.load();
@@ -31,6 +55,15 @@ public class Main extends Application {
         }
     }
 
+    @Override
+    public void stop() {
+        // o que não foi gravado fica no arquivo da fila para a próxima execução
+        WriteBehindQueue.shutdown();
+        ServiceExecutor.shutdown();
+        DaoFactory.shutdown();
+        DB.closeConnection();
+    }
+
     public static Scene getMainScene(){
         return mainScene;
     }
@@ -0,0 +1,325 @@
+package db;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pool de conexões limitado e thread-safe.
+ *
+ * Configurado pelas chaves "pool.*" do db.properties; as chaves sem ponto são repassadas ao driver.
+ * O tempo de espera por conexão vai para QueryMetrics como "pool.wait.<pool.name>" e, com
+ * "metrics.slowQueryMillis" maior que zero, os PreparedStatement passam pelo SlowQueryLog.
+ * Cada conexão física mantém um cache de PreparedStatement de tamanho "pool.statementCacheSize".
+ * Um connection emprestado deve ser devolvido com close().
+ */
+public class ConnectionPool implements DataSource {
+
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+
+    private final String url;
+    private final Properties driverProperties;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final boolean validateOnBorrow;
+    // só valida no empréstimo a conexão parada há mais que isso: isValid() é uma ida ao servidor
+    private final long validationIdleMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+    private final long slowQueryNanos;
+    // pools com o mesmo pool.name (primário e réplicas, por exemplo) somam na mesma operação
+    private final OperationMetrics waitMetrics;
+
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> active = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final ScheduledExecutorService housekeeper;
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+
+    private volatile boolean shutdown;
+
+    public ConnectionPool(String url, Properties properties) {
+        this.url = url;
+        this.driverProperties = new Properties();
+        for (String key : properties.stringPropertyNames()) {
+            // chaves com ponto (pool.*, dao.*) são da aplicação e não vão para o driver
+            if (key.indexOf('.') < 0 && !key.equals("dburl")) {
+                driverProperties.setProperty(key, properties.getProperty(key));
+            }
+        }
+
+        minSize = intProperty(properties, "pool.minSize", 1);
+        maxSize = intProperty(properties, "pool.maxSize", 10);
+        borrowTimeoutMillis = longProperty(properties, "pool.borrowTimeoutMillis", 30_000);
+        idleTimeoutMillis = longProperty(properties, "pool.idleTimeoutMillis", 600_000);
+        leakThresholdMillis = longProperty(properties, "pool.leakThresholdMillis", 0);
+        validateOnBorrow = Boolean.parseBoolean(properties.getProperty("pool.validateOnBorrow", "true"));
+        validationIdleMillis = longProperty(properties, "pool.validationIdleMillis", 30_000);
+        validationTimeoutSeconds = intProperty(properties, "pool.validationTimeoutSeconds", 2);
+        statementCacheSize = intProperty(properties, "pool.statementCacheSize", 50);
+        long housekeepingMillis = longProperty(properties, "pool.housekeepingMillis", 30_000);
+        slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(longProperty(properties, "metrics.slowQueryMillis", 0));
+        waitMetrics = QueryMetrics.get().operation("pool.wait." + properties.getProperty("pool.name", "db"));
+
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new DbException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+
+        permits = new Semaphore(maxSize, true);
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeeping,
+                housekeepingMillis, housekeepingMillis, TimeUnit.MILLISECONDS);
+
+        try {
+            fillToMinimum();
+        } catch (SQLException e) {
+            shutdown();
+            throw new DbException(e.getMessage());
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool is shut down");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                SQLException timeout = new SQLException("Timed out after " + borrowTimeoutMillis
+                        + "ms waiting for a connection (" + getMetrics() + ")");
+                waitMetrics.recordError(System.nanoTime() - start, timeout);
+                throw timeout;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection");
+        }
+
+        try {
+            PooledConnection pooled = takeValidConnection();
+            recordWait(System.nanoTime() - start);
+            active.add(pooled);
+            return pooled.borrow(leakThresholdMillis > 0);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pool credentials are fixed by db.properties");
+    }
+
+    public PoolMetrics getMetrics() {
+        int activeCount = active.size();
+        int idleCount = idle.size();
+        return new PoolMetrics(activeCount + idleCount, activeCount, idleCount, permits.getQueueLength(),
+                borrowCount.get(), timeoutCount.get(), createdCount.get(), destroyedCount.get(),
+                leakCount.get(), totalWaitNanos.get(), maxWaitNanos.get(),
+                statementCacheHits.get(), statementCacheMisses.get());
+    }
+
+    // 0 quando o slow-query log está desligado.
+    long slowQueryNanos() {
+        return slowQueryNanos;
+    }
+
+    // Conexões emprestadas agora; usado pelo roteamento de leituras (least-outstanding).
+    int activeCount() {
+        return active.size();
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+        for (PooledConnection connection : active) {
+            destroy(connection);
+        }
+        active.clear();
+    }
+
+    void release(PooledConnection pooled) {
+        if (!active.remove(pooled)) {
+            return;
+        }
+        try {
+            if (shutdown) {
+                destroy(pooled);
+                return;
+            }
+            try {
+                pooled.returned();
+                idle.offerFirst(pooled);
+            } catch (SQLException e) {
+                destroy(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private PooledConnection takeValidConnection() throws SQLException {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (!needsValidation(pooled) || pooled.isValid(validationTimeoutSeconds)) {
+                return pooled;
+            }
+            destroy(pooled);
+        }
+        return create();
+    }
+
+    // Conexão devolvida há pouco ainda está de pé; as paradas há muito tempo podem ter sido fechadas
+    // pelo servidor (wait_timeout) ou por um firewall no caminho.
+    private boolean needsValidation(PooledConnection pooled) {
+        return validateOnBorrow && System.currentTimeMillis() - pooled.getLastUsedAt() > validationIdleMillis;
+    }
+
+    private PooledConnection create() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, driverProperties);
+        createdCount.incrementAndGet();
+        StatementCache statementCache = statementCacheSize > 0
+                ? new StatementCache(connection, statementCacheSize, statementCacheHits, statementCacheMisses)
+                : null;
+        return new PooledConnection(this, connection, statementCache);
+    }
+
+    private void destroy(PooledConnection pooled) {
+        pooled.closePhysical();
+        destroyedCount.incrementAndGet();
+    }
+
+    private void recordWait(long waitNanos) {
+        borrowCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        waitMetrics.record(waitNanos, 0, 0);
+    }
+
+    private void fillToMinimum() throws SQLException {
+        while (!shutdown && active.size() + idle.size() < minSize && permits.tryAcquire()) {
+            try {
+                idle.offerLast(create());
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private void housekeeping() {
+        try {
+            long now = System.currentTimeMillis();
+
+            List<PooledConnection> candidates = new ArrayList<>(idle);
+            for (PooledConnection pooled : candidates) {
+                if (active.size() + idle.size() <= minSize) {
+                    break;
+                }
+                if (now - pooled.getLastUsedAt() > idleTimeoutMillis && idle.remove(pooled)) {
+                    destroy(pooled);
+                }
+            }
+
+            if (leakThresholdMillis > 0) {
+                for (PooledConnection pooled : active) {
+                    if (!pooled.isLeakReported() && now - pooled.getBorrowedAt() > leakThresholdMillis) {
+                        pooled.setLeakReported(true);
+                        leakCount.incrementAndGet();
+                        LOGGER.log(Level.WARNING, "Connection held for more than " + leakThresholdMillis
+                                + "ms, possible leak", pooled.getBorrowTrace());
+                    }
+                }
+            }
+
+            fillToMinimum();
+        } catch (SQLException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Connection pool housekeeping failed", e);
+        }
+    }
+
+    private static int intProperty(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static long longProperty(Properties properties, String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() {
+        return LOGGER.getParent();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
@@ -1,33 +1,104 @@
 package db;
 
+import javax.sql.DataSource;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 public class DB {
 
-    private static Connection connection = null;
+    private static ConnectionPool dataSource = null;
 
-    public static Connection getConnection() {
-        if (connection == null) {
+    // só existe quando db.properties lista réplicas em dburl.replicas
+    private static ReadRoutingDataSource readRouting = null;
+
+    private static Properties properties = null;
+
+    public static synchronized Properties getProperties() {
+        if (properties == null) {
+            properties = loadProperties();
+        }
+        return properties;
+    }
+
+    // Primário: gravações e tudo o que precisa ler o dado mais recente.
+    public static synchronized DataSource getDataSource() {
+        if (dataSource == null) {
+            Properties props = getProperties();
+            String url = props.getProperty("dburl");
+            // no modo offline a aplicação abre com o servidor fora do ar: as leituras vêm da cópia local
+            boolean offline = Boolean.parseBoolean(props.getProperty("offline.enabled", "false"));
+            dataSource = offline ? createLazyPool(url, props) : new ConnectionPool(url, props);
+            List<ConnectionPool> replicas = new ArrayList<>();
             try {
-                Properties props = loadProperties();
-                String url = props.getProperty("dburl");
-                connection = DriverManager.getConnection(url, props);
+                for (String replicaUrl : props.getProperty("dburl.replicas", "").split(",")) {
+                    if (!replicaUrl.isBlank()) {
+                        replicas.add(createLazyPool(replicaUrl.trim(), props));
+                    }
+                }
             }
-            catch (SQLException e) {
-                throw new DbException(e.getMessage());
+            catch (DbException e) {
+                for (ConnectionPool replica : replicas) {
+                    replica.shutdown();
+                }
+                dataSource.shutdown();
+                dataSource = null;
+                throw e;
+            }
+            if (!replicas.isEmpty()) {
+                readRouting = new ReadRoutingDataSource(dataSource, replicas, new MySqlReplicaLagProbe(), props);
             }
         }
-        return connection;
+        return readRouting != null ? readRouting.getWriteDataSource() : dataSource;
+    }
+
+    // Sem conexões abertas na criação: um servidor fora do ar não trava a inicialização. Uma réplica
+    // fica fora das leituras até a verificação do ReadRoutingDataSource conseguir falar com ela.
+    static ConnectionPool createLazyPool(String url, Properties props) {
+        Properties replicaProps = new Properties();
+        replicaProps.putAll(props);
+        replicaProps.setProperty("pool.minSize", "0");
+        return new ConnectionPool(url, replicaProps);
+    }
+
+    // Leituras que podem ir para uma réplica; sem réplicas é o próprio primário.
+    public static synchronized DataSource getReadDataSource() {
+        DataSource primary = getDataSource();
+        return readRouting != null ? readRouting : primary;
+    }
+
+    // Empresta uma conexão do pool; quem chamou deve devolver com closeConnection(connection).
+    public static Connection getConnection() {
+        try {
+            return getDataSource().getConnection();
+        }
+        catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+    }
+
+    public static synchronized PoolMetrics getPoolMetrics() {
+        return dataSource == null ? null : dataSource.getMetrics();
+    }
+
+    public static synchronized void closeConnection() {
+        if (readRouting != null) {
+            readRouting.shutdown();
+            readRouting = null;
+        }
+        else if (dataSource != null) {
+            dataSource.shutdown();
+        }
+        dataSource = null;
     }
 
-    public static void closeConnection() {
+    public static void closeConnection(Connection connection) {
         if (connection != null) {
             try {
                 connection.close();
@@ -67,4 +138,4 @@ public class DB {
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,31 @@
-
 package db;
 
+import java.sql.SQLException;
+
 public class DbException extends RuntimeException {
     private static final long serialVersionUID = 1L;
 
     public DbException(String msg) {
         super(msg);
     }
+
+    public DbException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+
+    // SQLState da SQLException de origem; null quando o erro não veio do driver
+    public String getSQLState() {
+        for (Throwable cause = getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && ((SQLException) cause).getSQLState() != null) {
+                return ((SQLException) cause).getSQLState();
+            }
+        }
+        return null;
+    }
+
+    // Classe 23: chave duplicada, chave estrangeira, NOT NULL... O problema está nos dados, não na conexão.
+    public boolean isIntegrityViolation() {
+        String sqlState = getSQLState();
+        return sqlState != null && sqlState.startsWith("23");
+    }
 }
@@ -0,0 +1,71 @@
+package db;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Histograma de tempos sem lock, em microssegundos. Cada potência de 2 é dividida em 4 faixas,
+// então um percentil sai com no máximo ~25% de erro para cima, com 248 contadores fixos.
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 248;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(bucket(micros));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    // Limite superior da faixa onde cai o percentil (0 < quantile <= 1); 0 sem amostras.
+    public long percentileNanos(double quantile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperBoundMicros(bucket) * 1000, maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    private static int bucket(long micros) {
+        if (micros < 4) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - 2)) & 3;
+        return 4 * (exponent - 1) + sub;
+    }
+
+    private static long upperBoundMicros(int bucket) {
+        if (bucket < 4) {
+            return bucket;
+        }
+        int exponent = bucket / 4 + 1;
+        int sub = bucket % 4;
+        return ((5L + sub) << (exponent - 2)) - 1;
+    }
+}
@@ -0,0 +1,39 @@
+package db;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Uma versão do schema: os comandos DDL que levam o banco da versão anterior para esta.
+public class Migration {
+
+    private final int version;
+    private final String description;
+    private final List<String> statements;
+
+    public Migration(int version, String description, String... statements) {
+        if (version < 1) {
+            throw new IllegalArgumentException("Migration version must be positive");
+        }
+        this.version = version;
+        this.description = description;
+        this.statements = Collections.unmodifiableList(Arrays.asList(statements));
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public List<String> getStatements() {
+        return statements;
+    }
+
+    @Override
+    public String toString() {
+        return "V" + version + " " + description;
+    }
+}
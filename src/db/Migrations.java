@@ -0,0 +1,74 @@
+package db;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Histórico do schema. Migrações já aplicadas não devem ser alteradas: mudanças novas entram como
+// uma versão nova no final da lista.
+// No MySQL cada DDL faz commit implícito, por isso cada índice fica na sua própria versão:
+// se um deles falhar, as versões anteriores continuam registradas em schema_version. As versões com
+// vários comandos (5 e 6) podem ser reaplicadas: o SchemaMigrator pula colunas e índices que já existem.
+public class Migrations {
+
+    private static final List<Migration> ALL = Collections.unmodifiableList(Arrays.asList(
+            new Migration(1, "create department and seller tables",
+                    "CREATE TABLE IF NOT EXISTS department (\n" +
+                    "  Id INT NOT NULL AUTO_INCREMENT,\n" +
+                    "  Name VARCHAR(60) DEFAULT NULL,\n" +
+                    "  PRIMARY KEY (Id)\n" +
+                    ")",
+                    "CREATE TABLE IF NOT EXISTS seller (\n" +
+                    "  Id INT NOT NULL AUTO_INCREMENT,\n" +
+                    "  Name VARCHAR(60) NOT NULL,\n" +
+                    "  Email VARCHAR(100) NOT NULL,\n" +
+                    "  BirthDate DATETIME NOT NULL,\n" +
+                    "  BaseSalary DOUBLE NOT NULL,\n" +
+                    "  DepartmentId INT NOT NULL,\n" +
+                    "  PRIMARY KEY (Id),\n" +
+                    "  FOREIGN KEY (DepartmentId) REFERENCES department (Id)\n" +
+                    ")"),
+            // findByDepartment: WHERE DepartmentId = ? ORDER BY Name sem filesort
+            new Migration(2, "index seller (DepartmentId, Name)",
+                    "CREATE INDEX idx_seller_department_name ON seller (DepartmentId, Name)"),
+            // findAll, streamAll e a paginação por nome: ORDER BY Name, Id e o seek (Name, Id) > (?, ?)
+            new Migration(3, "index seller (Name, Id)",
+                    "CREATE INDEX idx_seller_name_id ON seller (Name, Id)"),
+            // falha se já houver e-mails repetidos; nesse caso corrija os dados e rode de novo
+            new Migration(4, "unique seller Email",
+                    "CREATE UNIQUE INDEX uk_seller_email ON seller (Email)"),
+            // trava otimista: UPDATE ... SET Version = Version + 1 WHERE Id = ? AND Version = ?
+            new Migration(5, "version column on seller and department",
+                    "ALTER TABLE seller ADD COLUMN Version INT NOT NULL DEFAULT 0",
+                    "ALTER TABLE department ADD COLUMN Version INT NOT NULL DEFAULT 0"),
+            // marca d'água da sincronização do cache local: WHERE LastModified >= ? pelo índice
+            new Migration(6, "last modified timestamp on seller and department",
+                    "ALTER TABLE seller ADD COLUMN LastModified TIMESTAMP(3) NOT NULL\n" +
+                    "  DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)",
+                    "ALTER TABLE department ADD COLUMN LastModified TIMESTAMP(3) NOT NULL\n" +
+                    "  DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)",
+                    "CREATE INDEX idx_seller_last_modified ON seller (LastModified)",
+                    "CREATE INDEX idx_department_last_modified ON department (LastModified)"),
+            // resumo do painel (stats.summaryTable=true): uma linha por departamento com vendedores,
+            // recalculada por SellerStatsDaoJDBC; AsOf é o dia usado nas faixas de idade
+            new Migration(7, "department_stats summary table",
+                    "CREATE TABLE IF NOT EXISTS department_stats (\n" +
+                    "  DepartmentId INT NOT NULL,\n" +
+                    "  Headcount INT NOT NULL,\n" +
+                    "  TotalSalary DOUBLE NOT NULL,\n" +
+                    "  MinSalary DOUBLE NOT NULL,\n" +
+                    "  MaxSalary DOUBLE NOT NULL,\n" +
+                    "  Under25 INT NOT NULL,\n" +
+                    "  From25To34 INT NOT NULL,\n" +
+                    "  From35To44 INT NOT NULL,\n" +
+                    "  From45To54 INT NOT NULL,\n" +
+                    "  From55 INT NOT NULL,\n" +
+                    "  AsOf DATE NOT NULL,\n" +
+                    "  PRIMARY KEY (DepartmentId)\n" +
+                    ")")
+    ));
+
+    public static List<Migration> all() {
+        return ALL;
+    }
+}
@@ -0,0 +1,39 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Lê Seconds_Behind_Source de SHOW REPLICA STATUS (MySQL 8.0.22+) ou Seconds_Behind_Master de
+// SHOW SLAVE STATUS nas versões anteriores. NULL significa que a thread de replicação parou.
+public class MySqlReplicaLagProbe implements ReplicaLagProbe {
+
+    private volatile boolean legacySyntax;
+
+    @Override
+    public long lagSeconds(Connection connection) throws SQLException {
+        if (!legacySyntax) {
+            try {
+                return lagSeconds(connection, "SHOW REPLICA STATUS", "Seconds_Behind_Source");
+            }
+            catch (SQLException e) {
+                // servidor sem a sintaxe nova: tenta a antiga daqui em diante
+                legacySyntax = true;
+            }
+        }
+        return lagSeconds(connection, "SHOW SLAVE STATUS", "Seconds_Behind_Master");
+    }
+
+    private static long lagSeconds(Connection connection, String sql, String column) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            if (!resultSet.next()) {
+                // sem linha o servidor não é réplica de ninguém
+                return -1;
+            }
+            long lag = resultSet.getLong(column);
+            return resultSet.wasNull() ? -1 : lag;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package db;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Tempo, linhas, bytes e erros de uma operação (um método de DAO, a espera por conexão...).
+// Os valores são acumulados desde o início da aplicação.
+public class OperationMetrics implements OperationMetricsMXBean {
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(long nanos, long rowCount, long byteCount) {
+        latency.record(nanos);
+        rows.addAndGet(rowCount);
+        bytes.addAndGet(byteCount);
+    }
+
+    public void recordError(long nanos, Throwable error) {
+        latency.record(nanos);
+        errors.computeIfAbsent(error.getClass().getSimpleName(), key -> new LongAdder()).increment();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.percentileNanos(0.50) / 1_000_000.0;
+    }
+
+    @Override
+    public double getP95Millis() {
+        return latency.percentileNanos(0.95) / 1_000_000.0;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.percentileNanos(0.99) / 1_000_000.0;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.getMaxNanos() / 1_000_000.0;
+    }
+
+    @Override
+    public double getTotalMillis() {
+        return latency.getTotalNanos() / 1_000_000.0;
+    }
+
+    @Override
+    public long getRows() {
+        return rows.get();
+    }
+
+    @Override
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    @Override
+    public Map<String, Long> getErrors() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        errors.forEach((type, count) -> snapshot.put(type, count.sum()));
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{count=%d, p50=%.2fms, p95=%.2fms, p99=%.2fms, max=%.2fms, rows=%d, errors=%s}",
+                name, getCount(), getP50Millis(), getP95Millis(), getP99Millis(), getMaxMillis(), getRows(),
+                getErrors());
+    }
+}
@@ -0,0 +1,26 @@
+package db;
+
+import java.util.Map;
+
+// Visão JMX de uma OperationMetrics: workshop:type=Operation,name=<operação>.
+public interface OperationMetricsMXBean {
+
+    long getCount();
+
+    double getP50Millis();
+
+    double getP95Millis();
+
+    double getP99Millis();
+
+    double getMaxMillis();
+
+    double getTotalMillis();
+
+    long getRows();
+
+    long getBytes();
+
+    // nome simples da exceção -> quantidade
+    Map<String, Long> getErrors();
+}
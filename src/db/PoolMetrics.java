@@ -0,0 +1,117 @@
+package db;
+
+public class PoolMetrics {
+
+    private final int totalConnections;
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int waitingThreads;
+    private final long borrowCount;
+    private final long timeoutCount;
+    private final long createdCount;
+    private final long destroyedCount;
+    private final long leakCount;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+
+    public PoolMetrics(int totalConnections, int activeConnections, int idleConnections, int waitingThreads,
+                       long borrowCount, long timeoutCount, long createdCount, long destroyedCount,
+                       long leakCount, long totalWaitNanos, long maxWaitNanos,
+                       long statementCacheHits, long statementCacheMisses) {
+        this.totalConnections = totalConnections;
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.waitingThreads = waitingThreads;
+        this.borrowCount = borrowCount;
+        this.timeoutCount = timeoutCount;
+        this.createdCount = createdCount;
+        this.destroyedCount = destroyedCount;
+        this.leakCount = leakCount;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getWaitingThreads() {
+        return waitingThreads;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    public long getCreatedCount() {
+        return createdCount;
+    }
+
+    public long getDestroyedCount() {
+        return destroyedCount;
+    }
+
+    public long getLeakCount() {
+        return leakCount;
+    }
+
+    public long getTotalWaitNanos() {
+        return totalWaitNanos;
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+
+    public double getStatementCacheHitRate() {
+        long total = statementCacheHits + statementCacheMisses;
+        return total == 0 ? 0.0 : (double) statementCacheHits / total;
+    }
+
+    public double getAverageWaitMillis() {
+        return borrowCount == 0 ? 0.0 : totalWaitNanos / 1_000_000.0 / borrowCount;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolMetrics{" +
+                "total=" + totalConnections +
+                ", active=" + activeConnections +
+                ", idle=" + idleConnections +
+                ", waiting=" + waitingThreads +
+                ", borrowed=" + borrowCount +
+                ", timeouts=" + timeoutCount +
+                ", created=" + createdCount +
+                ", destroyed=" + destroyedCount +
+                ", leaks=" + leakCount +
+                ", avgWaitMs=" + String.format("%.3f", getAverageWaitMillis()) +
+                ", maxWaitMs=" + String.format("%.3f", maxWaitNanos / 1_000_000.0) +
+                ", stmtCacheHits=" + statementCacheHits +
+                ", stmtCacheMisses=" + statementCacheMisses +
+                '}';
+    }
+}
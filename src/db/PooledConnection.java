@@ -0,0 +1,154 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Conexão física mantida pelo pool. Cada empréstimo recebe um proxy novo,
+// assim um handle antigo não consegue mexer na conexão do próximo usuário.
+class PooledConnection {
+
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final StatementCache statementCache;
+
+    private volatile long lastUsedAt;
+    private volatile long borrowedAt;
+    private volatile Throwable borrowTrace;
+    private volatile boolean leakReported;
+    private volatile Handle handle;
+
+    PooledConnection(ConnectionPool pool, Connection connection, StatementCache statementCache) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCache = statementCache;
+        this.lastUsedAt = System.currentTimeMillis();
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    long getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    long getBorrowedAt() {
+        return borrowedAt;
+    }
+
+    Throwable getBorrowTrace() {
+        return borrowTrace;
+    }
+
+    boolean isLeakReported() {
+        return leakReported;
+    }
+
+    void setLeakReported(boolean leakReported) {
+        this.leakReported = leakReported;
+    }
+
+    boolean isValid(int timeoutSeconds) {
+        try {
+            return !connection.isClosed() && connection.isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    Connection borrow(boolean trackLeaks) {
+        borrowedAt = System.currentTimeMillis();
+        borrowTrace = trackLeaks ? new Throwable("Connection borrowed here") : null;
+        leakReported = false;
+        handle = new Handle();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handle);
+    }
+
+    void returned() throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        }
+        if (connection.isReadOnly()) {
+            connection.setReadOnly(false);
+        }
+        connection.clearWarnings();
+        lastUsedAt = System.currentTimeMillis();
+        borrowTrace = null;
+    }
+
+    void closePhysical() {
+        if (statementCache != null) {
+            statementCache.closeAll();
+        }
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // a conexão já está sendo descartada
+        }
+    }
+
+    private class Handle implements InvocationHandler {
+
+        private boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + connection;
+                default:
+                    if (closed) {
+                        throw new SQLException("Connection is closed");
+                    }
+            }
+            if (name.equals("prepareStatement")) {
+                PreparedStatement statement = prepare(method, args);
+                long slowQueryNanos = pool.slowQueryNanos();
+                return slowQueryNanos > 0 ? SlowQueryLog.wrap(statement, (String) args[0], slowQueryNanos) : statement;
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+
+        private PreparedStatement prepare(Method method, Object[] args) throws Throwable {
+            if (statementCache != null) {
+                Class<?>[] types = method.getParameterTypes();
+                if (types.length == 1) {
+                    return statementCache.prepare((String) args[0], Statement.NO_GENERATED_KEYS);
+                }
+                if (types.length == 2 && types[1] == int.class) {
+                    return statementCache.prepare((String) args[0], (Integer) args[1]);
+                }
+            }
+            try {
+                return (PreparedStatement) method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package db;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.FileHandler;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+// Métricas dos DAOs e dos pools para a aplicação inteira, sem depender de nenhum servidor:
+// - JMX (metrics.jmx=true): um MBean workshop:type=Operation,name=<operação> por operação;
+// - metrics.file: retrato no formato texto do Prometheus/Micrometer a cada metrics.exportMillis;
+// - metrics.slowQueryFile: arquivo do slow-query log (ver SlowQueryLog).
+public class QueryMetrics {
+
+    private static final Logger LOGGER = Logger.getLogger(QueryMetrics.class.getName());
+
+    private static final QueryMetrics INSTANCE = new QueryMetrics();
+
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+    private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+
+    private volatile boolean jmx;
+    private boolean started;
+    private Path file;
+    private ScheduledExecutorService exporter;
+    private Handler slowQueryHandler;
+
+    public static QueryMetrics get() {
+        return INSTANCE;
+    }
+
+    public OperationMetrics operation(String name) {
+        OperationMetrics metrics = operations.get(name);
+        if (metrics == null) {
+            OperationMetrics created = new OperationMetrics(name);
+            metrics = operations.putIfAbsent(name, created);
+            if (metrics == null) {
+                metrics = created;
+                if (jmx) {
+                    register(created);
+                }
+            }
+        }
+        return metrics;
+    }
+
+    public List<OperationMetrics> getOperations() {
+        List<OperationMetrics> list = new ArrayList<>(operations.values());
+        list.sort(Comparator.comparing(OperationMetrics::getName));
+        return list;
+    }
+
+    // Liga os exportadores uma vez; as operações são medidas mesmo antes disso.
+    public synchronized void start(Properties properties) {
+        if (started) {
+            return;
+        }
+        started = true;
+        if (Boolean.parseBoolean(properties.getProperty("metrics.jmx", "true"))) {
+            jmx = true;
+            operations.values().forEach(this::register);
+        }
+        String slowQueryFile = properties.getProperty("metrics.slowQueryFile", "").trim();
+        if (!slowQueryFile.isEmpty()) {
+            try {
+                slowQueryHandler = new FileHandler(slowQueryFile, true);
+                slowQueryHandler.setFormatter(new SimpleFormatter());
+                SlowQueryLog.LOGGER.addHandler(slowQueryHandler);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not open the slow query log: " + e.getMessage());
+            }
+        }
+        String fileName = properties.getProperty("metrics.file", "").trim();
+        if (!fileName.isEmpty()) {
+            file = Paths.get(fileName);
+            long period = Long.parseLong(properties.getProperty("metrics.exportMillis", "60000"));
+            exporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-exporter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            exporter.scheduleWithFixedDelay(this::export, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Grava o último retrato e fecha os arquivos.
+    public synchronized void shutdown() {
+        if (exporter != null) {
+            exporter.shutdownNow();
+            exporter = null;
+            export();
+        }
+        if (slowQueryHandler != null) {
+            SlowQueryLog.LOGGER.removeHandler(slowQueryHandler);
+            slowQueryHandler.close();
+            slowQueryHandler = null;
+        }
+    }
+
+    public void writeTo(Writer out) throws IOException {
+        out.write("# workshop DAO metrics " + Instant.now() + "\n");
+        for (OperationMetrics metrics : getOperations()) {
+            String tag = "{operation=\"" + metrics.getName() + "\"";
+            LatencyHistogram latency = metrics.getLatency();
+            for (double quantile : QUANTILES) {
+                out.write(String.format(Locale.ROOT, "operation_seconds%s,quantile=\"%s\"} %.6f%n",
+                        tag, quantile, latency.percentileNanos(quantile) / 1e9));
+            }
+            out.write(String.format(Locale.ROOT, "operation_seconds_count%s} %d%n", tag, latency.getCount()));
+            out.write(String.format(Locale.ROOT, "operation_seconds_sum%s} %.6f%n", tag, latency.getTotalNanos() / 1e9));
+            out.write(String.format(Locale.ROOT, "operation_seconds_max%s} %.6f%n", tag, latency.getMaxNanos() / 1e9));
+            out.write(String.format(Locale.ROOT, "operation_rows_total%s} %d%n", tag, metrics.getRows()));
+            out.write(String.format(Locale.ROOT, "operation_bytes_total%s} %d%n", tag, metrics.getBytes()));
+            for (Map.Entry<String, Long> error : metrics.getErrors().entrySet()) {
+                out.write(String.format(Locale.ROOT, "operation_errors_total%s,exception=\"%s\"} %d%n",
+                        tag, error.getKey(), error.getValue()));
+            }
+        }
+    }
+
+    // Arquivo temporário trocado pelo atual, para quem lê nunca pegar meio arquivo.
+    private void export() {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (Writer out = Files.newBufferedWriter(temp)) {
+                writeTo(out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not export metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void register(OperationMetrics metrics) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics,
+                    new ObjectName("workshop:type=Operation,name=" + metrics.getName()));
+        } catch (InstanceAlreadyExistsException e) {
+            // registrada por start() e por operation() ao mesmo tempo
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Could not register " + metrics.getName() + " in JMX: " + e.getMessage());
+        }
+    }
+}
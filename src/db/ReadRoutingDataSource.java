@@ -0,0 +1,341 @@
+package db;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Distribui as leituras entre as réplicas e manda as gravações para o primário.
+// getConnection() é o lado das leituras; getWriteDataSource() entrega o primário e anota cada
+// gravação. Durante replica.stickyMillis depois de uma gravação as leituras também vão para o
+// primário, para que a tela enxergue o que acabou de salvar (a aplicação desktop tem uma sessão
+// só, então a janela vale para o processo). Uma verificação periódica tira das leituras as
+// réplicas atrasadas mais que replica.maxLagSeconds ou fora do ar, e as devolve quando voltam.
+// As réplicas só entram nas leituras depois da primeira verificação, que roda na thread de
+// verificação: uma réplica inacessível não atrasa a criação.
+public class ReadRoutingDataSource implements DataSource {
+
+    private static final Logger LOGGER = Logger.getLogger(ReadRoutingDataSource.class.getName());
+
+    public enum Policy {
+        ROUND_ROBIN, LEAST_OUTSTANDING
+    }
+
+    private final ConnectionPool primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final ReplicaLagProbe lagProbe;
+    private final DataSource writeDataSource = new WriteDataSource();
+
+    private final Policy policy;
+    private final long stickyNanos;
+    private final long maxLagSeconds;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final AtomicInteger writesInProgress = new AtomicInteger();
+    private volatile long lastWriteAt;
+
+    private final AtomicLong replicaReads = new AtomicLong();
+    private final AtomicLong primaryReads = new AtomicLong();
+
+    private final ScheduledExecutorService healthChecker;
+
+    public ReadRoutingDataSource(ConnectionPool primary, List<ConnectionPool> replicaPools,
+                                 ReplicaLagProbe lagProbe, Properties properties) {
+        this.primary = primary;
+        this.lagProbe = lagProbe;
+        for (int i = 0; i < replicaPools.size(); i++) {
+            replicas.add(new Replica("replica-" + (i + 1), replicaPools.get(i)));
+        }
+
+        policy = Policy.valueOf(properties.getProperty("replica.policy", "round-robin")
+                .trim().toUpperCase().replace('-', '_'));
+        stickyNanos = TimeUnit.MILLISECONDS.toNanos(
+                Long.parseLong(properties.getProperty("replica.stickyMillis", "2000").trim()));
+        maxLagSeconds = Long.parseLong(properties.getProperty("replica.maxLagSeconds", "5").trim());
+        long healthCheckMillis = Long.parseLong(properties.getProperty("replica.healthCheckMillis", "5000").trim());
+        // ainda não houve gravação
+        lastWriteAt = System.nanoTime() - stickyNanos;
+
+        if (healthCheckMillis > 0) {
+            healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "db-replica-health");
+                thread.setDaemon(true);
+                return thread;
+            });
+            healthChecker.scheduleWithFixedDelay(this::checkReplicas,
+                    0, healthCheckMillis, TimeUnit.MILLISECONDS);
+        } else {
+            // sem verificação periódica: a única é esta
+            healthChecker = null;
+            checkReplicas();
+        }
+    }
+
+    // Conexão para leitura: uma réplica saudável ou, na falta dela ou logo após uma gravação, o primário.
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!isSticky()) {
+            Replica replica;
+            while ((replica = choose()) != null) {
+                try {
+                    Connection connection = replica.pool.getConnection();
+                    replicaReads.incrementAndGet();
+                    return connection;
+                } catch (SQLException e) {
+                    replica.markHealthy(false, e.getMessage());
+                }
+            }
+        }
+        primaryReads.incrementAndGet();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pool credentials are fixed by db.properties");
+    }
+
+    public DataSource getWriteDataSource() {
+        return writeDataSource;
+    }
+
+    public boolean isSticky() {
+        return writesInProgress.get() > 0 || System.nanoTime() - lastWriteAt < stickyNanos;
+    }
+
+    // Mede o atraso de cada réplica; chamado pela thread de verificação e uma vez na criação.
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            Connection connection = null;
+            try {
+                connection = replica.pool.getConnection();
+                long lag = lagProbe.lagSeconds(connection);
+                if (lag < 0) {
+                    replica.markHealthy(false, "replication is not running");
+                } else if (lag > maxLagSeconds) {
+                    replica.markHealthy(false, lag + "s behind the primary");
+                } else {
+                    replica.markHealthy(true, lag + "s behind the primary");
+                }
+            } catch (SQLException | RuntimeException e) {
+                replica.markHealthy(false, e.getMessage());
+            } finally {
+                try {
+                    DB.closeConnection(connection);
+                } catch (DbException e) {
+                    // a réplica já foi marcada; a conexão quebrada é descartada pelo pool
+                }
+            }
+        }
+    }
+
+    public int getHealthyReplicaCount() {
+        int count = 0;
+        for (Replica replica : replicas) {
+            if (replica.healthy.get()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public long getReplicaReads() {
+        return replicaReads.get();
+    }
+
+    public long getPrimaryReads() {
+        return primaryReads.get();
+    }
+
+    public void shutdown() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            replica.pool.shutdown();
+        }
+        primary.shutdown();
+    }
+
+    private Replica choose() {
+        List<Replica> healthy = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.healthy.get()) {
+                healthy.add(replica);
+            }
+        }
+        if (healthy.isEmpty()) {
+            return null;
+        }
+        int start = Math.floorMod(nextReplica.getAndIncrement(), healthy.size());
+        if (policy == Policy.ROUND_ROBIN) {
+            return healthy.get(start);
+        }
+        // a partir da vez do round-robin, para desempatar sem favorecer sempre a primeira
+        Replica best = null;
+        int bestActive = Integer.MAX_VALUE;
+        for (int i = 0; i < healthy.size(); i++) {
+            Replica replica = healthy.get((start + i) % healthy.size());
+            int active = replica.pool.activeCount();
+            if (active < bestActive) {
+                best = replica;
+                bestActive = active;
+            }
+        }
+        return best;
+    }
+
+    private Connection trackWrite(Connection connection) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            if (closed.compareAndSet(false, true)) {
+                                // a janela conta a partir do fim da gravação
+                                lastWriteAt = System.nanoTime();
+                                writesInProgress.decrementAndGet();
+                            }
+                            break;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final ConnectionPool pool;
+        // fora das leituras até a primeira verificação
+        private final AtomicBoolean healthy = new AtomicBoolean(false);
+        private final AtomicBoolean checked = new AtomicBoolean(false);
+
+        private Replica(String name, ConnectionPool pool) {
+            this.name = name;
+            this.pool = pool;
+        }
+
+        private void markHealthy(boolean value, String reason) {
+            // a primeira verificação sempre aparece no log, inclusive a de uma réplica fora do ar
+            if (healthy.getAndSet(value) != value | checked.compareAndSet(false, true)) {
+                LOGGER.log(value ? Level.INFO : Level.WARNING,
+                        name + (value ? " in rotation: " : " removed from rotation: ") + reason);
+            }
+        }
+    }
+
+    private class WriteDataSource implements DataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            writesInProgress.incrementAndGet();
+            try {
+                return trackWrite(primary.getConnection());
+            } catch (SQLException | RuntimeException e) {
+                writesInProgress.decrementAndGet();
+                throw e;
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new SQLFeatureNotSupportedException("Pool credentials are fixed by db.properties");
+        }
+
+        @Override
+        public PrintWriter getLogWriter() {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) {
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) {
+        }
+
+        @Override
+        public int getLoginTimeout() {
+            return 0;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return LOGGER.getParent();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            if (iface.isInstance(this)) {
+                return iface.cast(this);
+            }
+            throw new SQLException("Not a wrapper for " + iface.getName());
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) {
+            return iface.isInstance(this);
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() {
+        return LOGGER.getParent();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
@@ -0,0 +1,11 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// Mede o atraso de uma réplica. Devolve os segundos de atraso ou um valor negativo quando a
+// replicação está parada e a réplica não deve receber leituras.
+public interface ReplicaLagProbe {
+
+    long lagSeconds(Connection connection) throws SQLException;
+}
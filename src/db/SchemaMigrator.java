@@ -0,0 +1,271 @@
+package db;
+
+import javax.sql.DataSource;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Aplica as migrações pendentes e registra cada versão aplicada na tabela schema_version.
+// O dry-run não altera nada: lista o que seria aplicado e mostra o EXPLAIN das consultas.
+// No MySQL o DDL faz commit implícito; se uma versão com vários comandos falhar no meio, os que já
+// rodaram ficam no banco sem a versão registrada. Por isso ADD COLUMN e CREATE INDEX de uma coluna ou
+// índice que já existe são pulados, e a versão pode ser aplicada de novo depois de corrigido o erro.
+public class SchemaMigrator {
+
+    private static final String VERSION_TABLE = "schema_version";
+
+    private static final Pattern ADD_COLUMN = Pattern.compile(
+            "^\\s*ALTER\\s+TABLE\\s+(\\w+)\\s+ADD\\s+COLUMN\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+            "^\\s*CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+(\\w+)\\s+ON\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    private static final String CREATE_VERSION_TABLE = "CREATE TABLE IF NOT EXISTS schema_version (\n" +
+            "  Version INT NOT NULL,\n" +
+            "  Description VARCHAR(200) NOT NULL,\n" +
+            "  InstalledOn DATETIME NOT NULL,\n" +
+            "  PRIMARY KEY (Version)\n" +
+            ")";
+
+    private final DataSource dataSource;
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(DataSource dataSource) {
+        this(dataSource, Migrations.all());
+    }
+
+    public SchemaMigrator(DataSource dataSource, List<Migration> migrations) {
+        this.dataSource = dataSource;
+        this.migrations = new ArrayList<>(migrations);
+        this.migrations.sort(Comparator.comparingInt(Migration::getVersion));
+    }
+
+    // Última versão registrada; 0 se o banco ainda não tem a tabela schema_version.
+    public int currentVersion() {
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            return currentVersion(connection);
+        }
+        catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+        finally {
+            DB.closeConnection(connection);
+        }
+    }
+
+    public List<Migration> pending() {
+        int current = currentVersion();
+        List<Migration> list = new ArrayList<>();
+        for (Migration migration : migrations) {
+            if (migration.getVersion() > current) {
+                list.add(migration);
+            }
+        }
+        return list;
+    }
+
+    // Devolve as migrações aplicadas nesta chamada.
+    public List<Migration> migrate() {
+        Connection connection = null;
+        Statement statement = null;
+        PreparedStatement insertVersion = null;
+        List<Migration> applied = new ArrayList<>();
+        Migration migration = null;
+        try {
+            connection = dataSource.getConnection();
+            statement = connection.createStatement();
+            statement.execute(CREATE_VERSION_TABLE);
+
+            int current = currentVersion(connection);
+            insertVersion = connection.prepareStatement(
+                    "INSERT INTO schema_version (Version, Description, InstalledOn) VALUES (?, ?, ?)");
+            connection.setAutoCommit(false);
+            for (Migration next : migrations) {
+                if (next.getVersion() <= current) {
+                    continue;
+                }
+                migration = next;
+                for (String sql : migration.getStatements()) {
+                    if (!alreadyApplied(connection, sql)) {
+                        statement.execute(sql);
+                    }
+                }
+                insertVersion.setInt(1, migration.getVersion());
+                insertVersion.setString(2, migration.getDescription());
+                insertVersion.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+                insertVersion.executeUpdate();
+                connection.commit();
+                applied.add(migration);
+            }
+            connection.setAutoCommit(true);
+            return applied;
+        }
+        catch (SQLException e) {
+            rollback(connection);
+            if (migration != null) {
+                throw new DbException("Migration " + migration + " failed: " + e.getMessage());
+            }
+            throw new DbException(e.getMessage());
+        }
+        finally {
+            DB.closeStatement(insertVersion);
+            DB.closeStatement(statement);
+            DB.closeConnection(connection);
+        }
+    }
+
+    public void printPending(PrintStream out) {
+        List<Migration> pending = pending();
+        if (pending.isEmpty()) {
+            out.println("-- schema is up to date (version " + currentVersion() + ")");
+            return;
+        }
+        for (Migration migration : pending) {
+            out.println("-- pending " + migration);
+            for (String sql : migration.getStatements()) {
+                out.println(sql + ";");
+            }
+        }
+    }
+
+    // Imprime o plano de execução da consulta; no MySQL, type = ALL indica leitura da tabela inteira.
+    public void explain(PrintStream out, String label, String sql, Object... parameters) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = dataSource.getConnection();
+            preparedStatement = connection.prepareStatement("EXPLAIN " + sql);
+            for (int i = 0; i < parameters.length; i++) {
+                preparedStatement.setObject(i + 1, parameters[i]);
+            }
+            resultSet = preparedStatement.executeQuery();
+
+            out.println("-- " + label);
+            out.println(sql);
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            List<String> header = new ArrayList<>();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                header.add(metaData.getColumnLabel(i));
+            }
+            out.println(String.join("\t", header));
+            while (resultSet.next()) {
+                List<String> row = new ArrayList<>();
+                String table = null;
+                boolean fullScan = false;
+                for (int i = 1; i <= header.size(); i++) {
+                    String value = resultSet.getString(i);
+                    row.add(String.valueOf(value));
+                    if ("table".equalsIgnoreCase(header.get(i - 1))) {
+                        table = value;
+                    }
+                    if ("type".equalsIgnoreCase(header.get(i - 1)) && "ALL".equalsIgnoreCase(value)) {
+                        fullScan = true;
+                    }
+                }
+                out.println(String.join("\t", row));
+                if (fullScan) {
+                    out.println("!! full table scan on " + table);
+                }
+            }
+            out.println();
+        }
+        catch (SQLException e) {
+            throw new DbException(label + ": " + e.getMessage());
+        }
+        finally {
+            DB.closeResultSet(resultSet);
+            DB.closeStatement(preparedStatement);
+            DB.closeConnection(connection);
+        }
+    }
+
+    private static int currentVersion(Connection connection) throws SQLException {
+        if (!hasVersionTable(connection)) {
+            return 0;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT MAX(Version) FROM schema_version")) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    // A coluna ou o índice que o comando cria já existe (sobra de uma execução interrompida).
+    private static boolean alreadyApplied(Connection connection, String sql) throws SQLException {
+        Matcher addColumn = ADD_COLUMN.matcher(sql);
+        if (addColumn.find()) {
+            return hasColumn(connection, addColumn.group(1), addColumn.group(2));
+        }
+        Matcher createIndex = CREATE_INDEX.matcher(sql);
+        if (createIndex.find()) {
+            return hasIndex(connection, createIndex.group(2), createIndex.group(1));
+        }
+        return false;
+    }
+
+    private static boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+        String catalog = connection.getCatalog();
+        for (String name : new String[] {table, table.toUpperCase()}) {
+            try (ResultSet columns = connection.getMetaData().getColumns(catalog, null, name, null)) {
+                while (columns.next()) {
+                    if (column.equalsIgnoreCase(columns.getString("COLUMN_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasIndex(Connection connection, String table, String index) throws SQLException {
+        String catalog = connection.getCatalog();
+        for (String name : new String[] {table, table.toUpperCase()}) {
+            try (ResultSet indexes = connection.getMetaData().getIndexInfo(catalog, null, name, false, false)) {
+                while (indexes.next()) {
+                    if (index.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasVersionTable(Connection connection) throws SQLException {
+        // o catálogo atual: sem ele o Connector/J procura em todos os bancos do servidor
+        String catalog = connection.getCatalog();
+        for (String name : new String[] {VERSION_TABLE, VERSION_TABLE.toUpperCase()}) {
+            try (ResultSet tables = connection.getMetaData().getTables(catalog, null, name, new String[] {"TABLE"})) {
+                if (tables.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void rollback(Connection connection) {
+        if (connection != null) {
+            try {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                }
+            }
+            catch (SQLException e) {
+                throw new DbException(e.getMessage());
+            }
+        }
+    }
+}
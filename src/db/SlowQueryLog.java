@@ -0,0 +1,110 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+// PreparedStatement que guarda o SQL e os parâmetros e avisa, no logger "db.slowQuery", das
+// execuções que passam de metrics.slowQueryMillis. Num executeQuery o tempo vai até o driver
+// devolver o ResultSet; com streaming, a leitura das linhas fica de fora.
+final class SlowQueryLog implements InvocationHandler {
+
+    static final Logger LOGGER = Logger.getLogger("db.slowQuery");
+
+    private static final int MAX_VALUE_LENGTH = 100;
+
+    private final PreparedStatement statement;
+    private final String sql;
+    private final long thresholdNanos;
+    private final Map<Integer, Object> parameters = new TreeMap<>();
+    private int batchSize;
+
+    private SlowQueryLog(PreparedStatement statement, String sql, long thresholdNanos) {
+        this.statement = statement;
+        this.sql = sql;
+        this.thresholdNanos = thresholdNanos;
+    }
+
+    static PreparedStatement wrap(PreparedStatement statement, String sql, long thresholdNanos) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new SlowQueryLog(statement, sql, thresholdNanos));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "clearParameters":
+                parameters.clear();
+                break;
+            case "addBatch":
+                batchSize++;
+                break;
+            case "clearBatch":
+                batchSize = 0;
+                break;
+            case "setNull":
+                parameters.put((Integer) args[0], null);
+                break;
+            default:
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    parameters.put((Integer) args[0], args[1]);
+                }
+        }
+        if (!name.startsWith("execute")) {
+            return call(method, args);
+        }
+        long start = System.nanoTime();
+        try {
+            return call(method, args);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (elapsed >= thresholdNanos) {
+                log(name, elapsed);
+            }
+            if (name.equals("executeBatch")) {
+                batchSize = 0;
+            }
+        }
+    }
+
+    private Object call(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(statement, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    // Num lote os parâmetros são os da última linha adicionada.
+    private void log(String method, long elapsedNanos) {
+        StringBuilder message = new StringBuilder(String.format("%.1f ms %s", elapsedNanos / 1_000_000.0, method));
+        if (batchSize > 0) {
+            message.append(" (batch of ").append(batchSize).append(')');
+        }
+        message.append(": ").append(sql.replaceAll("\\s+", " ").trim());
+        if (!parameters.isEmpty()) {
+            message.append(" [");
+            String separator = "";
+            for (Map.Entry<Integer, Object> parameter : parameters.entrySet()) {
+                String value = String.valueOf(parameter.getValue());
+                if (value.length() > MAX_VALUE_LENGTH) {
+                    value = value.substring(0, MAX_VALUE_LENGTH) + "...";
+                }
+                message.append(separator).append(parameter.getKey()).append('=').append(value);
+                separator = ", ";
+            }
+            message.append(']');
+        }
+        LOGGER.warning(message.toString());
+    }
+}
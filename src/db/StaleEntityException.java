@@ -0,0 +1,31 @@
+package db;
+
+// O update não encontrou a linha com a versão esperada: outra pessoa gravou (ou apagou) o
+// registro depois que ele foi lido. Quem chamou deve ler de novo antes de tentar outra vez.
+public class StaleEntityException extends DbException {
+    private static final long serialVersionUID = 1L;
+
+    private final String entity;
+    private final Integer id;
+    private final int expectedVersion;
+
+    public StaleEntityException(String entity, Integer id, int expectedVersion) {
+        super(entity + " " + id + " was changed or removed by another user (expected version "
+                + expectedVersion + "); reload it and try again");
+        this.entity = entity;
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public int getExpectedVersion() {
+        return expectedVersion;
+    }
+}
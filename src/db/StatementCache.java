@@ -0,0 +1,204 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cache LRU de PreparedStatement de uma conexão física, chaveado pelo SQL e pelo modo de generated keys.
+// O close() do statement emprestado devolve ao cache; o fechamento real só acontece na remoção.
+// Na devolução o statement volta a ficar como saiu do prepareStatement: sem parâmetros, sem lote,
+// sem ResultSet aberto e com o fetch size, max rows e query timeout originais (um stream com
+// fetch size Integer.MIN_VALUE não pode vazar para o próximo que usar o mesmo SQL).
+class StatementCache {
+
+    private final Connection connection;
+    private final int maxSize;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    private final Map<StatementKey, CachedStatement> statements;
+
+    StatementCache(Connection connection, int maxSize, AtomicLong hits, AtomicLong misses) {
+        this.connection = connection;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.statements = new LinkedHashMap<StatementKey, CachedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<StatementKey, CachedStatement> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    eldest.getValue().evict();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    synchronized PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        StatementKey key = new StatementKey(sql, autoGeneratedKeys);
+        CachedStatement cached = statements.get(key);
+        if (cached != null) {
+            if (cached.inUse) {
+                // o mesmo SQL já está aberto nesta conexão; usa um statement avulso
+                misses.incrementAndGet();
+                return connection.prepareStatement(sql, autoGeneratedKeys);
+            }
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            cached = new CachedStatement(key, connection.prepareStatement(sql, autoGeneratedKeys));
+            statements.put(key, cached);
+        }
+        return cached.checkOut();
+    }
+
+    synchronized int size() {
+        return statements.size();
+    }
+
+    synchronized void closeAll() {
+        for (CachedStatement cached : statements.values()) {
+            cached.evict();
+        }
+        statements.clear();
+    }
+
+    private static final class StatementKey {
+
+        private final String sql;
+        private final int autoGeneratedKeys;
+
+        StatementKey(String sql, int autoGeneratedKeys) {
+            this.sql = sql;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof StatementKey)) return false;
+            StatementKey that = (StatementKey) o;
+            return autoGeneratedKeys == that.autoGeneratedKeys && sql.equals(that.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sql, autoGeneratedKeys);
+        }
+    }
+
+    private final class CachedStatement {
+
+        private final StatementKey key;
+        private final PreparedStatement statement;
+        private final int fetchSize;
+        private final int maxRows;
+        private final int queryTimeout;
+        private boolean inUse;
+        private boolean evicted;
+
+        CachedStatement(StatementKey key, PreparedStatement statement) throws SQLException {
+            this.key = key;
+            this.statement = statement;
+            this.fetchSize = statement.getFetchSize();
+            this.maxRows = statement.getMaxRows();
+            this.queryTimeout = statement.getQueryTimeout();
+        }
+
+        PreparedStatement checkOut() {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, new Handle());
+        }
+
+        void checkIn() throws SQLException {
+            try {
+                reset();
+            } catch (SQLException e) {
+                // não dá para garantir o estado: sai do cache
+                synchronized (StatementCache.this) {
+                    statements.remove(key, this);
+                    evicted = true;
+                }
+            }
+            synchronized (StatementCache.this) {
+                inUse = false;
+                if (evicted) {
+                    statement.close();
+                }
+            }
+        }
+
+        private void reset() throws SQLException {
+            ResultSet resultSet = statement.getResultSet();
+            if (resultSet != null) {
+                resultSet.close();
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+            // max rows antes: alguns drivers recusam fetch size maior que o max rows atual
+            if (statement.getMaxRows() != maxRows) {
+                statement.setMaxRows(maxRows);
+            }
+            if (statement.getFetchSize() != fetchSize) {
+                statement.setFetchSize(fetchSize);
+            }
+            if (statement.getQueryTimeout() != queryTimeout) {
+                statement.setQueryTimeout(queryTimeout);
+            }
+        }
+
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                try {
+                    statement.close();
+                } catch (SQLException ignored) {
+                    // statement removido do cache
+                }
+            }
+        }
+
+        private class Handle implements InvocationHandler {
+
+            private boolean closed;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!closed) {
+                            closed = true;
+                            checkIn();
+                        }
+                        return null;
+                    case "isClosed":
+                        return closed || statement.isClosed();
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        if (closed) {
+                            throw new SQLException("Statement is closed");
+                        }
+                }
+                try {
+                    return method.invoke(statement, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+            }
+        }
+    }
+}
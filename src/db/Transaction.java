@@ -0,0 +1,235 @@
+package db;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+// Uma transação sobre uma única conexão do pool. getDataSource() entrega essa mesma conexão
+// a cada getConnection(), com close() sem efeito, para que os DAOs criados sobre ele participem
+// da transação sem mudar nada no código deles. close() desfaz o que não foi confirmado e
+// devolve a conexão ao pool. O que só vale depois de confirmado (a versão nova de uma entidade,
+// por exemplo) entra em afterCommit e é descartado se a transação for desfeita.
+public class Transaction implements AutoCloseable {
+
+    // Connection.TRANSACTION_* ou DEFAULT_ISOLATION para manter a do driver
+    public static final int DEFAULT_ISOLATION = -1;
+
+    private final Connection connection;
+    private final int previousIsolation;
+    private final DataSource dataSource = new TransactionDataSource();
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private boolean finished;
+
+    private Transaction(Connection connection, int previousIsolation) {
+        this.connection = connection;
+        this.previousIsolation = previousIsolation;
+    }
+
+    public static Transaction begin(DataSource dataSource, int isolation, boolean readOnly) {
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            int previousIsolation = connection.getTransactionIsolation();
+            // readOnly e isolamento precisam ser definidos antes de a transação começar
+            connection.setReadOnly(readOnly);
+            if (isolation != DEFAULT_ISOLATION) {
+                connection.setTransactionIsolation(isolation);
+            }
+            connection.setAutoCommit(false);
+            return new Transaction(connection, previousIsolation);
+        }
+        catch (SQLException e) {
+            DB.closeConnection(connection);
+            throw new DbException(e.getMessage());
+        }
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    // Roda a ação depois do commit, se o dataSource for de uma transação; senão, na hora
+    // (a gravação com autocommit já está confirmada).
+    public static void afterCommit(DataSource dataSource, Runnable action) {
+        if (dataSource instanceof TransactionDataSource) {
+            ((TransactionDataSource) dataSource).transaction().afterCommit(action);
+        } else {
+            action.run();
+        }
+    }
+
+    public void afterCommit(Runnable action) {
+        checkActive();
+        afterCommit.add(action);
+    }
+
+    public Savepoint setSavepoint(String name) {
+        try {
+            return connection.setSavepoint(name);
+        }
+        catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+    }
+
+    public void rollback(Savepoint savepoint) {
+        try {
+            connection.rollback(savepoint);
+        }
+        catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+    }
+
+    public void releaseSavepoint(Savepoint savepoint) {
+        try {
+            connection.releaseSavepoint(savepoint);
+        }
+        catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+    }
+
+    public void commit() {
+        checkActive();
+        try {
+            connection.commit();
+            finished = true;
+        }
+        catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+        List<Runnable> actions = new ArrayList<>(afterCommit);
+        afterCommit.clear();
+        for (Runnable action : actions) {
+            action.run();
+        }
+    }
+
+    public void rollback() {
+        checkActive();
+        finished = true;
+        afterCommit.clear();
+        try {
+            connection.rollback();
+        }
+        catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (!finished) {
+                finished = true;
+                afterCommit.clear();
+                connection.rollback();
+            }
+            // o pool volta autoCommit e readOnly; o isolamento fica por conta de quem mudou
+            if (connection.getTransactionIsolation() != previousIsolation) {
+                connection.setTransactionIsolation(previousIsolation);
+            }
+        }
+        catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+        finally {
+            DB.closeConnection(connection);
+        }
+    }
+
+    private void checkActive() {
+        if (finished) {
+            throw new IllegalStateException("Transaction already finished");
+        }
+    }
+
+    private Connection sharedConnection() throws SQLException {
+        if (finished) {
+            throw new SQLException("Transaction already finished");
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            return null;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getTargetException();
+                            }
+                    }
+                });
+    }
+
+    private class TransactionDataSource implements DataSource {
+
+        private Transaction transaction() {
+            return Transaction.this;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return sharedConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new SQLFeatureNotSupportedException("Connections come from the transaction");
+        }
+
+        @Override
+        public PrintWriter getLogWriter() {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) {
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) {
+        }
+
+        @Override
+        public int getLoginTimeout() {
+            return 0;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            if (iface.isInstance(this)) {
+                return iface.cast(this);
+            }
+            throw new SQLException("Not a wrapper for " + iface.getName());
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) {
+            return iface.isInstance(this);
+        }
+    }
+}
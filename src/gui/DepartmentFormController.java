@@ -1,10 +1,9 @@
 package gui;
 
-import db.DbException;
-import gui.listeners.DataChangeListener;
 import gui.util.Alerts;
 import gui.util.Constraints;
 import gui.util.Utils;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -12,6 +11,7 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
+import javafx.stage.Stage;
 import model.entities.Department;
 import model.exceptions.ValidationException;
 import model.services.DepartmentService;
@@ -25,8 +25,6 @@ public class DepartmentFormController implements Initializable {
 
     private Department entity;
 
-    private List<DataChangeListener> dataChangeListener = new ArrayList<>();
-
     @FXML
     private TextField txtId;
 
@@ -42,10 +40,6 @@ public class DepartmentFormController implements Initializable {
     @FXML
     private Button buttonCancel;
 
-    public void subscribeChangeListener(DataChangeListener listener){
-        dataChangeListener.add(listener);
-    }
-
     @FXML
     public void onButtonSaveAction(ActionEvent event){
         if(entity == null){
@@ -56,22 +50,24 @@ public class DepartmentFormController implements Initializable {
         }
         try {
             entity = getFormData();
-            service.savedOrUpdate(entity);
-            notifyDataChangeListeners();
-            Utils.currentStage(event).close();
-        }
-        catch (DbException dbException){
-            Alerts.showAlerts("Error saving object",null,dbException.getMessage(), Alert.AlertType.ERROR);
         }
         catch (ValidationException validationException){
             setErrorMessages(validationException.getErrors());
+            return;
         }
-    }
 
-    private void notifyDataChangeListeners() {
-        for (DataChangeListener listener : dataChangeListener){
-            listener.onDataChanged();
-        }
+        Stage stage = Utils.currentStage(event);
+        buttonSave.setDisable(true);
+        service.savedOrUpdateAsync(entity).whenComplete((result, error) -> Platform.runLater(() -> {
+            buttonSave.setDisable(false);
+            if (error != null) {
+                Alerts.showAlerts("Error saving object", null,
+                        Utils.unwrap(error).getMessage(), Alert.AlertType.ERROR);
+                return;
+            }
+            // a lista se atualiza pelo evento publicado pelo service
+            stage.close();
+        }));
     }
 
     private Department getFormData() {
@@ -80,6 +76,7 @@ public class DepartmentFormController implements Initializable {
         ValidationException exception = new ValidationException("Validation error");
 
         obj.setId(Utils.tryParseToInt(txtId.getText()));
+        obj.setVersion(entity.getVersion());
         if(txtName.getText() == null || txtName.getText().trim().equals("")){
             exception.addError("name","Field can't be empty");
         }
@@ -1,10 +1,9 @@
 package gui;
 
 import application.Main;
-import db.DbIntegrityException;
-import gui.listeners.DataChangeListener;
 import gui.util.Alerts;
 import gui.util.Utils;
+import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -18,16 +17,26 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.Pane;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import model.dao.DaoFactory;
+import model.dao.OfflineStore;
 import model.entities.Department;
+import model.services.DataChangeEvent;
+import model.services.DataChangeListener;
 import model.services.DepartmentService;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 
-public class DepartmentListController implements Initializable, DataChangeListener {
+public class DepartmentListController implements Initializable, DataChangeListener<Department> {
+
+    private static final Comparator<Department> NAME_ORDER =
+            Comparator.comparing(Department::getName, String.CASE_INSENSITIVE_ORDER);
 
     @FXML
     private DepartmentService service;
@@ -44,8 +53,18 @@ public class DepartmentListController implements Initializable, DataChangeListen
     @FXML
     private Button buttonNew;
 
+    @FXML
+    private ProgressIndicator progressIndicator;
+
     private ObservableList<Department> observableList;
 
+    private CompletableFuture<List<Department>> pendingRefresh;
+
+    // só com offline.enabled=true: mudanças trazidas do servidor recarregam a lista
+    private OfflineStore offlineStore;
+
+    private final Runnable offlineSyncListener = () -> Platform.runLater(this::updateTableView);
+
     @FXML
     private TableColumn<Department, Department> tableColumnEDIT;
 
@@ -60,7 +79,15 @@ public class DepartmentListController implements Initializable, DataChangeListen
     }
 
     public void setDepartmentService(DepartmentService service) {
+        if (this.service != null) {
+            this.service.unsubscribeChangeListener(this);
+        }
         this.service = service;
+        service.subscribeChangeListener(this);
+        if (offlineStore == null && DaoFactory.offlineStore() != null) {
+            offlineStore = DaoFactory.offlineStore();
+            offlineStore.addSyncListener(offlineSyncListener);
+        }
     }
 
     @Override
@@ -73,6 +100,16 @@ public class DepartmentListController implements Initializable, DataChangeListen
     private void initializeNodes() {
         tableColumnID.setCellValueFactory(new PropertyValueFactory<>("id"));
         tableColumnName.setCellValueFactory(new PropertyValueFactory<>("name"));
+        initEditButtons();
+        initRemoveButtons();
+
+        // A sincronização é da aplicação inteira: quando a tela sai, esta lista deixa de ouvir
+        tableViewDepartment.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene == null && offlineStore != null) {
+                offlineStore.removeSyncListener(offlineSyncListener);
+                offlineStore = null;
+            }
+        });
 
         // Para o tableView acompanhar a altura da janela
         Stage stage = (Stage) Main.getMainScene().getWindow();
@@ -83,11 +120,29 @@ public class DepartmentListController implements Initializable, DataChangeListen
         if (service == null) {
             throw new IllegalStateException("Service was null");
         }
-        List<Department> list = service.findAll();
-        observableList = FXCollections.observableList(list);
-        tableViewDepartment.setItems(observableList);
-        initEditButtons();
-        initRemoveButtons();
+        if (pendingRefresh != null) {
+            pendingRefresh.cancel(false);
+        }
+        CompletableFuture<List<Department>> refresh = service.findAllAsync();
+        pendingRefresh = refresh;
+        progressIndicator.setVisible(true);
+
+        refresh.whenComplete((list, error) -> Platform.runLater(() -> {
+            if (refresh != pendingRefresh) {
+                return;
+            }
+            pendingRefresh = null;
+            progressIndicator.setVisible(false);
+            if (error != null) {
+                Throwable cause = Utils.unwrap(error);
+                if (!(cause instanceof CancellationException)) {
+                    Alerts.showAlerts("Error loading departments", null, cause.getMessage(), Alert.AlertType.ERROR);
+                }
+                return;
+            }
+            observableList = FXCollections.observableList(list);
+            tableViewDepartment.setItems(observableList);
+        }));
     }
 
     // janela de dialogo para abrir o formulário.
@@ -99,8 +154,8 @@ public class DepartmentListController implements Initializable, DataChangeListen
 
             DepartmentFormController controller = loader.getController();
             controller.setDepartment(obj);
-            controller.setDepartmentService(new DepartmentService());
-            controller.subscribeChangeListener(this);
+            // o mesmo service da lista, para que a gravação chegue em onDataChanged
+            controller.setDepartmentService(service);
             controller.updateFormData();
 
             Stage dialogStage = new Stage();
@@ -117,9 +172,60 @@ public class DepartmentListController implements Initializable, DataChangeListen
         }
     }
 
+    // Aplica só a linha gravada, sem buscar a lista de novo; rolagem e seleção continuam onde estavam.
     @Override
-    public void onDataChanged() {
-        updateTableView();
+    public void onDataChanged(DataChangeEvent<Department> event) {
+        Platform.runLater(() -> {
+            if (observableList == null) {
+                return;
+            }
+            int index = indexOf(event.getId());
+            switch (event.getType()) {
+                case INSERTED:
+                    // a lista pode ter sido lida depois da gravação e já ter a linha
+                case UPDATED:
+                    if (index < 0) {
+                        observableList.add(sortedPosition(event.getEntity()), event.getEntity());
+                    } else if (isInOrder(index, event.getEntity())) {
+                        observableList.set(index, event.getEntity());
+                    } else {
+                        // o nome mudou de lugar na ordenação
+                        observableList.remove(index);
+                        observableList.add(sortedPosition(event.getEntity()), event.getEntity());
+                    }
+                    break;
+                case DELETED:
+                    if (index >= 0) {
+                        observableList.remove(index);
+                    }
+                    break;
+            }
+        });
+    }
+
+    private int indexOf(Integer id) {
+        for (int i = 0; i < observableList.size(); i++) {
+            if (observableList.get(i).getId().equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // A lista vem ordenada por nome (DepartmentDao.findAll).
+    private int sortedPosition(Department department) {
+        int position = 0;
+        while (position < observableList.size()
+                && NAME_ORDER.compare(observableList.get(position), department) <= 0) {
+            position++;
+        }
+        return position;
+    }
+
+    private boolean isInOrder(int index, Department department) {
+        return (index == 0 || NAME_ORDER.compare(observableList.get(index - 1), department) <= 0)
+                && (index == observableList.size() - 1
+                || NAME_ORDER.compare(department, observableList.get(index + 1)) <= 0);
     }
 
     private void initEditButtons() {
@@ -166,14 +272,15 @@ public class DepartmentListController implements Initializable, DataChangeListen
             if(service == null){
                 throw new IllegalStateException("Service was null");
             }
-            try {
-                service.remove(obj);
-                updateTableView();
-            }
-            catch (DbIntegrityException dbIntegrityException){
-                Alerts.showAlerts("Error removing object",
-                        null,dbIntegrityException.getMessage(), Alert.AlertType.ERROR);
-            }
+            progressIndicator.setVisible(true);
+            service.removeAsync(obj).whenComplete((done, error) -> Platform.runLater(() -> {
+                progressIndicator.setVisible(false);
+                // a linha sai da tabela pelo evento publicado pelo service
+                if (error != null) {
+                    Alerts.showAlerts("Error removing object",
+                            null, Utils.unwrap(error).getMessage(), Alert.AlertType.ERROR);
+                }
+            }));
         }
     }
 }
\ No newline at end of file
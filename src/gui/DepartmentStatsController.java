@@ -0,0 +1,163 @@
+package gui;
+
+import application.Main;
+import gui.util.Alerts;
+import gui.util.Utils;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.Stage;
+import model.entities.DepartmentStats;
+import model.services.SellerStatsService;
+
+import java.net.URL;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+// Painel por departamento. Os números chegam agregados pelo banco (SellerStatsDao), uma linha por
+// departamento, então a tela abre no mesmo tempo com cem ou com um milhão de vendedores.
+public class DepartmentStatsController implements Initializable {
+
+    private SellerStatsService service;
+
+    @FXML
+    private TableView<DepartmentStats> tableViewStats;
+
+    @FXML
+    private TableColumn<DepartmentStats, String> tableColumnDepartment;
+
+    @FXML
+    private TableColumn<DepartmentStats, Integer> tableColumnHeadcount;
+
+    @FXML
+    private TableColumn<DepartmentStats, Double> tableColumnTotalSalary;
+
+    @FXML
+    private TableColumn<DepartmentStats, Double> tableColumnAverageSalary;
+
+    @FXML
+    private TableColumn<DepartmentStats, Double> tableColumnMinSalary;
+
+    @FXML
+    private TableColumn<DepartmentStats, Double> tableColumnMaxSalary;
+
+    @FXML
+    private TableColumn<DepartmentStats, Integer> tableColumnUnder25;
+
+    @FXML
+    private TableColumn<DepartmentStats, Integer> tableColumnFrom25To34;
+
+    @FXML
+    private TableColumn<DepartmentStats, Integer> tableColumnFrom35To44;
+
+    @FXML
+    private TableColumn<DepartmentStats, Integer> tableColumnFrom45To54;
+
+    @FXML
+    private TableColumn<DepartmentStats, Integer> tableColumnFrom55;
+
+    @FXML
+    private Button buttonRefresh;
+
+    @FXML
+    private ProgressIndicator progressIndicator;
+
+    @FXML
+    private Label labelTotals;
+
+    private CompletableFuture<List<DepartmentStats>> pendingRefresh;
+
+    @FXML
+    public void onButtonRefresh(ActionEvent event) {
+        updateTableView();
+    }
+
+    public void setSellerStatsService(SellerStatsService service) {
+        this.service = service;
+    }
+
+    @Override
+    public void initialize(URL url, ResourceBundle resourceBundle) {
+        initializeNodes();
+    }
+
+    private void initializeNodes() {
+        tableColumnDepartment.setCellValueFactory(
+                param -> new ReadOnlyObjectWrapper<>(param.getValue().getDepartment().getName()));
+        tableColumnHeadcount.setCellValueFactory(new PropertyValueFactory<>("headcount"));
+        tableColumnTotalSalary.setCellValueFactory(new PropertyValueFactory<>("totalSalary"));
+        Utils.formatTableColumnDouble(tableColumnTotalSalary, 2);
+        tableColumnAverageSalary.setCellValueFactory(new PropertyValueFactory<>("averageSalary"));
+        Utils.formatTableColumnDouble(tableColumnAverageSalary, 2);
+        tableColumnMinSalary.setCellValueFactory(new PropertyValueFactory<>("minSalary"));
+        Utils.formatTableColumnDouble(tableColumnMinSalary, 2);
+        tableColumnMaxSalary.setCellValueFactory(new PropertyValueFactory<>("maxSalary"));
+        Utils.formatTableColumnDouble(tableColumnMaxSalary, 2);
+        tableColumnUnder25.setCellValueFactory(new PropertyValueFactory<>("under25"));
+        tableColumnFrom25To34.setCellValueFactory(new PropertyValueFactory<>("from25To34"));
+        tableColumnFrom35To44.setCellValueFactory(new PropertyValueFactory<>("from35To44"));
+        tableColumnFrom45To54.setCellValueFactory(new PropertyValueFactory<>("from45To54"));
+        tableColumnFrom55.setCellValueFactory(new PropertyValueFactory<>("from55"));
+
+        // Para o tableView acompanhar a altura da janela
+        Stage stage = (Stage) Main.getMainScene().getWindow();
+        tableViewStats.prefHeightProperty().bind(stage.heightProperty());
+    }
+
+    public void updateTableView() {
+        if (service == null) {
+            throw new IllegalStateException("Service was null");
+        }
+        if (pendingRefresh != null) {
+            pendingRefresh.cancel(false);
+        }
+        CompletableFuture<List<DepartmentStats>> refresh = service.findAllAsync();
+        pendingRefresh = refresh;
+        progressIndicator.setVisible(true);
+        buttonRefresh.setDisable(true);
+
+        refresh.whenComplete((list, error) -> Platform.runLater(() -> {
+            if (refresh != pendingRefresh) {
+                return;
+            }
+            pendingRefresh = null;
+            progressIndicator.setVisible(false);
+            buttonRefresh.setDisable(false);
+            if (error != null) {
+                Throwable cause = Utils.unwrap(error);
+                if (!(cause instanceof CancellationException)) {
+                    Alerts.showAlerts("Error loading dashboard", null, cause.getMessage(), Alert.AlertType.ERROR);
+                }
+                return;
+            }
+            tableViewStats.setItems(FXCollections.observableList(list));
+            labelTotals.setText(totals(list));
+        }));
+    }
+
+    // Soma das linhas que já vieram agregadas: no máximo uma por departamento.
+    private static String totals(List<DepartmentStats> list) {
+        int headcount = 0;
+        double totalSalary = 0.0;
+        for (DepartmentStats stats : list) {
+            headcount += stats.getHeadcount();
+            if (stats.getTotalSalary() != null) {
+                totalSalary += stats.getTotalSalary();
+            }
+        }
+        return String.format(Locale.US, "%d sellers, total salary %.2f", headcount, totalSalary);
+    }
+}
@@ -13,6 +13,7 @@ import javafx.scene.control.ScrollPane;
 import javafx.scene.layout.VBox;
 import model.services.DepartmentService;
 import model.services.SellerService;
+import model.services.SellerStatsService;
 
 import java.io.IOException;
 import java.net.URL;
@@ -27,6 +28,9 @@ public class MainViewController implements Initializable {
     @FXML
     private MenuItem menuItemDepartment;
 
+    @FXML
+    private MenuItem menuItemDepartmentStats;
+
     @FXML
     private MenuItem menuItemAbout;
 
@@ -46,6 +50,14 @@ public class MainViewController implements Initializable {
         });
     }
 
+    @FXML
+    public void onMenuItemDepartmentStatsAction(){
+        loadView("/gui/DepartmentStats.fxml",(DepartmentStatsController controller) -> {
+            controller.setSellerStatsService(new SellerStatsService());
+            controller.updateTableView();
+        });
+    }
+
     @FXML
     public void onMenuItemAboutAction(){
         loadView("/gui/About.fxml", x ->{});
@@ -1,22 +1,25 @@
 package gui;
 
 import db.DbException;
-import gui.listeners.DataChangeListener;
 import gui.util.Alerts;
 import gui.util.Constraints;
 import gui.util.Utils;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
+import javafx.stage.Stage;
 import javafx.util.Callback;
 import model.entities.Department;
 import model.entities.Seller;
 import model.exceptions.ValidationException;
 import model.services.DepartmentService;
 import model.services.SellerService;
+import model.services.SellerValidator;
+import model.services.WriteBehindQueue;
 
 import java.net.URL;
 import java.time.Instant;
@@ -32,8 +35,6 @@ public class SellerFormController implements Initializable {
 
     private Seller entity;
 
-    private List<DataChangeListener> dataChangeListener = new ArrayList<>();
-
     @FXML
     private ComboBox<Department> comboBoxDepartment;
 
@@ -76,14 +77,19 @@ public class SellerFormController implements Initializable {
         if(departmentService == null){
             throw new IllegalStateException("DepartmentService was null");
         }
-        List<Department> list = departmentService.findAll();
-        observableList = FXCollections.observableArrayList(list);
-        comboBoxDepartment.setItems(observableList);
-
-    }
-
-    public void subscribeChangeListener(DataChangeListener listener){
-        dataChangeListener.add(listener);
+        departmentService.findAllAsync().whenComplete((list, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                Alerts.showAlerts("Error loading departments", null,
+                        Utils.unwrap(error).getMessage(), Alert.AlertType.ERROR);
+                return;
+            }
+            observableList = FXCollections.observableArrayList(list);
+            comboBoxDepartment.setItems(observableList);
+            // updateFormData pode ter rodado antes da lista chegar
+            if (comboBoxDepartment.getValue() == null) {
+                comboBoxDepartment.getSelectionModel().selectFirst();
+            }
+        }));
     }
 
     @FXML
@@ -96,59 +102,61 @@ public class SellerFormController implements Initializable {
         }
         try {
             entity = getFormData();
-            service.savedOrUpdate(entity);
-            notifyDataChangeListeners();
-            Utils.currentStage(event).close();
-        }
-        catch (DbException dbException){
-            Alerts.showAlerts("Error saving object",null,dbException.getMessage(), Alert.AlertType.ERROR);
         }
         catch (ValidationException validationException){
             setErrorMessages(validationException.getErrors());
+            return;
+        }
+
+        Stage stage = Utils.currentStage(event);
+        if (WriteBehindQueue.isEnabled()) {
+            try {
+                // gravado em segundo plano; a lista mostra a linha como pendente até lá
+                if (WriteBehindQueue.get().enqueue(entity)) {
+                    stage.close();
+                    return;
+                }
+                // fila cheia: grava direto
+            }
+            catch (DbException dbException){
+                Alerts.showAlerts("Error saving object", null, dbException.getMessage(), Alert.AlertType.ERROR);
+                return;
+            }
         }
-    }
-
-    private void notifyDataChangeListeners() {
-        for (DataChangeListener listener : dataChangeListener){
-            listener.onDataChanged();
-        }
+        buttonSave.setDisable(true);
+        service.savedOrUpdateAsync(entity).whenComplete((result, error) -> Platform.runLater(() -> {
+            buttonSave.setDisable(false);
+            if (error != null) {
+                Alerts.showAlerts("Error saving object", null,
+                        Utils.unwrap(error).getMessage(), Alert.AlertType.ERROR);
+                return;
+            }
+            // a lista se atualiza pelo evento publicado pelo service
+            stage.close();
+        }));
     }
 
     private Seller getFormData() {
-        Seller obj = new Seller();
-
-        ValidationException exception = new ValidationException("Validation error");
+        // cópia da linha da lista: leva a versão lida e só os campos editados ficam marcados
+        Seller obj = new Seller(entity);
 
         obj.setId(Utils.tryParseToInt(txtId.getText()));
-
-        if(txtName.getText() == null || txtName.getText().trim().equals("")){
-            exception.addError("name","Field can't be empty");
-        }
         obj.setName(txtName.getText());
-
-        if(txtEmail.getText() == null || txtEmail.getText().trim().equals("")){
-            exception.addError("email","Field can't be empty");
-        }
         obj.setEmail(txtEmail.getText());
 
         if(dpBirthDate.getValue() == null){
-            exception.addError("birthDate","Field can't be empty");
+            obj.setBirthDate(null);
         }
         else {
             Instant instant = Instant.from(dpBirthDate.getValue().atStartOfDay(ZoneId.systemDefault()));
             obj.setBirthDate(Date.from(instant));
         }
 
-        if(txtBaseSalary.getText() == null || txtBaseSalary.getText().trim().equals("")){
-            exception.addError("baseSalary","Field can't be empty");
-        }
         obj.setBaseSalary(Utils.tryParseToDouble(txtBaseSalary.getText()));
-
         obj.setDepartment(comboBoxDepartment.getValue());
 
-        if(exception.getErrors().size() > 0){
-            throw exception;
-        }
+        // mesmas regras da importação de CSV
+        SellerValidator.validate(obj);
         return obj;
     }
 
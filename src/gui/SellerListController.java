@@ -1,13 +1,12 @@
 package gui;
 
 import application.Main;
-import db.DbIntegrityException;
-import gui.listeners.DataChangeListener;
 import gui.util.Alerts;
+import gui.util.LazySellerList;
 import gui.util.Utils;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyObjectWrapper;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -15,22 +14,47 @@ import javafx.fxml.Initializable;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import model.dao.DaoFactory;
+import model.dao.OfflineStore;
+import model.dao.SellerQuery;
 import model.entities.Department;
 import model.entities.Seller;
+import model.services.DataChangeEvent;
+import model.services.DataChangeListener;
+import model.exceptions.ValidationException;
 import model.services.DepartmentService;
+import model.services.SellerCsvImporter;
+import model.services.SellerExporter;
 import model.services.SellerService;
+import model.services.ServiceExecutor;
+import model.services.WriteBehindQueue;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 
-public class SellerListController implements Initializable, DataChangeListener {
+public class SellerListController implements Initializable, DataChangeListener<Seller> {
+
+    private static final int PAGE_SIZE = 100;
+
+    private static final int MAX_PAGES_IN_MEMORY = 10;
+
+    private static final Duration SEARCH_DELAY = Duration.millis(300);
 
     @FXML
     private SellerService service;
@@ -53,10 +77,55 @@ public class SellerListController implements Initializable, DataChangeListener {
     @FXML
     private TableColumn<Seller, Double> tableColumnBaseSalary;
 
+    @FXML
+    private TableColumn<Seller, String> tableColumnStatus;
+
     @FXML
     private Button buttonNew;
 
-    private ObservableList<Seller> observableList;
+    @FXML
+    private ProgressIndicator progressIndicator;
+
+    @FXML
+    private TextField txtSearchName;
+
+    @FXML
+    private TextField txtSearchEmail;
+
+    // inclusões esperando a gravação adiada e itens que falharam
+    @FXML
+    private ListView<WriteBehindQueue.Item> listViewPending;
+
+    private LazySellerList observableList;
+
+    // filtro e ordenação atuais, aplicados pelo banco
+    private final SellerQuery query = new SellerQuery();
+
+    private final PauseTransition searchDelay = new PauseTransition(SEARCH_DELAY);
+
+    private CompletableFuture<LazySellerList> pendingRefresh;
+
+    // só com writeBehind.enabled=true
+    private WriteBehindQueue writeBehind;
+
+    private final Runnable writeBehindListener = () -> Platform.runLater(this::updatePendingView);
+
+    // só com offline.enabled=true: mudanças trazidas do servidor recarregam a lista
+    private OfflineStore offlineStore;
+
+    private final Runnable offlineSyncListener = () -> Platform.runLater(this::updateTableView);
+
+    @FXML
+    private Button buttonImport;
+
+    @FXML
+    private Button buttonExport;
+
+    @FXML
+    private Label labelTaskProgress;
+
+    // exportação em andamento; o mesmo botão a cancela
+    private SellerExporter runningExport;
 
     @FXML
     private TableColumn<Seller, Seller> tableColumnEDIT;
@@ -71,8 +140,121 @@ public class SellerListController implements Initializable, DataChangeListener {
         createDialogForm("/gui/SellerForm.fxml", parentStage, obj);
     }
 
+    // Importa em segundo plano; as linhas recusadas vão para <arquivo>.rejects.csv ao lado do original.
+    @FXML
+    public void onButtonImport(ActionEvent event) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import sellers");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+        File file = chooser.showOpenDialog(Utils.currentStage(event));
+        if (file == null) {
+            return;
+        }
+        Path csvFile = file.toPath();
+        Path rejectFile = csvFile.resolveSibling(file.getName().replaceFirst("(?i)\\.csv$", "") + ".rejects.csv");
+
+        SellerCsvImporter importer = new SellerCsvImporter();
+        importer.setProgressListener(progress ->
+                Platform.runLater(() -> labelTaskProgress.setText(progress.toString())));
+        buttonImport.setDisable(true);
+        labelTaskProgress.setText("Importing " + file.getName() + "...");
+        CompletableFuture.supplyAsync(() -> importer.importFile(csvFile, rejectFile), ServiceExecutor.get())
+                .whenComplete((result, error) -> Platform.runLater(() -> {
+                    buttonImport.setDisable(false);
+                    if (error != null) {
+                        labelTaskProgress.setText("");
+                        Throwable cause = Utils.unwrap(error);
+                        if (cause instanceof UncheckedIOException) {
+                            // arquivo ilegível ou sem permissão: nada a ver com o banco
+                            Alerts.showAlerts("Error reading or writing import files", null, cause.getMessage(),
+                                    Alert.AlertType.ERROR);
+                            return;
+                        }
+                        String message = cause instanceof ValidationException
+                                ? cause.getMessage() + " " + ((ValidationException) cause).getErrors()
+                                : cause.getMessage();
+                        Alerts.showAlerts("Error importing sellers", null, message, Alert.AlertType.ERROR);
+                        return;
+                    }
+                    String rejected = result.getRowsRejected() > 0
+                            ? "\nRejected rows were written to " + rejectFile : "";
+                    Alerts.showAlerts("Import finished", null, result + rejected, Alert.AlertType.INFORMATION);
+                    updateTableView();
+                }));
+    }
+
+    // Exporta o que a lista mostra (busca e ordenação atuais) em CSV ou XLSX, pela extensão escolhida.
+    @FXML
+    public void onButtonExport(ActionEvent event) {
+        if (runningExport != null) {
+            runningExport.cancel();
+            return;
+        }
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export sellers");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV files", "*.csv"),
+                new FileChooser.ExtensionFilter("Excel workbooks", "*.xlsx"));
+        File file = chooser.showSaveDialog(Utils.currentStage(event));
+        if (file == null) {
+            return;
+        }
+        Path target = file.toPath();
+        if (!file.getName().contains(".")) {
+            // sem extensão digitada, vale o filtro escolhido
+            String extension = chooser.getSelectedExtensionFilter() == null ? "*.csv"
+                    : chooser.getSelectedExtensionFilter().getExtensions().get(0);
+            target = target.resolveSibling(file.getName() + extension.substring(1));
+        }
+        Path exportFile = target;
+        SellerExporter.Format format = SellerExporter.Format.of(exportFile);
+        // cópia: a busca pode mudar enquanto a exportação roda
+        SellerQuery exportQuery = new SellerQuery(query);
+        long total = observableList == null ? 0 : observableList.size();
+
+        SellerExporter exporter = new SellerExporter();
+        exporter.setProgressListener(rows -> Platform.runLater(() -> labelTaskProgress.setText(total > 0
+                ? String.format("Exported %,d of %,d sellers", rows, total)
+                : String.format("Exported %,d sellers", rows))));
+        runningExport = exporter;
+        buttonExport.setText("Cancel export");
+        CompletableFuture.supplyAsync(() -> exporter.export(exportQuery, exportFile, format), ServiceExecutor.get())
+                .whenComplete((rows, error) -> Platform.runLater(() -> {
+                    runningExport = null;
+                    buttonExport.setText("Export...");
+                    if (error != null) {
+                        Throwable cause = Utils.unwrap(error);
+                        if (cause instanceof CancellationException) {
+                            labelTaskProgress.setText("Export cancelled");
+                            return;
+                        }
+                        labelTaskProgress.setText("");
+                        String title = cause instanceof UncheckedIOException
+                                ? "Error writing export file" : "Error exporting sellers";
+                        Alerts.showAlerts(title, null, cause.getMessage(), Alert.AlertType.ERROR);
+                        return;
+                    }
+                    labelTaskProgress.setText(String.format("Exported %,d sellers to %s", rows, exportFile.getFileName()));
+                }));
+    }
+
     public void setSellerService(SellerService service) {
+        if (this.service != null) {
+            this.service.unsubscribeChangeListener(this);
+        }
         this.service = service;
+        service.subscribeChangeListener(this);
+        if (WriteBehindQueue.isEnabled() && writeBehind == null) {
+            // a fila grava pelo seu próprio service: os eventos dela chegam por aqui
+            writeBehind = WriteBehindQueue.get();
+            writeBehind.subscribeChangeListener(this);
+            writeBehind.addQueueListener(writeBehindListener);
+            updatePendingView();
+        }
+        if (offlineStore == null && DaoFactory.offlineStore() != null) {
+            offlineStore = DaoFactory.offlineStore();
+            offlineStore.addSyncListener(offlineSyncListener);
+        }
     }
 
     @Override
@@ -90,7 +272,40 @@ public class SellerListController implements Initializable, DataChangeListener {
         Utils.formatTableColumnDate(tableColumnBirthDate,"dd/MM/yyyy");
         tableColumnBaseSalary.setCellValueFactory(new PropertyValueFactory<>("baseSalary"));
         Utils.formatTableColumnDouble(tableColumnBaseSalary,2);
+        tableColumnStatus.setCellValueFactory(param -> new ReadOnlyObjectWrapper<>(statusOf(param.getValue())));
+        tableColumnStatus.setSortable(false);
+        initEditButtons();
+        initRemoveButtons();
+        initPendingList();
+
+        // A busca só vai ao banco depois que o usuário para de digitar
+        searchDelay.setOnFinished(event -> applySearch());
+        txtSearchName.textProperty().addListener((obs, oldValue, newValue) -> searchDelay.playFromStart());
+        txtSearchEmail.textProperty().addListener((obs, oldValue, newValue) -> searchDelay.playFromStart());
+
+        // O clique no cabeçalho muda o ORDER BY em vez de ordenar a lista em memória
+        tableColumnEDIT.setSortable(false);
+        tableColumnREMOVE.setSortable(false);
+        tableViewSeller.setSortPolicy(table -> {
+            applySort();
+            return true;
+        });
 
+        // A fila é da aplicação inteira: quando a tela sai, esta lista deixa de ouvir
+        tableViewSeller.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene == null && writeBehind != null) {
+                writeBehind.unsubscribeChangeListener(this);
+                writeBehind.removeQueueListener(writeBehindListener);
+                writeBehind = null;
+            }
+            if (newScene == null && runningExport != null) {
+                runningExport.cancel();
+            }
+            if (newScene == null && offlineStore != null) {
+                offlineStore.removeSyncListener(offlineSyncListener);
+                offlineStore = null;
+            }
+        });
 
         // Para o tableView acompanhar a altura da janela
         Stage stage = (Stage) Main.getMainScene().getWindow();
@@ -101,11 +316,73 @@ public class SellerListController implements Initializable, DataChangeListener {
         if (service == null) {
             throw new IllegalStateException("Service was null");
         }
-        List<Seller> list = service.findAll();
-        observableList = FXCollections.observableList(list);
-        tableViewSeller.setItems(observableList);
-        initEditButtons();
-        initRemoveButtons();
+        // uma nova atualização descarta a anterior que ainda não terminou
+        if (pendingRefresh != null) {
+            pendingRefresh.cancel(false);
+        }
+        CompletableFuture<LazySellerList> refresh = LazySellerList.load(service, query, PAGE_SIZE, MAX_PAGES_IN_MEMORY);
+        pendingRefresh = refresh;
+        progressIndicator.setVisible(true);
+
+        refresh.whenComplete((list, error) -> Platform.runLater(() -> {
+            if (refresh != pendingRefresh) {
+                return;
+            }
+            pendingRefresh = null;
+            progressIndicator.setVisible(false);
+            if (error != null) {
+                Throwable cause = Utils.unwrap(error);
+                if (!(cause instanceof CancellationException)) {
+                    Alerts.showAlerts("Error loading sellers", null, cause.getMessage(), Alert.AlertType.ERROR);
+                }
+                return;
+            }
+            observableList = list;
+            tableViewSeller.setItems(observableList);
+        }));
+    }
+
+    private void applySearch() {
+        query.setNamePrefix(txtSearchName.getText());
+        query.setEmailContains(txtSearchEmail.getText());
+        if (service != null) {
+            updateTableView();
+        }
+    }
+
+    private void applySort() {
+        SellerQuery.SortColumn column = SellerQuery.SortColumn.NAME;
+        SellerQuery.SortOrder order = SellerQuery.SortOrder.ASCENDING;
+        if (!tableViewSeller.getSortOrder().isEmpty()) {
+            TableColumn<Seller, ?> sortColumn = tableViewSeller.getSortOrder().get(0);
+            column = sortColumnOf(sortColumn);
+            if (sortColumn.getSortType() == TableColumn.SortType.DESCENDING) {
+                order = SellerQuery.SortOrder.DESCENDING;
+            }
+        }
+        if (column != query.getSortColumn() || order != query.getSortOrder()) {
+            query.setSortColumn(column);
+            query.setSortOrder(order);
+            if (service != null) {
+                updateTableView();
+            }
+        }
+    }
+
+    private SellerQuery.SortColumn sortColumnOf(TableColumn<Seller, ?> column) {
+        if (column == tableColumnID) {
+            return SellerQuery.SortColumn.ID;
+        }
+        if (column == tableColumnEmail) {
+            return SellerQuery.SortColumn.EMAIL;
+        }
+        if (column == tableColumnBirthDate) {
+            return SellerQuery.SortColumn.BIRTH_DATE;
+        }
+        if (column == tableColumnBaseSalary) {
+            return SellerQuery.SortColumn.BASE_SALARY;
+        }
+        return SellerQuery.SortColumn.NAME;
     }
 
     // janela de dialogo para abrir o formulário.
@@ -117,9 +394,9 @@ public class SellerListController implements Initializable, DataChangeListener {
 
             SellerFormController controller = loader.getController();
             controller.setSeller(obj);
-            controller.setServices(new SellerService(), new DepartmentService());
+            // o mesmo service da lista, para que a gravação chegue em onDataChanged
+            controller.setServices(service, new DepartmentService());
             controller.loadAssociatedObjects();
-            controller.subscribeChangeListener(this);
             controller.updateFormData();
 
             Stage dialogStage = new Stage();
@@ -136,9 +413,73 @@ public class SellerListController implements Initializable, DataChangeListener {
         }
     }
 
+    // Aplica só a linha gravada, sem buscar a lista de novo; rolagem e seleção continuam onde estavam.
     @Override
-    public void onDataChanged() {
-        updateTableView();
+    public void onDataChanged(DataChangeEvent<Seller> event) {
+        Platform.runLater(() -> {
+            if (observableList != null) {
+                observableList.apply(event);
+            }
+        });
+    }
+
+    private String statusOf(Seller seller) {
+        if (writeBehind == null || seller == null) {
+            return "";
+        }
+        WriteBehindQueue.Status status = writeBehind.statusOf(seller.getId());
+        if (status == null) {
+            return "";
+        }
+        return status == WriteBehindQueue.Status.FAILED ? "failed" : "pending";
+    }
+
+    // Alterações pendentes aparecem na própria linha (coluna Status); inclusões, que ainda não
+    // estão na tabela, e falhas aparecem na lista acima dela.
+    private void updatePendingView() {
+        if (writeBehind == null) {
+            return;
+        }
+        List<WriteBehindQueue.Item> shown = new ArrayList<>();
+        for (WriteBehindQueue.Item item : writeBehind.items()) {
+            if (item.isInsert() || item.getStatus() == WriteBehindQueue.Status.FAILED) {
+                shown.add(item);
+            }
+        }
+        listViewPending.getItems().setAll(shown);
+        listViewPending.setVisible(!shown.isEmpty());
+        listViewPending.setManaged(!shown.isEmpty());
+        tableViewSeller.refresh();
+    }
+
+    private void initPendingList() {
+        listViewPending.setCellFactory(param -> new ListCell<WriteBehindQueue.Item>() {
+            private final Button retry = new Button("retry");
+            private final Button discard = new Button("discard");
+            private final HBox buttons = new HBox(5, retry, discard);
+
+            @Override
+            protected void updateItem(WriteBehindQueue.Item item, boolean empty) {
+                super.updateItem(item, empty);
+                if (item == null || empty) {
+                    setText(null);
+                    setGraphic(null);
+                    return;
+                }
+                Seller seller = item.getSeller();
+                String name = (item.isInsert() ? "New seller " : "Seller " + seller.getId() + " ") + seller.getName();
+                if (item.getStatus() == WriteBehindQueue.Status.FAILED) {
+                    setText(name + " - failed: " + item.getError());
+                } else {
+                    setText(name + " - pending");
+                }
+                retry.setVisible(item.getStatus() == WriteBehindQueue.Status.FAILED);
+                retry.setOnAction(event -> writeBehind.retry(item));
+                discard.setOnAction(event -> writeBehind.discard(item));
+                setContentDisplay(ContentDisplay.RIGHT);
+                setGraphic(buttons);
+            }
+        });
     }
 
     private void initEditButtons() {
@@ -185,14 +526,15 @@ public class SellerListController implements Initializable, DataChangeListener {
             if(service == null){
                 throw new IllegalStateException("Service was null");
             }
-            try {
-                service.remove(obj);
-                updateTableView();
-            }
-            catch (DbIntegrityException dbIntegrityException){
-                Alerts.showAlerts("Error removing object",
-                        null,dbIntegrityException.getMessage(), Alert.AlertType.ERROR);
-            }
+            progressIndicator.setVisible(true);
+            service.removeAsync(obj).whenComplete((done, error) -> Platform.runLater(() -> {
+                progressIndicator.setVisible(false);
+                // a linha sai da tabela pelo evento publicado pelo service
+                if (error != null) {
+                    Alerts.showAlerts("Error removing object",
+                            null, Utils.unwrap(error).getMessage(), Alert.AlertType.ERROR);
+                }
+            }));
         }
     }
 }
\ No newline at end of file
@@ -1,6 +0,0 @@
-package gui.listeners;
-
-public interface DataChangeListener {
-
-    void onDataChanged();
-}
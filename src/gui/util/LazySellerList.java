@@ -0,0 +1,434 @@
+package gui.util;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import model.dao.PageDirection;
+import model.dao.SellerQuery;
+import model.entities.Seller;
+import model.services.DataChangeEvent;
+import model.services.SellerService;
+import model.services.ServiceExecutor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Lista para o TableView que busca os vendedores por páginas conforme a rolagem.
+// Mantém no máximo maxPages páginas em memória e busca a próxima página em segundo plano.
+// Nenhuma consulta roda na thread do JavaFX: uma linha de página ainda não carregada sai como null
+// (linha vazia na tabela) e a página é buscada no ServiceExecutor; quando ela chega, a lista avisa
+// a tabela pelo Platform.runLater.
+// apply() encaixa as gravações do SellerService nas páginas sem recarregar a lista;
+// deve ser chamado na thread do JavaFX.
+public class LazySellerList extends ObservableListBase<Seller> {
+
+    private static final ExecutorService PREFETCH = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "seller-page-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final SellerService service;
+    private final SellerQuery query;
+    private final Comparator<Seller> comparator;
+    private final int pageSize;
+    private final int maxPages;
+    private int size;
+
+    private final Map<Integer, List<Seller>> pages;
+    private final Map<Integer, Future<?>> loading = new HashMap<>();
+    // primeira e última linha de cada página já lida, usadas como âncora do keyset
+    private final Map<Integer, Seller> firstRows = new HashMap<>();
+    private final Map<Integer, Seller> lastRows = new HashMap<>();
+    // SellerService.currentWriteSequence() ao terminar a leitura de cada página
+    private final Map<Integer, Long> readAt = new HashMap<>();
+    // páginas que perderam uma linha numa remoção e precisam ser completadas pelo banco
+    private final Set<Integer> shortPages = new HashSet<>();
+
+    // muda a cada alteração local; páginas buscadas antes dela são descartadas
+    private int generation;
+
+    private int lastPageRequested;
+
+    private LazySellerList(SellerService service, SellerQuery query, int pageSize, int maxPages, int size) {
+        this.service = service;
+        this.query = query;
+        this.comparator = query.comparator();
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.size = size;
+        this.pages = new LinkedHashMap<Integer, List<Seller>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Seller>> eldest) {
+                return size() > LazySellerList.this.maxPages;
+            }
+        };
+    }
+
+    // Conta as linhas e carrega a primeira página fora da thread do JavaFX.
+    public static CompletableFuture<LazySellerList> load(SellerService service, SellerQuery query,
+                                                         int pageSize, int maxPages) {
+        SellerQuery snapshot = new SellerQuery(query);
+        return CompletableFuture.supplyAsync(() -> {
+            LazySellerList list = new LazySellerList(service, snapshot, pageSize, maxPages, service.count(snapshot));
+            if (list.size > 0) {
+                list.fetch(0);
+            }
+            return list;
+        }, ServiceExecutor.get());
+    }
+
+    @Override
+    public Seller get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int page = index / pageSize;
+        int offset = index % pageSize;
+        List<Seller> rows;
+        boolean incomplete;
+        synchronized (this) {
+            rows = pages.get(page);
+            incomplete = rows == null || (offset >= rows.size() && shortPages.contains(page));
+        }
+
+        if (page > lastPageRequested) {
+            prefetch(page + 1);
+        } else if (page < lastPageRequested) {
+            prefetch(page - 1);
+        }
+        lastPageRequested = page;
+
+        if (incomplete) {
+            // linha vazia até a página chegar
+            request(page, ServiceExecutor.get());
+            return null;
+        }
+        // a tabela pode ter diminuído depois da contagem
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Tudo sob o lock da lista: assim nenhuma página do prefetch é guardada no meio da alteração.
+    public synchronized void apply(DataChangeEvent<Seller> event) {
+        // páginas lidas depois que a gravação começou podem já ter a mudança: são lidas de novo
+        forgetPagesReadSince(event.getSequence());
+        switch (event.getType()) {
+            case INSERTED:
+                inserted(event.getEntity());
+                break;
+            case UPDATED:
+                updated(event.getEntity());
+                break;
+            case DELETED:
+                deleted(event.getEntity());
+                break;
+        }
+    }
+
+    private void inserted(Seller seller) {
+        if (!query.matches(seller)) {
+            return;
+        }
+        int index = insert(seller);
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    private void updated(Seller seller) {
+        int index = indexOfLoaded(seller.getId());
+        if (index < 0) {
+            // a posição antiga é desconhecida: a linha pode ter entrado, saído ou mudado de lugar
+            reload();
+            return;
+        }
+        int page = index / pageSize;
+        List<Seller> rows = pages.get(page);
+        Seller old = rows.get(index % pageSize);
+        if (query.matches(seller) && comparator.compare(old, seller) == 0) {
+            // mesma posição na ordenação: só troca a linha
+            rows.set(index % pageSize, seller);
+            updateAnchors(page, rows);
+            beginChange();
+            nextSet(index, old);
+            endChange();
+            return;
+        }
+        // mudou de lugar ou saiu do filtro
+        deleted(old);
+        inserted(seller);
+    }
+
+    private void deleted(Seller seller) {
+        int index = indexOfLoaded(seller.getId());
+        Seller removed = seller;
+        if (index >= 0) {
+            removed = removeLoaded(index);
+        } else if (query.matches(seller)) {
+            index = invalidateAround(seller);
+            size--;
+        } else {
+            return;
+        }
+        beginChange();
+        nextRemove(index, removed);
+        endChange();
+    }
+
+    // Recomeça as páginas do zero, mantendo a mesma lista na tabela. Só acontece quando uma linha
+    // que não está em memória é alterada, o que a tela de vendedores não faz.
+    // A contagem roda no ServiceExecutor; até ela chegar a tabela mostra linhas vazias.
+    private void reload() {
+        invalidateFrom(0);
+        int reloadGeneration = generation;
+        CompletableFuture.supplyAsync(() -> service.count(query), ServiceExecutor.get())
+                .whenComplete((count, error) -> Platform.runLater(() -> counted(reloadGeneration, count)));
+    }
+
+    private synchronized void counted(int reloadGeneration, Integer count) {
+        if (count == null) {
+            // a contagem falhou; a lista fica como estava até a próxima atualização da tela
+            return;
+        }
+        if (reloadGeneration != generation) {
+            // outra gravação chegou durante a contagem: conta de novo
+            reload();
+            return;
+        }
+        int oldSize = size;
+        size = count;
+        beginChange();
+        nextRemove(0, Collections.nCopies(oldSize, (Seller) null));
+        nextAdd(0, size);
+        endChange();
+    }
+
+    // Coloca a linha na página em que ela cai pela ordenação e devolve o índice global.
+    private int insert(Seller seller) {
+        int page = pageOf(seller);
+        List<Seller> rows = page >= 0 ? pages.get(page) : null;
+        if (rows == null) {
+            int index = invalidateAround(seller);
+            size++;
+            return index;
+        }
+        int offset = Collections.binarySearch(rows, seller, comparator);
+        offset = offset < 0 ? -(offset + 1) : offset;
+        rows.add(offset, seller);
+        // a página continua com pageSize linhas; a última passa para a seguinte
+        if (rows.size() > pageSize) {
+            rows.remove(rows.size() - 1);
+        }
+        updateAnchors(page, rows);
+        invalidateFrom(page + 1);
+        size++;
+        return page * pageSize + offset;
+    }
+
+    private Seller removeLoaded(int index) {
+        int page = index / pageSize;
+        List<Seller> rows = pages.get(page);
+        Seller removed = rows.remove(index % pageSize);
+        invalidateFrom(page + 1);
+        size--;
+
+        if (rows.isEmpty()) {
+            // é buscada de novo quando voltar a aparecer na tela
+            invalidateFrom(page);
+        } else {
+            updateAnchors(page, rows);
+            // a linha que passa da página seguinte para esta vem do banco quando a tabela pedir
+            if ((page + 1) * pageSize <= size) {
+                shortPages.add(page);
+            }
+        }
+        return removed;
+    }
+
+    // A posição exata não é conhecida: descarta as páginas a partir do trecho em que a linha cai
+    // e devolve o início desse trecho.
+    private int invalidateAround(Seller seller) {
+        int page = pageOf(seller);
+        if (page < 0) {
+            page = 0;
+            for (Map.Entry<Integer, Seller> entry : lastRows.entrySet()) {
+                if (comparator.compare(entry.getValue(), seller) < 0) {
+                    page = Math.max(page, entry.getKey() + 1);
+                }
+            }
+        }
+        invalidateFrom(page);
+        return Math.min(page * pageSize, size);
+    }
+
+    // Página cujas âncoras cercam a linha, pela ordenação da consulta; -1 se não dá para saber.
+    private int pageOf(Seller seller) {
+        if (size == 0) {
+            return 0;
+        }
+        TreeSet<Integer> known = new TreeSet<>(lastRows.keySet());
+        for (int page : known) {
+            if (comparator.compare(seller, lastRows.get(page)) > 0) {
+                continue;
+            }
+            if (page == 0 || comparator.compare(seller, firstRows.get(page)) >= 0 || known.contains(page - 1)) {
+                return page;
+            }
+            return -1;
+        }
+        // depois de todas as linhas conhecidas: só é a última página se ela for a final
+        if (!known.isEmpty() && known.last() == (size - 1) / pageSize) {
+            return known.last();
+        }
+        return -1;
+    }
+
+    private int indexOfLoaded(Integer id) {
+        for (Map.Entry<Integer, List<Seller>> entry : pages.entrySet()) {
+            List<Seller> rows = entry.getValue();
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i).getId().equals(id)) {
+                    return entry.getKey() * pageSize + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void forgetPagesReadSince(long sequence) {
+        generation++;
+        for (Map.Entry<Integer, Long> entry : new ArrayList<>(readAt.entrySet())) {
+            if (entry.getValue() >= sequence) {
+                int page = entry.getKey();
+                pages.remove(page);
+                firstRows.remove(page);
+                lastRows.remove(page);
+                readAt.remove(page);
+                shortPages.remove(page);
+            }
+        }
+        loading.clear();
+    }
+
+    private void updateAnchors(int page, List<Seller> rows) {
+        firstRows.put(page, rows.get(0));
+        lastRows.put(page, rows.get(rows.size() - 1));
+    }
+
+    // As páginas a partir de "from" mudaram de conteúdo; serão buscadas de novo pelo keyset.
+    private void invalidateFrom(int from) {
+        generation++;
+        pages.keySet().removeIf(page -> page >= from);
+        firstRows.keySet().removeIf(page -> page >= from);
+        lastRows.keySet().removeIf(page -> page >= from);
+        readAt.keySet().removeIf(page -> page >= from);
+        shortPages.removeIf(page -> page >= from);
+        loading.keySet().removeIf(page -> page >= from);
+    }
+
+    private void prefetch(int page) {
+        if (page < 0 || page * pageSize >= size) {
+            return;
+        }
+        request(page, PREFETCH);
+    }
+
+    // Busca a página em segundo plano, se ainda não estiver a caminho, e avisa a tabela quando chegar.
+    private synchronized void request(int page, ExecutorService executor) {
+        if (loading.containsKey(page) || (pages.containsKey(page) && !shortPages.contains(page))) {
+            return;
+        }
+        loading.put(page, executor.submit(() -> {
+            boolean stored = fetch(page);
+            Platform.runLater(() -> loaded(page, stored));
+        }));
+    }
+
+    // Na thread do JavaFX: as linhas que a tabela mostrou vazias passam a existir. Se a página foi
+    // descartada no meio da busca, as linhas vazias são redesenhadas e a tabela pede a página de novo.
+    private synchronized void loaded(int page, boolean stored) {
+        int from = page * pageSize;
+        List<Seller> rows = pages.get(page);
+        if (stored && rows != null) {
+            int to = Math.min(size, from + rows.size());
+            if (from < to) {
+                beginChange();
+                nextReplace(from, to, Collections.nCopies(to - from, (Seller) null));
+                endChange();
+            }
+        } else if (!stored && rows == null && from < size) {
+            beginChange();
+            for (int index = from; index < Math.min(size, from + pageSize); index++) {
+                nextUpdate(index);
+            }
+            endChange();
+        }
+    }
+
+    // Consulta a página no banco; nunca na thread do JavaFX. false se a lista mudou no meio da busca.
+    private boolean fetch(int page) {
+        Seller before;
+        Seller after;
+        int loadGeneration;
+        synchronized (this) {
+            before = lastRows.get(page - 1);
+            after = firstRows.get(page + 1);
+            loadGeneration = generation;
+        }
+
+        List<Seller> rows;
+        long sequence;
+        try {
+            if (page == 0) {
+                rows = service.findPage(query, null, pageSize, PageDirection.FORWARD);
+            } else if (before != null) {
+                rows = service.findPage(query, before, pageSize, PageDirection.FORWARD);
+            } else if (after != null) {
+                rows = service.findPage(query, after, pageSize, PageDirection.BACKWARD);
+            } else {
+                // salto direto pela barra de rolagem, sem página vizinha conhecida
+                rows = service.findPage(query, page * pageSize, pageSize);
+            }
+            rows = new ArrayList<>(rows);
+            // lido depois da consulta: gravações com número maior começaram depois que a página foi lida
+            sequence = service.currentWriteSequence();
+        } catch (RuntimeException e) {
+            // a página pode ser pedida de novo na próxima rolagem
+            synchronized (this) {
+                loading.remove(page);
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            loading.remove(page);
+            if (loadGeneration != generation) {
+                // a lista mudou enquanto a página era buscada
+                return false;
+            }
+            pages.put(page, rows);
+            shortPages.remove(page);
+            readAt.put(page, sequence);
+            if (!rows.isEmpty()) {
+                updateAnchors(page, rows);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,19 @@
+package model.dao;
+
+import java.util.Properties;
+
+// dao.decorators=cache: departamentos em memória por dao.departmentCacheTtlMillis.
+// Os vendedores passam direto; o SellerDaoJDBC usa o mesmo cache para não repetir Departments.
+class CacheDaoDecorator implements DaoDecorator {
+
+    @Override
+    public String getName() {
+        return "cache";
+    }
+
+    @Override
+    public DepartmentDao decorate(DepartmentDao departmentDao, Properties properties) {
+        long ttl = Long.parseLong(properties.getProperty("dao.departmentCacheTtlMillis", "300000"));
+        return new CachedDepartmentDao(departmentDao, ttl);
+    }
+}
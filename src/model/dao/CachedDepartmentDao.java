@@ -0,0 +1,199 @@
+package model.dao;
+
+import model.entities.Department;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Cache de leitura na frente do DepartmentDao: mapa id -> Department e lista ordenada por nome.
+// A tabela é pequena e quase não muda, então o snapshot inteiro é recarregado quando expira
+// ou quando há uma gravação (por este DAO ou por invalidate()).
+// findById e findAll devolvem cópias: quem edita o departamento numa tela não altera o cache.
+public class CachedDepartmentDao implements DepartmentDao {
+
+    private static final Logger LOGGER = Logger.getLogger(CachedDepartmentDao.class.getName());
+
+    private final DepartmentDao departmentDao;
+    private final long ttlMillis;
+
+    private volatile Snapshot snapshot;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+
+    // recarga pedida por canonical() em andamento
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    public CachedDepartmentDao(DepartmentDao departmentDao, long ttlMillis) {
+        this.departmentDao = departmentDao;
+        this.ttlMillis = ttlMillis;
+    }
+
+    @Override
+    public void insert(Department department) {
+        departmentDao.insert(department);
+        invalidate();
+    }
+
+    @Override
+    public void update(Department department) {
+        departmentDao.update(department);
+        invalidate();
+    }
+
+    @Override
+    public void deleteById(Integer id) {
+        departmentDao.deleteById(id);
+        invalidate();
+    }
+
+    @Override
+    public Department findById(Integer id) {
+        Department department = currentSnapshot().byId.get(id);
+        if (department != null) {
+            hits.incrementAndGet();
+            return copy(department);
+        }
+        // pode ter sido criado por outro cliente depois do último carregamento
+        misses.incrementAndGet();
+        return departmentDao.findById(id);
+    }
+
+    @Override
+    public List<Department> findAll() {
+        Snapshot current = snapshot;
+        if (isFresh(current)) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            current = currentSnapshot();
+        }
+        List<Department> list = new ArrayList<>(current.sorted.size());
+        for (Department department : current.sorted) {
+            list.add(copy(department));
+        }
+        return list;
+    }
+
+    // Devolve a instância compartilhada do departamento, para que as linhas de seller não criem cópias.
+    // Ela é só para leitura: quem precisar alterar usa findById.
+    // Nunca consulta o banco: quem chama está no meio de uma consulta de vendedores, com uma conexão
+    // do pool na mão, e pegar outra ali pode travar com um pool pequeno. Sem snapshot válido, a linha
+    // vira um Department novo e a recarga vai para outra thread.
+    public Department canonical(int id, String name) {
+        Snapshot current = snapshot;
+        if (!isFresh(current)) {
+            refreshLater();
+            misses.incrementAndGet();
+            return new Department(id, name);
+        }
+        Department department = current.byId.get(id);
+        // Name pode ser NULL no banco
+        if (department != null && Objects.equals(department.getName(), name)) {
+            hits.incrementAndGet();
+            return department;
+        }
+        misses.incrementAndGet();
+        return new Department(id, name);
+    }
+
+    public synchronized void invalidate() {
+        snapshot = null;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getLoads() {
+        return loads.get();
+    }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0.0 : (double) hits.get() / total;
+    }
+
+    private static Department copy(Department department) {
+        Department copy = new Department(department.getId(), department.getName());
+        copy.setVersion(department.getVersion());
+        return copy;
+    }
+
+    private boolean isFresh(Snapshot current) {
+        return current != null && System.currentTimeMillis() - current.loadedAt < ttlMillis;
+    }
+
+    private void refreshLater() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                currentSnapshot();
+            } catch (RuntimeException e) {
+                // fica para o próximo findAll, findById ou canonical
+                LOGGER.log(Level.WARNING, "Could not reload the department cache", e);
+            } finally {
+                refreshing.set(false);
+            }
+        });
+    }
+
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        if (isFresh(current)) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (!isFresh(current)) {
+                loads.incrementAndGet();
+                current = new Snapshot(departmentDao.findAll());
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CachedDepartmentDao{" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", loads=" + loads +
+                ", hitRate=" + String.format("%.2f", getHitRate()) +
+                '}';
+    }
+
+    private static final class Snapshot {
+
+        private final Map<Integer, Department> byId = new HashMap<>();
+        private final List<Department> sorted;
+        private final long loadedAt = System.currentTimeMillis();
+
+        Snapshot(List<Department> departments) {
+            List<Department> list = new ArrayList<>(departments);
+            list.sort(Comparator.comparing(Department::getName, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER)));
+            for (Department department : list) {
+                byId.put(department.getId(), department);
+            }
+            sorted = Collections.unmodifiableList(list);
+        }
+    }
+}
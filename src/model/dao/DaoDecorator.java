@@ -0,0 +1,20 @@
+package model.dao;
+
+import java.util.Properties;
+
+// Camada em volta de um DAO (cache, métricas...), ligada por nome em dao.decorators.
+// Além do "cache" embutido, outras podem vir de um jar no classpath com
+// META-INF/services/model.dao.DaoDecorator (ServiceLoader).
+// Por padrão a camada não mexe no DAO; basta sobrescrever o que ela envolve.
+public interface DaoDecorator {
+
+    String getName();
+
+    default SellerDao decorate(SellerDao sellerDao, Properties properties) {
+        return sellerDao;
+    }
+
+    default DepartmentDao decorate(DepartmentDao departmentDao, Properties properties) {
+        return departmentDao;
+    }
+}
@@ -1,18 +1,250 @@
 package model.dao;
 
+import db.ConnectionPool;
 import db.DB;
+import db.DbException;
+import db.Migration;
+import db.QueryMetrics;
+import db.SchemaMigrator;
 import model.dao.DepartmentDao;
 import model.dao.SellerDao;
 
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.ServiceLoader;
+import java.util.function.Function;
+
 public class DaoFactory {
 
+    private static DaoProvider provider = null;
+
+    // da camada de fora para a de dentro, na ordem de dao.decorators
+    private static List<DaoDecorator> decorators = null;
+
+    // a cadeia de departamentos é uma só para a aplicação inteira
+    private static DepartmentDao departmentDao = null;
+
+    // a camada "cache" dessa cadeia; null quando dao.decorators não tem "cache"
+    private static CachedDepartmentDao departmentCache = null;
+
+    private static OfflineStore offlineStore = null;
+
+    // Gravações no primário; consultas nas réplicas quando db.properties tiver dburl.replicas.
+    // Com offline.enabled=true as leituras vêm da cópia local do OfflineStore.
+    // Por fora ficam as camadas de dao.decorators (ex.: metrics,cache -> métricas -> cache -> JDBC).
     public static SellerDao createSellerDao(){
-        return new SellerDaoJDBC(DB.getConnection());
+        Properties props = DB.getProperties();
+        SellerDao sellerDao = provider().createSellerDao(DB.getDataSource(), DB.getReadDataSource(), props);
+        if (sellerDao instanceof SellerDaoJDBC) {
+            // null quando dao.decorators não tem "cache": cada linha leva o seu Department
+            ((SellerDaoJDBC) sellerDao).setDepartmentCache(departmentCache());
+        }
+        OfflineStore store = offlineStore();
+        if (store != null) {
+            SellerDaoJDBC localDao = new SellerDaoJDBC(store.getLocalDataSource());
+            // o H2 não aceita o fetch size de streaming do MySQL
+            localDao.setFetchSize(1000);
+            localDao.setDepartmentCache(departmentCache());
+            sellerDao = new OfflineSellerDao(sellerDao, localDao, store);
+        }
+        List<DaoDecorator> layers = decorators();
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            sellerDao = layers.get(i).decorate(sellerDao, props);
+        }
+        return sellerDao;
+    }
+
+    // Com o DataSource de uma Transaction o DAO participa da transação. Leva as camadas de
+    // dao.decorators (métricas inclusive), menos o cache de departamentos: um cache não pode guardar
+    // o que ainda não foi confirmado, e a transação precisa ver o departamento que ela mesma gravou.
+    public static SellerDao createSellerDao(DataSource dataSource){
+        Properties props = DB.getProperties();
+        SellerDao sellerDao = provider().createSellerDao(dataSource, dataSource, props);
+        List<DaoDecorator> layers = transactionalDecorators();
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            sellerDao = layers.get(i).decorate(sellerDao, props);
+        }
+        return sellerDao;
     }
 
     public static DepartmentDao createDepartmentDao(){
-        return new DepartmentDaoJDBC(DB.getConnection());
+        return departmentDao();
     }
 
-}
+    // Como createSellerDao(DataSource): na transação e sem o cache.
+    public static DepartmentDao createDepartmentDao(DataSource dataSource){
+        Properties props = DB.getProperties();
+        DepartmentDao departmentDao = provider().createDepartmentDao(dataSource, dataSource, props);
+        List<DaoDecorator> layers = transactionalDecorators();
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            departmentDao = layers.get(i).decorate(departmentDao, props);
+        }
+        return departmentDao;
+    }
+
+    // Painel por departamento; stats.summaryTable=true lê a tabela department_stats em vez de agregar
+    // os vendedores a cada consulta. Fora das camadas e do modo offline: a cópia local não tem o resumo.
+    public static SellerStatsDao createSellerStatsDao(){
+        SellerStatsDaoJDBC statsDao = new SellerStatsDaoJDBC(DB.getDataSource());
+        statsDao.setReadDataSource(DB.getReadDataSource());
+        statsDao.setSummaryMaintained(Boolean.parseBoolean(
+                DB.getProperties().getProperty("stats.summaryTable", "false")));
+        return statsDao;
+    }
+
+    // Transações no primário, com os DAOs do dao.provider; o cache de departamentos é recarregado
+    // depois de um commit que usou o DAO de departamentos.
+    public static TransactionTemplate createTransactionTemplate(){
+        TransactionTemplate template = new TransactionTemplate(DB.getDataSource());
+        template.setSellerDaoFactory(DaoFactory::createSellerDao);
+        template.setDepartmentDaoFactory(DaoFactory::createDepartmentDao);
+        template.setDepartmentsChanged(DaoFactory::invalidateDepartmentCache);
+        return template;
+    }
+
+    // Todos os DAOs compartilham o mesmo cache, assim uma invalidação vale para a aplicação inteira.
+    // null quando dao.decorators não tem "cache".
+    public static synchronized CachedDepartmentDao departmentCache(){
+        departmentDao();
+        return departmentCache;
+    }
+
+    private static synchronized DepartmentDao departmentDao(){
+        if (departmentDao == null) {
+            Properties props = DB.getProperties();
+            DepartmentDao dao = provider().createDepartmentDao(DB.getDataSource(), DB.getReadDataSource(), props);
+            OfflineStore store = offlineStore();
+            if (store != null) {
+                dao = new OfflineDepartmentDao(dao, new DepartmentDaoJDBC(store.getLocalDataSource()), store);
+            }
+            List<DaoDecorator> layers = decorators();
+            for (int i = layers.size() - 1; i >= 0; i--) {
+                dao = layers.get(i).decorate(dao, props);
+                if (dao instanceof CachedDepartmentDao) {
+                    departmentCache = (CachedDepartmentDao) dao;
+                }
+            }
+            departmentDao = dao;
+        }
+        return departmentDao;
+    }
+
+    private static synchronized DaoProvider provider(){
+        if (provider == null) {
+            String name = DB.getProperties().getProperty("dao.provider", "jdbc").trim();
+            provider = find(DaoProvider.class, List.of(new JdbcDaoProvider()), name, DaoProvider::getName);
+        }
+        return provider;
+    }
 
+    private static synchronized List<DaoDecorator> decorators(){
+        if (decorators == null) {
+            List<DaoDecorator> layers = new ArrayList<>();
+            // vazio = DAOs do provider sem nenhuma camada
+            for (String name : DB.getProperties().getProperty("dao.decorators", "cache").split(",")) {
+                if (!name.isBlank()) {
+                    layers.add(find(DaoDecorator.class, List.of(new CacheDaoDecorator(), new MetricsDaoDecorator()), name.trim(),
+                            DaoDecorator::getName));
+                }
+            }
+            decorators = layers;
+        }
+        return decorators;
+    }
+
+    // As camadas de dao.decorators sem o "cache", para os DAOs de uma transação.
+    private static List<DaoDecorator> transactionalDecorators(){
+        List<DaoDecorator> layers = new ArrayList<>();
+        for (DaoDecorator layer : decorators()) {
+            if (!(layer instanceof CacheDaoDecorator)) {
+                layers.add(layer);
+            }
+        }
+        return layers;
+    }
+
+    // As implementações embutidas têm preferência sobre as do ServiceLoader com o mesmo nome.
+    private static <T> T find(Class<T> type, List<T> builtIns, String name, Function<T, String> nameOf){
+        for (T candidate : builtIns) {
+            if (nameOf.apply(candidate).equals(name)) {
+                return candidate;
+            }
+        }
+        for (T candidate : ServiceLoader.load(type)) {
+            if (nameOf.apply(candidate).equals(name)) {
+                return candidate;
+            }
+        }
+        throw new DbException("No " + type.getSimpleName() + " named '" + name + "' on the classpath");
+    }
+
+    // Cópia local para leituras; null quando offline.enabled=false. Começa a sincronizar na criação.
+    public static synchronized OfflineStore offlineStore(){
+        Properties props = DB.getProperties();
+        if (offlineStore == null && Boolean.parseBoolean(props.getProperty("offline.enabled", "false"))) {
+            Properties localProps = new Properties();
+            localProps.setProperty("pool.minSize", "1");
+            localProps.setProperty("pool.name", "offline");
+            localProps.setProperty("pool.maxSize", props.getProperty("offline.poolSize", "4"));
+            ConnectionPool local = new ConnectionPool(props.getProperty("offline.url",
+                    "jdbc:h2:file:./offline-cache;MODE=MySQL;DATABASE_TO_LOWER=TRUE"), localProps);
+            // DB.getReadDataSource() não conecta na criação com offline.enabled=true
+            offlineStore = new OfflineStore(DB.getReadDataSource(), local, props);
+            if (migrationsEnabled(props)) {
+                offlineStore.setServerSetup(DaoFactory::applyMigrations);
+            }
+            // departamentos vindos do servidor só aparecem no cache depois de recarregado
+            offlineStore.addSyncListener(DaoFactory::invalidateDepartmentCache);
+            offlineStore.start(Long.parseLong(props.getProperty("offline.syncMillis", "30000")));
+        }
+        return offlineStore;
+    }
+
+    public static synchronized void shutdown(){
+        if (offlineStore != null) {
+            offlineStore.shutdown();
+            offlineStore = null;
+        }
+        QueryMetrics.get().shutdown();
+    }
+
+    public static void invalidateDepartmentCache(){
+        CachedDepartmentDao cache = departmentCache();
+        if (cache != null) {
+            cache.invalidate();
+        }
+    }
+
+    // Chamado na inicialização: aplica as migrações pendentes (db.migrate=true) ou, com
+    // db.migrate.dryRun=true, só imprime o que seria aplicado e o EXPLAIN das consultas.
+    // Com offline.enabled=true o servidor pode estar fora do ar: as migrações ficam para a
+    // primeira sincronização do OfflineStore que conseguir conectar.
+    public static void migrateSchema(){
+        Properties props = DB.getProperties();
+        if (!Boolean.parseBoolean(props.getProperty("db.migrate", "true"))) {
+            return;
+        }
+        if (Boolean.parseBoolean(props.getProperty("db.migrate.dryRun", "false"))) {
+            QueryPlanReport.print(new SchemaMigrator(DB.getDataSource()), System.out);
+            return;
+        }
+        if (offlineStore() != null) {
+            return;
+        }
+        applyMigrations();
+    }
+
+    private static boolean migrationsEnabled(Properties props){
+        return Boolean.parseBoolean(props.getProperty("db.migrate", "true"))
+                && !Boolean.parseBoolean(props.getProperty("db.migrate.dryRun", "false"));
+    }
+
+    private static void applyMigrations(){
+        for (Migration migration : new SchemaMigrator(DB.getDataSource()).migrate()) {
+            System.out.println("Applied migration " + migration);
+        }
+    }
+
+}
@@ -0,0 +1,17 @@
+package model.dao;
+
+import javax.sql.DataSource;
+import java.util.Properties;
+
+// Implementação base dos DAOs, escolhida por dao.provider no db.properties.
+// Além do "jdbc" embutido, outras podem vir de um jar no classpath com
+// META-INF/services/model.dao.DaoProvider (ServiceLoader).
+public interface DaoProvider {
+
+    String getName();
+
+    // dataSource recebe as gravações; readDataSource as consultas (pode ser uma réplica)
+    SellerDao createSellerDao(DataSource dataSource, DataSource readDataSource, Properties properties);
+
+    DepartmentDao createDepartmentDao(DataSource dataSource, DataSource readDataSource, Properties properties);
+}
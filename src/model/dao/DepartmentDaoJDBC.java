@@ -2,31 +2,54 @@ package model.dao;
 
 import db.DB;
 import db.DbException;
+import db.StaleEntityException;
+import db.Transaction;
 import model.dao.DepartmentDao;
 import model.entities.Department;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 
 public class DepartmentDaoJDBC implements DepartmentDao {
 
-    private Connection connection;
+    static final String UPDATE_DEPARTMENT = "UPDATE department SET Name = ?, Version = Version + 1 WHERE Id = ? AND Version = ?";
 
-    public DepartmentDaoJDBC(Connection connection){
-        this.connection = connection;
+    static final String DELETE_BY_ID = "DELETE FROM department WHERE id = ? ";
+
+    static final String FIND_BY_ID = "SELECT * FROM department WHERE id = ?";
+
+    static final String FIND_ALL = "SELECT * FROM department ORDER BY Name";
+
+    private DataSource dataSource;
+
+    // consultas; pode ser uma réplica (ver DaoFactory)
+    private DataSource readDataSource;
+
+    public DepartmentDaoJDBC(DataSource dataSource){
+        this.dataSource = dataSource;
+        this.readDataSource = dataSource;
+    }
+
+    public void setReadDataSource(DataSource readDataSource) {
+        this.readDataSource = readDataSource;
     }
 
     @Override
     public void insert(Department department) {
+        Connection connection = null;
         PreparedStatement preparedStatement = null;
         ResultSet resultSet = null;
 
         try{
-            preparedStatement = connection.prepareStatement("INSERT INTO department (Name) VALUES (?)");
+            connection = dataSource.getConnection();
+            preparedStatement = connection.prepareStatement("INSERT INTO department (Name) VALUES (?)",
+                    Statement.RETURN_GENERATED_KEYS);
             preparedStatement.setString(1,department.getName());
 
             int rowsAffected = preparedStatement.executeUpdate();
@@ -36,6 +59,7 @@ public class DepartmentDaoJDBC implements DepartmentDao {
                 if(result.next()){
                     int id = result.getInt(1);
                     department.setId(id);
+                    department.setVersion(0);
                 }else {
                     throw new DbException("Unexpected error! No rows affected");
                 }
@@ -43,37 +67,49 @@ public class DepartmentDaoJDBC implements DepartmentDao {
             }
         }
         catch (SQLException sqlException){
-            throw new DbException(sqlException.getMessage());
+            throw new DbException(sqlException.getMessage(), sqlException);
         }
         finally {
             DB.closeStatement(preparedStatement);
+            DB.closeConnection(connection);
         }
     }
 
     @Override
     public void update(Department department) {
+        Connection connection = null;
         PreparedStatement preparedStatement = null;
         try {
-            preparedStatement = connection.prepareStatement("UPDATE department SET Name = ? WHERE Id = ?");
+            connection = dataSource.getConnection();
+            preparedStatement = connection.prepareStatement(UPDATE_DEPARTMENT);
             preparedStatement.setString(1,department.getName());
             preparedStatement.setInt(2,department.getId());
+            preparedStatement.setInt(3,department.getVersion());
 
-            preparedStatement.executeUpdate();
+            if (preparedStatement.executeUpdate() == 0) {
+                throw new StaleEntityException("Department", department.getId(), department.getVersion());
+            }
+            // dentro de uma Transaction, só depois do commit: se ela for desfeita a versão não muda
+            int version = department.getVersion();
+            Transaction.afterCommit(dataSource, () -> department.setVersion(version + 1));
 
         }
         catch (SQLException sqlException){
-            throw new DbException(sqlException.getMessage());
+            throw new DbException(sqlException.getMessage(), sqlException);
         }
         finally {
             DB.closeStatement(preparedStatement);
+            DB.closeConnection(connection);
         }
     }
 
     @Override
     public void deleteById(Integer id) {
+        Connection connection = null;
         PreparedStatement preparedStatement = null;
         try {
-            preparedStatement = connection.prepareStatement("DELETE FROM department WHERE id = ? ");
+            connection = dataSource.getConnection();
+            preparedStatement = connection.prepareStatement(DELETE_BY_ID);
             preparedStatement.setInt(1,id);
 
             int rows = preparedStatement.executeUpdate();
@@ -83,19 +119,22 @@ public class DepartmentDaoJDBC implements DepartmentDao {
             }
         }
         catch (SQLException sqlException){
-            throw new DbException(sqlException.getMessage());
+            throw new DbException(sqlException.getMessage(), sqlException);
         }
         finally {
             DB.closeStatement(preparedStatement);
+            DB.closeConnection(connection);
         }
     }
 
     @Override
     public Department findById(Integer id) {
+        Connection connection = null;
         PreparedStatement preparedStatement = null;
         ResultSet resultSet = null;
         try {
-            preparedStatement = connection.prepareStatement("SELECT * FROM department WHERE id = ?");
+            connection = readDataSource.getConnection();
+            preparedStatement = connection.prepareStatement(FIND_BY_ID);
             preparedStatement.setInt(1,id);
             resultSet = preparedStatement.executeQuery();
 
@@ -103,25 +142,29 @@ public class DepartmentDaoJDBC implements DepartmentDao {
                 Department obj = new Department();
                 obj.setId(resultSet.getInt("Id"));
                 obj.setName(resultSet.getString("Name"));
+                obj.setVersion(resultSet.getInt("Version"));
                 return obj;
             }
             return null;
         }
         catch (SQLException sqlException){
-            throw new DbException(sqlException.getMessage());
+            throw new DbException(sqlException.getMessage(), sqlException);
         }
         finally {
-            DB.closeStatement(preparedStatement);
             DB.closeResultSet(resultSet);
+            DB.closeStatement(preparedStatement);
+            DB.closeConnection(connection);
         }
     }
 
     @Override
     public List<Department> findAll() {
+        Connection connection = null;
         PreparedStatement preparedStatement = null;
         ResultSet resultSet = null;
         try {
-            preparedStatement = connection.prepareStatement("SELECT * FROM department ORDER BY Name = ? ");
+            connection = readDataSource.getConnection();
+            preparedStatement = connection.prepareStatement(FIND_ALL);
             resultSet = preparedStatement.executeQuery();
 
             List<Department> list = new ArrayList<>();
@@ -129,17 +172,19 @@ public class DepartmentDaoJDBC implements DepartmentDao {
                 Department obj = new Department();
                 obj.setId(resultSet.getInt("id"));
                 obj.setName(resultSet.getString("Name"));
+                obj.setVersion(resultSet.getInt("Version"));
                 list.add(obj);
             }
 
             return list;
 
         }catch (SQLException sqlException){
-            throw new DbException(sqlException.getMessage());
+            throw new DbException(sqlException.getMessage(), sqlException);
         }
         finally {
-            DB.closeStatement(preparedStatement);
             DB.closeResultSet(resultSet);
+            DB.closeStatement(preparedStatement);
+            DB.closeConnection(connection);
         }
     }
 }
@@ -0,0 +1,100 @@
+package model.dao;
+
+import model.entities.Department;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Um Department por id dentro de uma consulta de vendedores: a primeira linha de cada departamento
+// cria (ou pega do CachedDepartmentDao) a instância e as demais linhas reaproveitam.
+// Chaves int em endereçamento aberto, sem o Integer de um HashMap<Integer, Department> a cada
+// linha (o cache de Integer só vai até 127). Uma instância por consulta; não é thread-safe.
+final class DepartmentIdentityMap {
+
+    private int[] keys;
+    // null = posição livre; Department nunca é null aqui
+    private Department[] values;
+    private int size;
+
+    // linhas seguidas do mesmo departamento (ORDER BY DepartmentId) nem chegam a procurar
+    private int lastId;
+    private Department last;
+
+    DepartmentIdentityMap() {
+        keys = new int[16];
+        values = new Department[16];
+    }
+
+    // O Department da linha atual: o já visto com esse id ou um novo, que passa a ser o compartilhado.
+    Department department(ResultSet resultSet, SellerRowMapper mapper) throws SQLException {
+        int id = mapper.departmentId(resultSet);
+        Department department = get(id);
+        if (department == null) {
+            department = mapper.department(resultSet);
+            put(id, department);
+        }
+        return department;
+    }
+
+    Department get(int id) {
+        if (last != null && lastId == id) {
+            return last;
+        }
+        int mask = keys.length - 1;
+        for (int slot = hash(id) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == id) {
+                lastId = id;
+                last = values[slot];
+                return last;
+            }
+        }
+        return null;
+    }
+
+    void put(int id, Department department) {
+        // ocupação máxima de metade da tabela: sondagens curtas
+        if (size * 2 >= keys.length) {
+            resize();
+        }
+        int mask = keys.length - 1;
+        int slot = hash(id) & mask;
+        while (values[slot] != null && keys[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        if (values[slot] == null) {
+            size++;
+        }
+        keys[slot] = id;
+        values[slot] = department;
+        lastId = id;
+        last = department;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        Department[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new Department[oldValues.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    // sem o espalhamento, ids múltiplos do tamanho da tabela (16, 32, 48...) cairiam nas mesmas posições
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
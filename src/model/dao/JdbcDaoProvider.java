@@ -0,0 +1,31 @@
+package model.dao;
+
+import javax.sql.DataSource;
+import java.util.Properties;
+
+// dao.provider=jdbc (padrão): SellerDaoJDBC e DepartmentDaoJDBC.
+class JdbcDaoProvider implements DaoProvider {
+
+    @Override
+    public String getName() {
+        return "jdbc";
+    }
+
+    @Override
+    public SellerDao createSellerDao(DataSource dataSource, DataSource readDataSource, Properties properties) {
+        SellerDaoJDBC sellerDao = new SellerDaoJDBC(dataSource);
+        sellerDao.setReadDataSource(readDataSource);
+        sellerDao.setBatchSize(Integer.parseInt(properties.getProperty("dao.batchSize", "500")));
+        sellerDao.setInListSize(Integer.parseInt(properties.getProperty("dao.inListSize", "1000")));
+        sellerDao.setFetchSize(Integer.parseInt(properties.getProperty("dao.fetchSize",
+                String.valueOf(Integer.MIN_VALUE))));
+        return sellerDao;
+    }
+
+    @Override
+    public DepartmentDao createDepartmentDao(DataSource dataSource, DataSource readDataSource, Properties properties) {
+        DepartmentDaoJDBC departmentDao = new DepartmentDaoJDBC(dataSource);
+        departmentDao.setReadDataSource(readDataSource);
+        return departmentDao;
+    }
+}
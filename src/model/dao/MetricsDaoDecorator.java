@@ -0,0 +1,77 @@
+package model.dao;
+
+import db.OperationMetrics;
+import db.QueryMetrics;
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.util.Properties;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+// dao.decorators=metrics: cada método dos DAOs vira uma operação em QueryMetrics
+// ("seller.findAll", "department.update"...), com tempo, linhas, bytes e erros por tipo.
+// Também liga os exportadores configurados em metrics.* (JMX, arquivo, slow-query log).
+class MetricsDaoDecorator implements DaoDecorator {
+
+    @Override
+    public String getName() {
+        return "metrics";
+    }
+
+    @Override
+    public SellerDao decorate(SellerDao sellerDao, Properties properties) {
+        QueryMetrics.get().start(properties);
+        return new MetricsSellerDao(sellerDao);
+    }
+
+    @Override
+    public DepartmentDao decorate(DepartmentDao departmentDao, Properties properties) {
+        QueryMetrics.get().start(properties);
+        return new MetricsDepartmentDao(departmentDao);
+    }
+
+    static <T> T measure(OperationMetrics metrics, Supplier<T> call, ToLongFunction<T> rows, ToLongFunction<T> bytes) {
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            metrics.recordError(System.nanoTime() - start, e);
+            throw e;
+        }
+        metrics.record(System.nanoTime() - start, rows.applyAsLong(result), bytes.applyAsLong(result));
+        return result;
+    }
+
+    static void measure(OperationMetrics metrics, Runnable call, long rows) {
+        long start = System.nanoTime();
+        try {
+            call.run();
+        } catch (RuntimeException e) {
+            metrics.recordError(System.nanoTime() - start, e);
+            throw e;
+        }
+        metrics.record(System.nanoTime() - start, rows, 0);
+    }
+
+    // Estimativa do que veio do banco: texto pelo tamanho, os outros campos pelo tipo.
+    static long bytes(Seller seller) {
+        if (seller == null) {
+            return 0;
+        }
+        return 4 + length(seller.getName()) + length(seller.getEmail()) + 8 + 8 + 4
+                + bytes(seller.getDepartment());
+    }
+
+    static long bytes(Department department) {
+        if (department == null) {
+            return 0;
+        }
+        return 4 + length(department.getName()) + 4;
+    }
+
+    private static long length(String text) {
+        return text == null ? 0 : text.length();
+    }
+}
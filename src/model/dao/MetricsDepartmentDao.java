@@ -0,0 +1,64 @@
+package model.dao;
+
+import db.OperationMetrics;
+import db.QueryMetrics;
+import model.entities.Department;
+
+import java.util.List;
+
+import static model.dao.MetricsDaoDecorator.bytes;
+import static model.dao.MetricsDaoDecorator.measure;
+
+// Mede cada método do DepartmentDao envolvido; ver MetricsDaoDecorator.
+class MetricsDepartmentDao implements DepartmentDao {
+
+    private final DepartmentDao departmentDao;
+
+    private final OperationMetrics insert = operation("insert");
+    private final OperationMetrics update = operation("update");
+    private final OperationMetrics deleteById = operation("deleteById");
+    private final OperationMetrics findById = operation("findById");
+    private final OperationMetrics findAll = operation("findAll");
+
+    MetricsDepartmentDao(DepartmentDao departmentDao) {
+        this.departmentDao = departmentDao;
+    }
+
+    private static OperationMetrics operation(String method) {
+        return QueryMetrics.get().operation("department." + method);
+    }
+
+    @Override
+    public void insert(Department department) {
+        measure(insert, () -> departmentDao.insert(department), 1);
+    }
+
+    @Override
+    public void update(Department department) {
+        measure(update, () -> departmentDao.update(department), 1);
+    }
+
+    @Override
+    public void deleteById(Integer id) {
+        measure(deleteById, () -> departmentDao.deleteById(id), 1);
+    }
+
+    @Override
+    public Department findById(Integer id) {
+        return measure(findById, () -> departmentDao.findById(id),
+                department -> department == null ? 0 : 1, MetricsDaoDecorator::bytes);
+    }
+
+    @Override
+    public List<Department> findAll() {
+        return measure(findAll, departmentDao::findAll, List::size, MetricsDepartmentDao::totalBytes);
+    }
+
+    private static long totalBytes(List<Department> departments) {
+        long total = 0;
+        for (Department department : departments) {
+            total += bytes(department);
+        }
+        return total;
+    }
+}
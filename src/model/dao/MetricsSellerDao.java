@@ -0,0 +1,187 @@
+package model.dao;
+
+import db.OperationMetrics;
+import db.QueryMetrics;
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static model.dao.MetricsDaoDecorator.bytes;
+import static model.dao.MetricsDaoDecorator.measure;
+
+// Mede cada método do SellerDao envolvido; ver MetricsDaoDecorator.
+// As sobrecargas de findPage/count têm nomes próprios ("findPageAt" para offset, "query.*" com filtro).
+class MetricsSellerDao implements SellerDao {
+
+    private final SellerDao sellerDao;
+
+    private final OperationMetrics insert = operation("insert");
+    private final OperationMetrics update = operation("update");
+    private final OperationMetrics insertAll = operation("insertAll");
+    private final OperationMetrics updateAll = operation("updateAll");
+    private final OperationMetrics deleteById = operation("deleteById");
+    private final OperationMetrics findById = operation("findById");
+    private final OperationMetrics findAll = operation("findAll");
+    private final OperationMetrics findByDepartment = operation("findByDepartment");
+    private final OperationMetrics findByDepartments = operation("findByDepartments");
+    private final OperationMetrics findPage = operation("findPage");
+    private final OperationMetrics findPageAt = operation("findPageAt");
+    private final OperationMetrics count = operation("count");
+    private final OperationMetrics queryFindPage = operation("query.findPage");
+    private final OperationMetrics queryFindPageAt = operation("query.findPageAt");
+    private final OperationMetrics queryCount = operation("query.count");
+    private final OperationMetrics streamAll = operation("streamAll");
+    private final OperationMetrics queryStream = operation("query.stream");
+    private final OperationMetrics forEach = operation("forEach");
+
+    MetricsSellerDao(SellerDao sellerDao) {
+        this.sellerDao = sellerDao;
+    }
+
+    private static OperationMetrics operation(String method) {
+        return QueryMetrics.get().operation("seller." + method);
+    }
+
+    @Override
+    public void insert(Seller seller) {
+        measure(insert, () -> sellerDao.insert(seller), 1);
+    }
+
+    @Override
+    public void update(Seller seller) {
+        measure(update, () -> sellerDao.update(seller), 1);
+    }
+
+    @Override
+    public void insertAll(Collection<Seller> sellers) {
+        measure(insertAll, () -> sellerDao.insertAll(sellers), sellers.size());
+    }
+
+    @Override
+    public void updateAll(Collection<Seller> sellers) {
+        measure(updateAll, () -> sellerDao.updateAll(sellers), sellers.size());
+    }
+
+    @Override
+    public void deleteById(Integer id) {
+        measure(deleteById, () -> sellerDao.deleteById(id), 1);
+    }
+
+    @Override
+    public Seller findById(Integer id) {
+        return measure(findById, () -> sellerDao.findById(id),
+                seller -> seller == null ? 0 : 1, MetricsDaoDecorator::bytes);
+    }
+
+    @Override
+    public List<Seller> findAll() {
+        return measure(findAll, sellerDao::findAll, List::size, MetricsSellerDao::totalBytes);
+    }
+
+    @Override
+    public List<Seller> findByDepartment(Department department) {
+        return measure(findByDepartment, () -> sellerDao.findByDepartment(department),
+                List::size, MetricsSellerDao::totalBytes);
+    }
+
+    @Override
+    public Map<Integer, List<Seller>> findByDepartments(Collection<Integer> departmentIds) {
+        return measure(findByDepartments, () -> sellerDao.findByDepartments(departmentIds),
+                map -> map.values().stream().mapToLong(List::size).sum(),
+                map -> map.values().stream().mapToLong(MetricsSellerDao::totalBytes).sum());
+    }
+
+    @Override
+    public List<Seller> findPage(Seller anchor, int pageSize, PageDirection direction) {
+        return measure(findPage, () -> sellerDao.findPage(anchor, pageSize, direction),
+                List::size, MetricsSellerDao::totalBytes);
+    }
+
+    @Override
+    public List<Seller> findPage(int offset, int pageSize) {
+        return measure(findPageAt, () -> sellerDao.findPage(offset, pageSize),
+                List::size, MetricsSellerDao::totalBytes);
+    }
+
+    @Override
+    public int count() {
+        return measure(count, sellerDao::count, total -> 1, total -> 4);
+    }
+
+    @Override
+    public List<Seller> findPage(SellerQuery query, Seller anchor, int pageSize, PageDirection direction) {
+        return measure(queryFindPage, () -> sellerDao.findPage(query, anchor, pageSize, direction),
+                List::size, MetricsSellerDao::totalBytes);
+    }
+
+    @Override
+    public List<Seller> findPage(SellerQuery query, int offset, int pageSize) {
+        return measure(queryFindPageAt, () -> sellerDao.findPage(query, offset, pageSize),
+                List::size, MetricsSellerDao::totalBytes);
+    }
+
+    @Override
+    public int count(SellerQuery query) {
+        return measure(queryCount, () -> sellerDao.count(query), total -> 1, total -> 4);
+    }
+
+    @Override
+    public Stream<Seller> streamAll() {
+        return measureStream(streamAll, sellerDao::streamAll);
+    }
+
+    @Override
+    public Stream<Seller> stream(SellerQuery query) {
+        return measureStream(queryStream, () -> sellerDao.stream(query));
+    }
+
+    @Override
+    public void forEach(Consumer<Seller> action) {
+        long start = System.nanoTime();
+        long[] totals = new long[2];
+        try {
+            sellerDao.forEach(seller -> {
+                totals[0]++;
+                totals[1] += bytes(seller);
+                action.accept(seller);
+            });
+        } catch (RuntimeException e) {
+            forEach.recordError(System.nanoTime() - start, e);
+            throw e;
+        }
+        forEach.record(System.nanoTime() - start, totals[0], totals[1]);
+    }
+
+    // O tempo vai da abertura até o close() do Stream.
+    private static Stream<Seller> measureStream(OperationMetrics metrics, Supplier<Stream<Seller>> open) {
+        long start = System.nanoTime();
+        Stream<Seller> stream;
+        try {
+            stream = open.get();
+        } catch (RuntimeException e) {
+            metrics.recordError(System.nanoTime() - start, e);
+            throw e;
+        }
+        long[] totals = new long[2];
+        return stream
+                .peek(seller -> {
+                    totals[0]++;
+                    totals[1] += bytes(seller);
+                })
+                .onClose(() -> metrics.record(System.nanoTime() - start, totals[0], totals[1]));
+    }
+
+    private static long totalBytes(List<Seller> sellers) {
+        long total = 0;
+        for (Seller seller : sellers) {
+            total += bytes(seller);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,51 @@
+package model.dao;
+
+import model.entities.Department;
+
+import java.util.List;
+
+// Mesmo esquema do OfflineSellerDao para os departamentos.
+public class OfflineDepartmentDao implements DepartmentDao {
+
+    private final DepartmentDao remote;
+    private final DepartmentDao local;
+    private final OfflineStore store;
+
+    public OfflineDepartmentDao(DepartmentDao remote, DepartmentDao local, OfflineStore store) {
+        this.remote = remote;
+        this.local = local;
+        this.store = store;
+    }
+
+    private DepartmentDao reads() {
+        return store.isReady() ? local : remote;
+    }
+
+    @Override
+    public void insert(Department department) {
+        remote.insert(department);
+        store.saveDepartment(department);
+    }
+
+    @Override
+    public void update(Department department) {
+        remote.update(department);
+        store.saveDepartment(department);
+    }
+
+    @Override
+    public void deleteById(Integer id) {
+        remote.deleteById(id);
+        store.deleteDepartment(id);
+    }
+
+    @Override
+    public Department findById(Integer id) {
+        return reads().findById(id);
+    }
+
+    @Override
+    public List<Department> findAll() {
+        return reads().findAll();
+    }
+}
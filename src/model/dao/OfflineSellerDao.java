@@ -0,0 +1,129 @@
+package model.dao;
+
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Leituras na cópia local do OfflineStore, gravações no servidor. Cada gravação bem-sucedida é
+// repetida na cópia local, para que a tela enxergue o que acabou de salvar. Enquanto a primeira
+// sincronização não termina, as leituras ainda vão para o servidor.
+public class OfflineSellerDao implements SellerDao {
+
+    private final SellerDao remote;
+    private final SellerDao local;
+    private final OfflineStore store;
+
+    public OfflineSellerDao(SellerDao remote, SellerDao local, OfflineStore store) {
+        this.remote = remote;
+        this.local = local;
+        this.store = store;
+    }
+
+    private SellerDao reads() {
+        return store.isReady() ? local : remote;
+    }
+
+    @Override
+    public void insert(Seller seller) {
+        remote.insert(seller);
+        store.saveSeller(seller);
+    }
+
+    @Override
+    public void update(Seller seller) {
+        remote.update(seller);
+        store.saveSeller(seller);
+    }
+
+    @Override
+    public void insertAll(Collection<Seller> sellers) {
+        remote.insertAll(sellers);
+        for (Seller seller : sellers) {
+            store.saveSeller(seller);
+        }
+    }
+
+    @Override
+    public void updateAll(Collection<Seller> sellers) {
+        remote.updateAll(sellers);
+        for (Seller seller : sellers) {
+            store.saveSeller(seller);
+        }
+    }
+
+    @Override
+    public void deleteById(Integer id) {
+        remote.deleteById(id);
+        store.deleteSeller(id);
+    }
+
+    @Override
+    public Seller findById(Integer id) {
+        return reads().findById(id);
+    }
+
+    @Override
+    public List<Seller> findAll() {
+        return reads().findAll();
+    }
+
+    @Override
+    public List<Seller> findByDepartment(Department department) {
+        return reads().findByDepartment(department);
+    }
+
+    @Override
+    public Map<Integer, List<Seller>> findByDepartments(Collection<Integer> departmentIds) {
+        return reads().findByDepartments(departmentIds);
+    }
+
+    @Override
+    public List<Seller> findPage(Seller anchor, int pageSize, PageDirection direction) {
+        return reads().findPage(anchor, pageSize, direction);
+    }
+
+    @Override
+    public List<Seller> findPage(int offset, int pageSize) {
+        return reads().findPage(offset, pageSize);
+    }
+
+    @Override
+    public int count() {
+        return reads().count();
+    }
+
+    @Override
+    public List<Seller> findPage(SellerQuery query, Seller anchor, int pageSize, PageDirection direction) {
+        return reads().findPage(query, anchor, pageSize, direction);
+    }
+
+    @Override
+    public List<Seller> findPage(SellerQuery query, int offset, int pageSize) {
+        return reads().findPage(query, offset, pageSize);
+    }
+
+    @Override
+    public int count(SellerQuery query) {
+        return reads().count(query);
+    }
+
+    @Override
+    public Stream<Seller> streamAll() {
+        return reads().streamAll();
+    }
+
+    @Override
+    public Stream<Seller> stream(SellerQuery query) {
+        return reads().stream(query);
+    }
+
+    @Override
+    public void forEach(Consumer<Seller> action) {
+        reads().forEach(action);
+    }
+}
@@ -0,0 +1,384 @@
+package model.dao;
+
+import db.ConnectionPool;
+import db.DB;
+import db.DbException;
+import model.entities.Department;
+import model.entities.Seller;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Cópia local (H2 em arquivo) das tabelas seller e department, usada pelos Offline*Dao para
+// responder às leituras sem ir ao servidor. Na abertura já serve o que foi sincronizado na
+// execução anterior; uma thread traz do servidor só as linhas com LastModified a partir da
+// última marca d'água. Linhas apagadas no servidor não aparecem nessa consulta, então de tempos
+// em tempos (offline.reconcileMillis) os ids dos dois lados são comparados.
+// O servidor pode estar fora do ar na abertura: cada sincronização que falha fica para a próxima,
+// e o serverSetup (as migrações do servidor) roda antes da primeira que consegue conectar.
+public class OfflineStore {
+
+    private static final Logger LOGGER = Logger.getLogger(OfflineStore.class.getName());
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS department (\n" +
+            "  Id INT NOT NULL,\n" +
+            "  Name VARCHAR(60) DEFAULT NULL,\n" +
+            "  Version INT NOT NULL DEFAULT 0,\n" +
+            "  PRIMARY KEY (Id)\n" +
+            ")",
+            "CREATE TABLE IF NOT EXISTS seller (\n" +
+            "  Id INT NOT NULL,\n" +
+            "  Name VARCHAR(60) NOT NULL,\n" +
+            "  Email VARCHAR(100) NOT NULL,\n" +
+            "  BirthDate DATETIME NOT NULL,\n" +
+            "  BaseSalary DOUBLE NOT NULL,\n" +
+            "  DepartmentId INT NOT NULL,\n" +
+            "  Version INT NOT NULL DEFAULT 0,\n" +
+            "  PRIMARY KEY (Id)\n" +
+            ")",
+            "CREATE INDEX IF NOT EXISTS idx_seller_department_name ON seller (DepartmentId, Name)",
+            "CREATE INDEX IF NOT EXISTS idx_seller_name_id ON seller (Name, Id)",
+            "CREATE TABLE IF NOT EXISTS sync_state (\n" +
+            "  TableName VARCHAR(30) NOT NULL,\n" +
+            "  Watermark TIMESTAMP(3) NOT NULL,\n" +
+            "  PRIMARY KEY (TableName)\n" +
+            ")"
+    };
+
+    private static final String DEPARTMENT_COLUMNS = "Id, Name, Version";
+
+    private static final String SELLER_COLUMNS = "Id, Name, Email, BirthDate, BaseSalary, DepartmentId, Version";
+
+    private static final int SYNC_BATCH_SIZE = 500;
+
+    private final DataSource server;
+    private final ConnectionPool local;
+    private final int fetchSize;
+    private final long overlapMillis;
+    private final long reconcileMillis;
+
+    private volatile boolean ready;
+    private long lastReconcileAt;
+
+    private Runnable serverSetup;
+    private boolean serverSetupDone;
+
+    private final List<Runnable> syncListeners = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService syncer;
+
+    public OfflineStore(DataSource server, ConnectionPool local, Properties properties) {
+        this.server = server;
+        this.local = local;
+        this.fetchSize = Integer.parseInt(properties.getProperty("dao.fetchSize", String.valueOf(Integer.MIN_VALUE)));
+        // commits que terminam depois de outros mais novos: relê esse intervalo a cada sincronização
+        this.overlapMillis = Long.parseLong(properties.getProperty("offline.syncOverlapMillis", "5000"));
+        this.reconcileMillis = Long.parseLong(properties.getProperty("offline.reconcileMillis", "300000"));
+        createSchema();
+        ready = watermark("seller") != null;
+    }
+
+    public DataSource getLocalDataSource() {
+        return local;
+    }
+
+    // true quando já existe uma cópia completa, desta execução ou de uma anterior.
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Chamado antes de start().
+    public synchronized void setServerSetup(Runnable serverSetup) {
+        this.serverSetup = serverSetup;
+    }
+
+    // Sincroniza agora e depois a cada periodMillis, em segundo plano.
+    public synchronized void start(long periodMillis) {
+        if (syncer != null) {
+            return;
+        }
+        syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "offline-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncer.scheduleWithFixedDelay(() -> {
+            try {
+                sync();
+            } catch (RuntimeException e) {
+                // servidor fora do ar: as leituras continuam na cópia local
+                LOGGER.log(Level.WARNING, "Offline store sync failed: " + e.getMessage());
+            }
+        }, 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (syncer != null) {
+            syncer.shutdownNow();
+            syncer = null;
+        }
+        local.shutdown();
+    }
+
+    // Chamado depois de cada sincronização que mudou alguma linha.
+    public void addSyncListener(Runnable listener) {
+        syncListeners.add(listener);
+    }
+
+    public void removeSyncListener(Runnable listener) {
+        syncListeners.remove(listener);
+    }
+
+    // Traz as mudanças do servidor e devolve quantas linhas locais mudaram.
+    public int sync() {
+        int changed;
+        synchronized (this) {
+            Connection serverConnection = null;
+            Connection localConnection = null;
+            try {
+                serverConnection = server.getConnection();
+                if (serverSetup != null && !serverSetupDone) {
+                    // se falhar, tenta de novo na próxima sincronização
+                    serverSetup.run();
+                    serverSetupDone = true;
+                }
+                localConnection = local.getConnection();
+                localConnection.setAutoCommit(false);
+
+                boolean reconcile = !ready || System.currentTimeMillis() - lastReconcileAt >= reconcileMillis;
+                changed = copyChanged(serverConnection, localConnection, "department", DEPARTMENT_COLUMNS);
+                changed += copyChanged(serverConnection, localConnection, "seller", SELLER_COLUMNS);
+                if (reconcile) {
+                    changed += removeDeleted(serverConnection, localConnection, "department");
+                    changed += removeDeleted(serverConnection, localConnection, "seller");
+                }
+                localConnection.commit();
+                if (reconcile) {
+                    lastReconcileAt = System.currentTimeMillis();
+                }
+                ready = true;
+            }
+            catch (SQLException e) {
+                rollback(localConnection);
+                throw new DbException(e.getMessage());
+            }
+            finally {
+                DB.closeConnection(localConnection);
+                DB.closeConnection(serverConnection);
+            }
+        }
+        if (changed > 0) {
+            for (Runnable listener : syncListeners) {
+                listener.run();
+            }
+        }
+        return changed;
+    }
+
+    // Grava na cópia local o que acabou de ser gravado no servidor, sem esperar a sincronização.
+    void saveSeller(Seller seller) {
+        mirror("MERGE INTO seller (" + SELLER_COLUMNS + ") KEY (Id) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                seller.getId(), seller.getName(), seller.getEmail(),
+                new Timestamp(seller.getBirthDate().getTime()), seller.getBaseSalary(),
+                seller.getDepartment().getId(), seller.getVersion());
+    }
+
+    void deleteSeller(Integer id) {
+        mirror("DELETE FROM seller WHERE Id = ?", id);
+    }
+
+    void saveDepartment(Department department) {
+        mirror("MERGE INTO department (" + DEPARTMENT_COLUMNS + ") KEY (Id) VALUES (?, ?, ?)",
+                department.getId(), department.getName(), department.getVersion());
+    }
+
+    void deleteDepartment(Integer id) {
+        mirror("DELETE FROM department WHERE Id = ?", id);
+    }
+
+    private void mirror(String sql, Object... parameters) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        try {
+            connection = local.getConnection();
+            preparedStatement = connection.prepareStatement(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                preparedStatement.setObject(i + 1, parameters[i]);
+            }
+            preparedStatement.executeUpdate();
+        }
+        catch (SQLException e) {
+            // o servidor já gravou; a próxima sincronização corrige a cópia local
+            LOGGER.log(Level.WARNING, "Could not update the offline store: " + e.getMessage());
+        }
+        finally {
+            DB.closeStatement(preparedStatement);
+            DB.closeConnection(connection);
+        }
+    }
+
+    private int copyChanged(Connection serverConnection, Connection localConnection, String table,
+                            String columns) throws SQLException {
+        Timestamp watermark = watermark(localConnection, table);
+        Timestamp since = watermark == null ? new Timestamp(0L)
+                : new Timestamp(watermark.getTime() - overlapMillis);
+        int columnCount = columns.split(",").length;
+
+        PreparedStatement select = null;
+        PreparedStatement merge = null;
+        ResultSet resultSet = null;
+        try {
+            select = serverConnection.prepareStatement("SELECT " + columns + ", LastModified FROM " + table
+                    + " WHERE LastModified >= ? ORDER BY LastModified");
+            select.setFetchSize(fetchSize);
+            select.setTimestamp(1, since);
+            merge = localConnection.prepareStatement("MERGE INTO " + table + " (" + columns + ") KEY (Id) VALUES ("
+                    + "?, ".repeat(columnCount - 1) + "?)");
+
+            resultSet = select.executeQuery();
+            int rows = 0;
+            // as linhas relidas pela sobreposição já estavam aqui; só as posteriores contam como mudança
+            int changed = 0;
+            Timestamp newest = watermark;
+            while (resultSet.next()) {
+                for (int i = 1; i <= columnCount; i++) {
+                    merge.setObject(i, resultSet.getObject(i));
+                }
+                merge.addBatch();
+                if (++rows % SYNC_BATCH_SIZE == 0) {
+                    merge.executeBatch();
+                }
+                Timestamp lastModified = resultSet.getTimestamp(columnCount + 1);
+                if (watermark == null || lastModified.after(watermark)) {
+                    changed++;
+                }
+                if (newest == null || lastModified.after(newest)) {
+                    newest = lastModified;
+                }
+            }
+            if (rows % SYNC_BATCH_SIZE != 0) {
+                merge.executeBatch();
+            }
+            if (newest != null && !newest.equals(watermark)) {
+                saveWatermark(localConnection, table, newest);
+            } else if (watermark == null) {
+                // tabela vazia no servidor: a cópia também está completa
+                saveWatermark(localConnection, table, new Timestamp(0L));
+            }
+            return changed;
+        }
+        finally {
+            DB.closeResultSet(resultSet);
+            DB.closeStatement(merge);
+            DB.closeStatement(select);
+        }
+    }
+
+    // Apaga da cópia local os ids que não existem mais no servidor.
+    private int removeDeleted(Connection serverConnection, Connection localConnection, String table)
+            throws SQLException {
+        BitSet serverIds = new BitSet();
+        try (Statement statement = serverConnection.createStatement()) {
+            statement.setFetchSize(fetchSize);
+            try (ResultSet resultSet = statement.executeQuery("SELECT Id FROM " + table)) {
+                while (resultSet.next()) {
+                    serverIds.set(resultSet.getInt(1));
+                }
+            }
+        }
+        int removed = 0;
+        try (Statement statement = localConnection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT Id FROM " + table);
+             PreparedStatement delete = localConnection.prepareStatement("DELETE FROM " + table + " WHERE Id = ?")) {
+            while (resultSet.next()) {
+                int id = resultSet.getInt(1);
+                if (!serverIds.get(id)) {
+                    delete.setInt(1, id);
+                    delete.addBatch();
+                    removed++;
+                }
+            }
+            if (removed > 0) {
+                delete.executeBatch();
+            }
+        }
+        return removed;
+    }
+
+    private Timestamp watermark(String table) {
+        Connection connection = null;
+        try {
+            connection = local.getConnection();
+            return watermark(connection, table);
+        }
+        catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+        finally {
+            DB.closeConnection(connection);
+        }
+    }
+
+    private static Timestamp watermark(Connection connection, String table) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(
+                "SELECT Watermark FROM sync_state WHERE TableName = ?")) {
+            preparedStatement.setString(1, table);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                return resultSet.next() ? resultSet.getTimestamp(1) : null;
+            }
+        }
+    }
+
+    private static void saveWatermark(Connection connection, String table, Timestamp watermark) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(
+                "MERGE INTO sync_state (TableName, Watermark) KEY (TableName) VALUES (?, ?)")) {
+            preparedStatement.setString(1, table);
+            preparedStatement.setTimestamp(2, watermark);
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    private void createSchema() {
+        Connection connection = null;
+        Statement statement = null;
+        try {
+            connection = local.getConnection();
+            statement = connection.createStatement();
+            for (String sql : SCHEMA) {
+                statement.execute(sql);
+            }
+        }
+        catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+        finally {
+            DB.closeStatement(statement);
+            DB.closeConnection(connection);
+        }
+    }
+
+    private static void rollback(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+                // o erro original é o que interessa
+            }
+        }
+    }
+}
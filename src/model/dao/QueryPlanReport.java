@@ -0,0 +1,102 @@
+package model.dao;
+
+import db.DB;
+import db.DbException;
+import db.SchemaMigrator;
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.io.PrintStream;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+// Dry-run do schema: lista as migrações pendentes e o EXPLAIN de cada consulta dos DAOs,
+// com parâmetros de exemplo. Não altera o banco.
+// "gradle :app:explainQueries" roda este main a partir de src/, usando o db.properties.
+public class QueryPlanReport {
+
+    public static void print(SchemaMigrator migrator, PrintStream out) {
+        migrator.printPending(out);
+        out.println();
+
+        explain(migrator, out, "DepartmentDao.findById", DepartmentDaoJDBC.FIND_BY_ID, 1);
+        explain(migrator, out, "DepartmentDao.findAll", DepartmentDaoJDBC.FIND_ALL);
+        explain(migrator, out, "DepartmentDao.update", DepartmentDaoJDBC.UPDATE_DEPARTMENT, "Name", 1, 0);
+        explain(migrator, out, "DepartmentDao.deleteById", DepartmentDaoJDBC.DELETE_BY_ID, 1);
+
+        explain(migrator, out, "SellerDao.findById", SellerDaoJDBC.FIND_BY_ID, 1);
+        explain(migrator, out, "SellerDao.findAll", SellerDaoJDBC.FIND_ALL);
+        explain(migrator, out, "SellerDao.findByDepartment", SellerDaoJDBC.FIND_BY_DEPARTMENT, 1);
+        explain(migrator, out, "SellerDao.findByDepartments", SellerDaoJDBC.findByDepartmentsSql(4), 1, 2, 3, 4);
+        explain(migrator, out, "SellerDao.streamAll", SellerDaoJDBC.STREAM_ALL);
+        explain(migrator, out, "SellerDao.update", SellerDaoJDBC.UPDATE_SELLER,
+                "Name", "name@example.com", new Timestamp(0L), 1000.0, 1, 1, 0);
+        explain(migrator, out, "SellerDao.deleteById", SellerDaoJDBC.DELETE_BY_ID, 1);
+
+        // uma âncora qualquer: o plano não depende dos valores
+        Seller anchor = new Seller(1, "M", "m@example.com", new Date(0L), 1000.0, new Department(1, "D"));
+        for (SellerQuery.SortColumn sortColumn : SellerQuery.SortColumn.values()) {
+            SellerQuery query = new SellerQuery();
+            query.setSortColumn(sortColumn);
+            explainPage(migrator, out, "SellerDao.findPage keyset by " + sortColumn, query, anchor);
+        }
+
+        SellerQuery filtered = new SellerQuery();
+        filtered.setNamePrefix("M");
+        filtered.setDepartmentIds(Set.of(1, 2));
+        explainPage(migrator, out, "SellerDao.findPage keyset filtered", filtered, anchor);
+
+        List<Object> parameters = new ArrayList<>();
+        String sql = SellerDaoJDBC.pageSql(new SellerQuery(), 1000, 100, parameters);
+        explain(migrator, out, "SellerDao.findPage offset", sql, parameters.toArray());
+
+        parameters = new ArrayList<>();
+        sql = SellerDaoJDBC.countSql(filtered, parameters);
+        explain(migrator, out, "SellerDao.count filtered", sql, parameters.toArray());
+
+        parameters = new ArrayList<>();
+        sql = SellerDaoJDBC.streamSql(filtered, parameters);
+        explain(migrator, out, "SellerDao.stream filtered", sql, parameters.toArray());
+
+        Object[] ageLimits = SellerStatsDaoJDBC.ageLimits(LocalDate.now());
+        explain(migrator, out, "SellerStatsDao.findAll", SellerStatsDaoJDBC.FIND_ALL, ageLimits);
+        explain(migrator, out, "SellerStatsDao.findAll summary", SellerStatsDaoJDBC.FIND_SUMMARY);
+        parameters = new ArrayList<>(List.of(ageLimits));
+        parameters.add(LocalDate.now());
+        parameters.add(1);
+        explain(migrator, out, "SellerStatsDao.refresh", SellerStatsDaoJDBC.INSERT_SUMMARY
+                + "WHERE DepartmentId IN (?)\nGROUP BY DepartmentId", parameters.toArray());
+    }
+
+    private static void explainPage(SchemaMigrator migrator, PrintStream out, String label,
+                                    SellerQuery query, Seller anchor) {
+        List<Object> parameters = new ArrayList<>();
+        String sql = SellerDaoJDBC.pageSql(query, anchor, 100, PageDirection.FORWARD, parameters);
+        explain(migrator, out, label, sql, parameters.toArray());
+    }
+
+    // Em um banco ainda sem as tabelas o EXPLAIN falha; o relatório segue com as outras consultas.
+    private static void explain(SchemaMigrator migrator, PrintStream out, String label, String sql,
+                                Object... parameters) {
+        try {
+            migrator.explain(out, label, sql, parameters);
+        }
+        catch (DbException e) {
+            out.println("!! " + e.getMessage());
+            out.println();
+        }
+    }
+
+    public static void main(String[] args) {
+        try {
+            print(new SchemaMigrator(DB.getDataSource()), System.out);
+        }
+        finally {
+            DB.closeConnection();
+        }
+    }
+}
@@ -3,14 +3,46 @@ package model.dao;
 import model.entities.Department;
 import model.entities.Seller;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface SellerDao {
 
     void insert(Seller seller);
     void update(Seller seller);
+
+    // Gravação em lotes numa única transação; insertAll preenche os ids gerados.
+    void insertAll(Collection<Seller> sellers);
+    void updateAll(Collection<Seller> sellers);
+
     void deleteById (Integer id);
     Seller findById(Integer id);
     List<Seller> findAll();
     List<Seller> findByDepartment(Department department);
+
+    // Vendedores de vários departamentos de uma vez, por nome dentro de cada um. Toda id pedida vira
+    // uma chave, na ordem recebida, com lista vazia se o departamento não tiver vendedores; linhas
+    // do mesmo departamento compartilham a mesma instância de Department.
+    Map<Integer, List<Seller>> findByDepartments(Collection<Integer> departmentIds);
+
+    // Paginação por keyset ordenada por (Name, Id); anchor é a última linha (FORWARD)
+    // ou a primeira linha (BACKWARD) da página já carregada, ou null para começar de uma ponta.
+    List<Seller> findPage(Seller anchor, int pageSize, PageDirection direction);
+    List<Seller> findPage(int offset, int pageSize);
+    int count();
+
+    // Mesma paginação, filtrada e ordenada no servidor conforme o SellerQuery.
+    List<Seller> findPage(SellerQuery query, Seller anchor, int pageSize, PageDirection direction);
+    List<Seller> findPage(SellerQuery query, int offset, int pageSize);
+    int count(SellerQuery query);
+
+    // Percorre todos os vendedores sem montar a lista inteira em memória.
+    // O Stream segura uma conexão até ser fechado, então use try-with-resources.
+    Stream<Seller> streamAll();
+    // Como streamAll, mas filtrado e ordenado conforme o SellerQuery (exportação da lista).
+    Stream<Seller> stream(SellerQuery query);
+    void forEach(Consumer<Seller> action);
 }
@@ -2,95 +2,434 @@ package model.dao;
 
 import db.DB;
 import db.DbException;
+import db.StaleEntityException;
+import db.Transaction;
 import model.dao.SellerDao;
 import model.entities.Department;
 import model.entities.Seller;
 
+import javax.sql.DataSource;
 import java.sql.*;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class SellerDaoJDBC implements SellerDao {
 
-    private Connection connection;
+    private static final String INSERT_SELLER = "INSERT INTO seller\n" +
+            "(Name, Email, BirthDate, BaseSalary, DepartmentId)\n" +
+            "VALUES\n" +
+            "(?, ?, ?, ?, ?)";
 
-    public SellerDaoJDBC(Connection connection){
-        this.connection = connection;
+    // update com todas as colunas; o update de verdade grava só os campos alterados (updateSql)
+    static final String UPDATE_SELLER = updateSql(EnumSet.allOf(Seller.Field.class));
+
+    private static final String SELECT_SELLER = "SELECT seller.*,department.Name as DepName\n" +
+            "FROM seller INNER JOIN department\n" +
+            "ON seller.DepartmentId = department.Id\n";
+
+    static final String FIND_BY_ID = "" +
+            "SELECT seller.*, department.Name as DepName FROM seller INNER JOIN department ON seller.DepartmentId = department.id WHERE seller.Id = ?";
+
+    static final String FIND_ALL = "SELECT seller.*,department.Name as DepName\n" +
+            "FROM seller INNER JOIN department\n" +
+            "ON seller.DepartmentId = department.Id\n" +
+            "ORDER BY Name";
+
+    static final String FIND_BY_DEPARTMENT = "SELECT seller.*,department.Name as DepName\n" +
+            "FROM seller INNER JOIN department\n" +
+            "ON seller.DepartmentId = department.Id\n" +
+            "WHERE DepartmentId = ?\n" +
+            "ORDER BY Name";
+
+    static final String DELETE_BY_ID = "DELETE FROM seller WHERE Id = ?";
+
+    // IN com count parâmetros; a ordem segue o índice (DepartmentId, Name), sem filesort
+    static String findByDepartmentsSql(int count) {
+        return SELECT_SELLER +
+                "WHERE seller.DepartmentId IN (" + String.join(", ", Collections.nCopies(count, "?")) + ")\n" +
+                "ORDER BY seller.DepartmentId, seller.Name";
+    }
+
+    static final String STREAM_ALL = SELECT_SELLER +
+            "ORDER BY seller.Name, seller.Id";
+
+    private DataSource dataSource;
+
+    // consultas; pode ser uma réplica (ver DaoFactory)
+    private DataSource readDataSource;
+
+    private int batchSize = 500;
+
+    // máximo de ids por IN em findByDepartments; listas maiores viram várias consultas
+    private int inListSize = 1000;
+
+    // Integer.MIN_VALUE faz o Connector/J trazer as linhas uma a uma (streaming result set);
+    // um valor positivo junto com useCursorFetch=true usa cursor no servidor.
+    private int fetchSize = Integer.MIN_VALUE;
+
+    private CachedDepartmentDao departmentCache;
+
+    public SellerDaoJDBC(DataSource dataSource){
+        this.dataSource = dataSource;
+        this.readDataSource = dataSource;
+    }
+
+    public void setReadDataSource(DataSource readDataSource) {
+        this.readDataSource = readDataSource;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public void setDepartmentCache(CachedDepartmentDao departmentCache) {
+        this.departmentCache = departmentCache;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public void setInListSize(int inListSize) {
+        if (inListSize < 1) {
+            throw new IllegalArgumentException("IN list size must be positive");
+        }
+        this.inListSize = inListSize;
     }
 
     @Override
     public void insert(Seller seller) {
+        Connection connection = null;
         PreparedStatement preparedStatement = null;
         ResultSet resultSet = null;
-        SimpleDateFormat simpleDateFormat = new SimpleDateFormat("dd/MM/yyyy");
 
         try {
-            preparedStatement = connection.prepareStatement("INSERT INTO seller\n" +
-                    "(Name, Email, BirthDate, BaseSalary, DepartmentId)\n" +
-                    "VALUES\n" +
-                    "(?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+            connection = dataSource.getConnection();
+            preparedStatement = connection.prepareStatement(INSERT_SELLER, Statement.RETURN_GENERATED_KEYS);
 
-            preparedStatement.setString(1, seller.getName());
-            preparedStatement.setString(2,seller.getEmail());
-            preparedStatement.setDate(3,new java.sql.Date(seller.getBirthDate().getTime()));
-            preparedStatement.setDouble(4,seller.getBaseSalary());
-            preparedStatement.setInt(5,seller.getDepartment().getId());
+            bindSeller(preparedStatement, seller);
 
             int rowsAffected = preparedStatement.executeUpdate();
 
             if(rowsAffected > 0){
-                ResultSet resultSet1 = preparedStatement.getGeneratedKeys();
-                if (resultSet1.next()){
-                    int id = resultSet1.getInt(1);
+                resultSet = preparedStatement.getGeneratedKeys();
+                if (resultSet.next()){
+                    int id = resultSet.getInt(1);
                     seller.setId(id);
                 }
-                DB.closeResultSet(resultSet1);
+                seller.setVersion(0);
+                seller.markClean();
             }
             else {
                 throw new DbException("Unexpected error! No rows affected!");
             }
         }
         catch (SQLException sqlException){
-            throw new DbException(sqlException.getMessage());
+            throw new DbException(sqlException.getMessage(), sqlException);
         }
         finally {
+            DB.closeResultSet(resultSet);
             DB.closeStatement(preparedStatement);
+            DB.closeConnection(connection);
         }
     }
 
+    // Grava só os campos alterados desde a leitura, e só se ninguém gravou a linha nesse meio tempo.
     @Override
     public void update(Seller seller) {
+        Set<Seller.Field> fields = seller.getDirtyFields();
+        if (fields.isEmpty()) {
+            // nada mudou: não há o que gravar
+            return;
+        }
+        Connection connection = null;
         PreparedStatement preparedStatement = null;
         try{
-            preparedStatement = connection.prepareStatement("UPDATE seller\n" +
-                    "SET Name = ?, Email = ?, BirthDate = ?, BaseSalary = ?, DepartmentId = ?\n" +
-                    "WHERE Id = ?");
+            connection = dataSource.getConnection();
+            preparedStatement = connection.prepareStatement(updateSql(fields));
+
+            int index = bindFields(preparedStatement, seller, fields);
+            preparedStatement.setInt(index++, seller.getId());
+            preparedStatement.setInt(index, seller.getVersion());
+
+            if (preparedStatement.executeUpdate() == 0) {
+                throw new StaleEntityException("Seller", seller.getId(), seller.getVersion());
+            }
+            // dentro de uma Transaction, só depois do commit: se ela for desfeita a versão não muda
+            int version = seller.getVersion();
+            Transaction.afterCommit(dataSource, () -> {
+                seller.setVersion(version + 1);
+                seller.markClean();
+            });
+        }
+        catch (SQLException sqlException){
+            throw new DbException(sqlException.getMessage(), sqlException);
+        }
+        finally {
+            DB.closeStatement(preparedStatement);
+            DB.closeConnection(connection);
+        }
+    }
 
-            preparedStatement.setString(1,seller.getName());
-            preparedStatement.setString(2,seller.getEmail());
-            preparedStatement.setDate(3,new java.sql.Date(seller.getBirthDate().getTime()));
-            preparedStatement.setDouble(4,seller.getBaseSalary());
-            preparedStatement.setInt(5,seller.getDepartment().getId());
-            preparedStatement.setInt(6,seller.getId());
+    @Override
+    public void insertAll(Collection<Seller> sellers) {
+        if (sellers.isEmpty()) {
+            return;
+        }
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        boolean ownTransaction = false;
 
-            preparedStatement.executeUpdate();
+        try {
+            connection = dataSource.getConnection();
+            ownTransaction = beginBatch(connection);
+            preparedStatement = connection.prepareStatement(INSERT_SELLER, Statement.RETURN_GENERATED_KEYS);
+
+            List<Seller> chunk = new ArrayList<>(Math.min(batchSize, sellers.size()));
+            for (Seller seller : sellers) {
+                bindSeller(preparedStatement, seller);
+                preparedStatement.addBatch();
+                chunk.add(seller);
+                if (chunk.size() == batchSize) {
+                    executeInsertBatch(preparedStatement, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                executeInsertBatch(preparedStatement, chunk);
+            }
+            if (ownTransaction) {
+                connection.commit();
+            }
         }
         catch (SQLException sqlException){
-            throw new DbException(sqlException.getMessage());
+            if (ownTransaction) {
+                rollback(connection);
+            }
+            throw new DbException(sqlException.getMessage(), sqlException);
         }
         finally {
             DB.closeStatement(preparedStatement);
+            endBatch(connection, ownTransaction);
+            DB.closeConnection(connection);
         }
     }
 
+    // Um lote por combinação de campos alterados, já que cada combinação é um UPDATE diferente.
+    @Override
+    public void updateAll(Collection<Seller> sellers) {
+        Map<Set<Seller.Field>, List<Seller>> groups = new LinkedHashMap<>();
+        for (Seller seller : sellers) {
+            if (seller.isDirty()) {
+                groups.computeIfAbsent(EnumSet.copyOf(seller.getDirtyFields()), fields -> new ArrayList<>())
+                        .add(seller);
+            }
+        }
+        if (groups.isEmpty()) {
+            return;
+        }
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        boolean ownTransaction = false;
+
+        try {
+            connection = dataSource.getConnection();
+            ownTransaction = beginBatch(connection);
+
+            for (Map.Entry<Set<Seller.Field>, List<Seller>> group : groups.entrySet()) {
+                Set<Seller.Field> fields = group.getKey();
+                preparedStatement = connection.prepareStatement(updateSql(fields));
+
+                List<Seller> chunk = new ArrayList<>(Math.min(batchSize, group.getValue().size()));
+                for (Seller seller : group.getValue()) {
+                    int index = bindFields(preparedStatement, seller, fields);
+                    preparedStatement.setInt(index++, seller.getId());
+                    preparedStatement.setInt(index, seller.getVersion());
+                    preparedStatement.addBatch();
+                    chunk.add(seller);
+                    if (chunk.size() == batchSize) {
+                        executeUpdateBatch(preparedStatement, chunk);
+                        chunk.clear();
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    executeUpdateBatch(preparedStatement, chunk);
+                }
+                DB.closeStatement(preparedStatement);
+                preparedStatement = null;
+            }
+            if (ownTransaction) {
+                connection.commit();
+            }
+        }
+        catch (SQLException sqlException){
+            if (ownTransaction) {
+                rollback(connection);
+            }
+            throw new DbException(sqlException.getMessage(), sqlException);
+        }
+        catch (StaleEntityException staleEntityException){
+            if (ownTransaction) {
+                rollback(connection);
+            }
+            throw staleEntityException;
+        }
+        finally {
+            DB.closeStatement(preparedStatement);
+            endBatch(connection, ownTransaction);
+            DB.closeConnection(connection);
+        }
+
+        // só depois de tudo gravado e, numa Transaction, confirmado: um lote desfeito não deixa
+        // versões adiantadas
+        Transaction.afterCommit(dataSource, () -> {
+            for (List<Seller> group : groups.values()) {
+                for (Seller seller : group) {
+                    seller.setVersion(seller.getVersion() + 1);
+                    seller.markClean();
+                }
+            }
+        });
+    }
+
+    private static void executeUpdateBatch(PreparedStatement preparedStatement, List<Seller> chunk) throws SQLException {
+        int[] counts = preparedStatement.executeBatch();
+        for (int i = 0; i < counts.length && i < chunk.size(); i++) {
+            // SUCCESS_NO_INFO (-2): o driver não informou a contagem, não há como conferir
+            if (counts[i] == 0) {
+                Seller seller = chunk.get(i);
+                throw new StaleEntityException("Seller", seller.getId(), seller.getVersion());
+            }
+        }
+    }
+
+    private void executeInsertBatch(PreparedStatement preparedStatement, List<Seller> chunk) throws SQLException {
+        preparedStatement.executeBatch();
+        ResultSet keys = null;
+        try {
+            keys = preparedStatement.getGeneratedKeys();
+            int index = 0;
+            while (keys.next() && index < chunk.size()) {
+                Seller seller = chunk.get(index++);
+                seller.setId(keys.getInt(1));
+                seller.setVersion(0);
+                seller.markClean();
+            }
+            if (index != chunk.size()) {
+                throw new DbException("Unexpected error! Expected " + chunk.size()
+                        + " generated keys but got " + index);
+            }
+        }
+        finally {
+            DB.closeResultSet(keys);
+        }
+    }
+
+    // Abre uma transação para o lote, a não ser que quem chamou já tenha uma aberta.
+    private static boolean beginBatch(Connection connection) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            return false;
+        }
+        connection.setAutoCommit(false);
+        return true;
+    }
+
+    private static void endBatch(Connection connection, boolean ownTransaction) {
+        if (connection != null && ownTransaction) {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException sqlException) {
+                throw new DbException(sqlException.getMessage(), sqlException);
+            }
+        }
+    }
+
+    private static void rollback(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException ignored) {
+            // o erro original é o que interessa
+        }
+    }
+
+    static String updateSql(Set<Seller.Field> fields) {
+        StringBuilder sql = new StringBuilder("UPDATE seller\nSET ");
+        for (Seller.Field field : fields) {
+            sql.append(column(field)).append(" = ?, ");
+        }
+        return sql.append("Version = Version + 1\nWHERE Id = ? AND Version = ?").toString();
+    }
+
+    private static String column(Seller.Field field) {
+        switch (field) {
+            case NAME:
+                return "Name";
+            case EMAIL:
+                return "Email";
+            case BIRTH_DATE:
+                return "BirthDate";
+            case BASE_SALARY:
+                return "BaseSalary";
+            default:
+                return "DepartmentId";
+        }
+    }
+
+    // Liga os campos na ordem de updateSql e devolve o índice do próximo parâmetro.
+    private static int bindFields(PreparedStatement preparedStatement, Seller seller,
+                                  Set<Seller.Field> fields) throws SQLException {
+        int index = 1;
+        for (Seller.Field field : fields) {
+            switch (field) {
+                case NAME:
+                    preparedStatement.setString(index++, seller.getName());
+                    break;
+                case EMAIL:
+                    preparedStatement.setString(index++, seller.getEmail());
+                    break;
+                case BIRTH_DATE:
+                    preparedStatement.setDate(index++, new java.sql.Date(seller.getBirthDate().getTime()));
+                    break;
+                case BASE_SALARY:
+                    preparedStatement.setDouble(index++, seller.getBaseSalary());
+                    break;
+                case DEPARTMENT:
+                    preparedStatement.setInt(index++, seller.getDepartment().getId());
+                    break;
+            }
+        }
+        return index;
+    }
+
+    private static void bindSeller(PreparedStatement preparedStatement, Seller seller) throws SQLException {
+        preparedStatement.setString(1, seller.getName());
+        preparedStatement.setString(2, seller.getEmail());
+        preparedStatement.setDate(3, new java.sql.Date(seller.getBirthDate().getTime()));
+        preparedStatement.setDouble(4, seller.getBaseSalary());
+        preparedStatement.setInt(5, seller.getDepartment().getId());
+    }
+
     @Override
     public void deleteById(Integer id) {
+        Connection connection = null;
         PreparedStatement preparedStatement = null;
         try {
-            preparedStatement = connection.prepareStatement("DELETE FROM seller WHERE Id = ?");
+            connection = dataSource.getConnection();
+            preparedStatement = connection.prepareStatement(DELETE_BY_ID);
 
             preparedStatement.setInt(1,id);
             int rows = preparedStatement.executeUpdate();
@@ -100,23 +439,25 @@ public class SellerDaoJDBC implements SellerDao {
             }
         }
         catch (SQLException sqlException){
-            throw new DbException(sqlException.getMessage());
+            throw new DbException(sqlException.getMessage(), sqlException);
 
         }
         finally {
             DB.closeStatement(preparedStatement);
+            DB.closeConnection(connection);
         }
     }
 
     @Override
     public Seller findById(Integer id) {
 
+        Connection connection = null;
         PreparedStatement preparedStatement = null;
         ResultSet resultSet = null;
 
         try{
-            preparedStatement = connection.prepareStatement("" +
-                    "SELECT seller.*, department.Name as DepName FROM seller INNER JOIN department ON seller.DepartmentId = department.id WHERE seller.Id = ?");
+            connection = readDataSource.getConnection();
+            preparedStatement = connection.prepareStatement(FIND_BY_ID);
 
             preparedStatement.setInt(1,id);
             resultSet = preparedStatement.executeQuery();
@@ -127,118 +468,500 @@ public class SellerDaoJDBC implements SellerDao {
 
             if(resultSet.next()){
 
-                Department department = instantiateDepartment(resultSet);
-                Seller seller = instantiateSeller(resultSet, department);
+                SellerRowMapper mapper = SellerRowMapper.of(resultSet, departmentCache);
+                Department department = mapper.department(resultSet);
+                Seller seller = mapper.seller(resultSet, department);
                 return seller;
             }
             return null;
         }
         catch (SQLException sqlException){
-            throw new DbException(sqlException.getMessage());
+            throw new DbException(sqlException.getMessage(), sqlException);
 
         }
         finally {
-            DB.closeStatement(preparedStatement);
             DB.closeResultSet(resultSet);
+            DB.closeStatement(preparedStatement);
+            DB.closeConnection(connection);
         }
     }
 
-    private Seller instantiateSeller(ResultSet resultSet, Department department) throws SQLException {
-        Seller seller = new Seller();
-        seller.setId(resultSet.getInt("Id"));
-        seller.setName(resultSet.getString("Name"));
-        seller.setEmail(resultSet.getString("Email"));
-        seller.setBaseSalary(resultSet.getDouble("BaseSalary"));
-        seller.setBirthDate(new java.util.Date(resultSet.getTimestamp("BirthDate").getTime()));
-        seller.setDepartment(department);
-
-        return seller;
-    }
-
-    private Department instantiateDepartment(ResultSet resultSet) throws SQLException {
-        Department department = new Department();
-        department.setId(resultSet.getInt("DepartmentId"));
-        department.setName(resultSet.getString("DepName"));
-        return department;
-    }
-
     @Override
     public List<Seller> findAll() {
+        Connection connection = null;
         PreparedStatement preparedStatement = null;
         ResultSet resultSet = null;
 
         try {
-            preparedStatement = connection.prepareStatement("SELECT seller.*,department.Name as DepName\n" +
-                    "FROM seller INNER JOIN department\n" +
-                    "ON seller.DepartmentId = department.Id\n" +
-                    "ORDER BY Name");
+            connection = readDataSource.getConnection();
+            preparedStatement = connection.prepareStatement(FIND_ALL);
 
             resultSet =preparedStatement.executeQuery();
-            List<Seller> list = new ArrayList<>();
-            Map<Integer, Department> map = new HashMap<>();
-
-            while (resultSet.next()){
-                Department dep = map.get(resultSet.getInt("DepartmentId"));
-
-                if(map == null){
-                    dep = instantiateDepartment(resultSet);
-                    map.put(resultSet.getInt("DepartmentId"),dep);
-                }
-                Seller seller = instantiateSeller(resultSet,dep);
-                list.add(seller);
-            }
-            return list;
-
+            return instantiateSellers(resultSet);
         }
         catch (SQLException sqlException){
-            throw new DbException(sqlException.getMessage());
+            throw new DbException(sqlException.getMessage(), sqlException);
 
         }
         finally {
-            DB.closeStatement(preparedStatement);
             DB.closeResultSet(resultSet);
+            DB.closeStatement(preparedStatement);
+            DB.closeConnection(connection);
         }
     }
 
     @Override
     public List<Seller> findByDepartment(Department department) {
+        Connection connection = null;
         PreparedStatement preparedStatement = null;
         ResultSet resultSet = null;
 
         try {
-            preparedStatement = connection.prepareStatement("SELECT seller.*,department.Name as DepName\n" +
-                    "FROM seller INNER JOIN department\n" +
-                    "ON seller.DepartmentId = department.Id\n" +
-                    "WHERE DepartmentId = ?\n" +
-                    "ORDER BY Name");
+            connection = readDataSource.getConnection();
+            preparedStatement = connection.prepareStatement(FIND_BY_DEPARTMENT);
 
             preparedStatement.setInt(1,department.getId());
             resultSet = preparedStatement.executeQuery();
-            List<Seller> list = new ArrayList<>();
-            Map<Integer, Department> map = new HashMap<>();
+            return instantiateSellers(resultSet);
+        }
+        catch (SQLException sqlException){
+            throw new DbException(sqlException.getMessage(), sqlException);
+        }
+        finally {
+            DB.closeResultSet(resultSet);
+            DB.closeStatement(preparedStatement);
+            DB.closeConnection(connection);
+        }
+    }
 
-            // while para percorrer o resultSet até obter um próximo.
-            while (resultSet.next()){
-                // Testanto se o departamento já existe.
-                Department dep  = map.get(resultSet.getInt("DepartmentId"));
+    // Uma consulta por bloco de inListSize ids, todas na mesma conexão, em vez de uma por
+    // departamento. O MySQL não limita o número de parâmetros, mas max_allowed_packet e o otimizador
+    // sim; por isso listas grandes são divididas.
+    @Override
+    public Map<Integer, List<Seller>> findByDepartments(Collection<Integer> departmentIds) {
+        Map<Integer, List<Seller>> result = new LinkedHashMap<>();
+        for (Integer departmentId : departmentIds) {
+            if (departmentId != null) {
+                result.putIfAbsent(departmentId, new ArrayList<>());
+            }
+        }
+        if (result.isEmpty()) {
+            return result;
+        }
+        List<Integer> ids = new ArrayList<>(result.keySet());
 
-                if(dep == null){
-                    dep = instantiateDepartment(resultSet);
-                    map.put(resultSet.getInt("DepartmentId"), dep);
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+
+        try {
+            connection = readDataSource.getConnection();
+            // compartilhado entre os blocos
+            DepartmentIdentityMap departments = new DepartmentIdentityMap();
+            for (int from = 0; from < ids.size(); from += inListSize) {
+                List<Integer> chunk = ids.subList(from, Math.min(from + inListSize, ids.size()));
+                int size = inListLength(chunk.size());
+                preparedStatement = connection.prepareStatement(findByDepartmentsSql(size));
+                for (int i = 0; i < size; i++) {
+                    // sobra preenchida com o último id: o resultado é o mesmo
+                    preparedStatement.setInt(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
                 }
+                resultSet = preparedStatement.executeQuery();
+                SellerRowMapper mapper = SellerRowMapper.of(resultSet, departmentCache);
+
+                while (resultSet.next()) {
+                    Department dep = departments.department(resultSet, mapper);
+                    result.get(dep.getId()).add(mapper.seller(resultSet, dep));
+                }
+                DB.closeResultSet(resultSet);
+                DB.closeStatement(preparedStatement);
+                resultSet = null;
+                preparedStatement = null;
+            }
+            return result;
+        }
+        catch (SQLException sqlException){
+            throw new DbException(sqlException.getMessage(), sqlException);
+        }
+        finally {
+            DB.closeResultSet(resultSet);
+            DB.closeStatement(preparedStatement);
+            DB.closeConnection(connection);
+        }
+    }
+
+    // Tamanho do IN arredondado para a próxima potência de dois (até inListSize): poucos textos de
+    // SQL diferentes, que o cache de statements do pool e o do servidor reaproveitam.
+    private int inListLength(int count) {
+        int length = Integer.highestOneBit(count);
+        if (length < count) {
+            length <<= 1;
+        }
+        return Math.min(length, inListSize);
+    }
+
+    @Override
+    public List<Seller> findPage(Seller anchor, int pageSize, PageDirection direction) {
+        return findPage(new SellerQuery(), anchor, pageSize, direction);
+    }
+
+    @Override
+    public List<Seller> findPage(int offset, int pageSize) {
+        return findPage(new SellerQuery(), offset, pageSize);
+    }
+
+    @Override
+    public int count() {
+        return count(new SellerQuery());
+    }
+
+    @Override
+    public List<Seller> findPage(SellerQuery query, Seller anchor, int pageSize, PageDirection direction) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        List<Object> parameters = new ArrayList<>();
+        String sql = pageSql(query, anchor, pageSize, direction, parameters);
 
-                Seller seller = instantiateSeller(resultSet, dep);
-                list.add(seller);
+        try {
+            connection = readDataSource.getConnection();
+            preparedStatement = connection.prepareStatement(sql);
+            bindParameters(preparedStatement, parameters);
+            resultSet = preparedStatement.executeQuery();
+
+            List<Seller> list = instantiateSellers(resultSet);
+            if (direction == PageDirection.BACKWARD) {
+                Collections.reverse(list);
             }
             return list;
         }
         catch (SQLException sqlException){
-            throw new DbException(sqlException.getMessage());
+            throw new DbException(sqlException.getMessage(), sqlException);
+        }
+        finally {
+            DB.closeResultSet(resultSet);
+            DB.closeStatement(preparedStatement);
+            DB.closeConnection(connection);
+        }
+    }
+
+    @Override
+    public List<Seller> findPage(SellerQuery query, int offset, int pageSize) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+
+        List<Object> parameters = new ArrayList<>();
+        String sql = pageSql(query, offset, pageSize, parameters);
+
+        try {
+            connection = readDataSource.getConnection();
+            preparedStatement = connection.prepareStatement(sql);
+            bindParameters(preparedStatement, parameters);
+            resultSet = preparedStatement.executeQuery();
+            return instantiateSellers(resultSet);
+        }
+        catch (SQLException sqlException){
+            throw new DbException(sqlException.getMessage(), sqlException);
         }
         finally {
+            DB.closeResultSet(resultSet);
             DB.closeStatement(preparedStatement);
+            DB.closeConnection(connection);
+        }
+    }
+
+    @Override
+    public int count(SellerQuery query) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+
+        List<Object> parameters = new ArrayList<>();
+        String sql = countSql(query, parameters);
+
+        try {
+            connection = readDataSource.getConnection();
+            preparedStatement = connection.prepareStatement(sql);
+            bindParameters(preparedStatement, parameters);
+            resultSet = preparedStatement.executeQuery();
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+        catch (SQLException sqlException){
+            throw new DbException(sqlException.getMessage(), sqlException);
+        }
+        finally {
             DB.closeResultSet(resultSet);
+            DB.closeStatement(preparedStatement);
+            DB.closeConnection(connection);
         }
     }
-}
 
+    // Monta o SQL da página por keyset e preenche parameters na ordem dos placeholders.
+    static String pageSql(SellerQuery query, Seller anchor, int pageSize, PageDirection direction,
+                          List<Object> parameters) {
+        // andar para trás é ler na ordem inversa e desvirar a página no final
+        boolean descending = (query.getSortOrder() == SellerQuery.SortOrder.DESCENDING)
+                != (direction == PageDirection.BACKWARD);
+
+        List<String> conditions = new ArrayList<>();
+        addFilters(query, conditions, parameters);
+        if (anchor != null) {
+            addSeek(query.getSortColumn(), anchor, descending, conditions, parameters);
+        }
+        parameters.add(pageSize);
+        return SELECT_SELLER + where(conditions) + orderBy(query.getSortColumn(), descending) + "\nLIMIT ?";
+    }
+
+    static String pageSql(SellerQuery query, int offset, int pageSize, List<Object> parameters) {
+        List<String> conditions = new ArrayList<>();
+        addFilters(query, conditions, parameters);
+        parameters.add(pageSize);
+        parameters.add(offset);
+        boolean descending = query.getSortOrder() == SellerQuery.SortOrder.DESCENDING;
+        return SELECT_SELLER + where(conditions) + orderBy(query.getSortColumn(), descending)
+                + "\nLIMIT ? OFFSET ?";
+    }
+
+    // Todas as linhas do filtro, sem LIMIT, na ordem da lista.
+    static String streamSql(SellerQuery query, List<Object> parameters) {
+        List<String> conditions = new ArrayList<>();
+        addFilters(query, conditions, parameters);
+        boolean descending = query.getSortOrder() == SellerQuery.SortOrder.DESCENDING;
+        return SELECT_SELLER + where(conditions) + orderBy(query.getSortColumn(), descending);
+    }
+
+    static String countSql(SellerQuery query, List<Object> parameters) {
+        List<String> conditions = new ArrayList<>();
+        addFilters(query, conditions, parameters);
+        return "SELECT COUNT(*) FROM seller" + where(conditions);
+    }
+
+    // Os filtros usam só colunas de seller, para poderem ser atendidos pelos índices da tabela.
+    private static void addFilters(SellerQuery query, List<String> conditions, List<Object> parameters) {
+        if (query.getNamePrefix() != null) {
+            conditions.add("seller.Name LIKE ?");
+            parameters.add(escapeLike(query.getNamePrefix()) + "%");
+        }
+        if (query.getEmailContains() != null) {
+            conditions.add("seller.Email LIKE ?");
+            parameters.add("%" + escapeLike(query.getEmailContains()) + "%");
+        }
+        if (query.getMinBaseSalary() != null) {
+            conditions.add("seller.BaseSalary >= ?");
+            parameters.add(query.getMinBaseSalary());
+        }
+        if (query.getMaxBaseSalary() != null) {
+            conditions.add("seller.BaseSalary <= ?");
+            parameters.add(query.getMaxBaseSalary());
+        }
+        if (query.getBirthDateFrom() != null) {
+            conditions.add("seller.BirthDate >= ?");
+            parameters.add(java.sql.Date.valueOf(query.getBirthDateFrom()));
+        }
+        if (query.getBirthDateTo() != null) {
+            conditions.add("seller.BirthDate < ?");
+            parameters.add(java.sql.Date.valueOf(query.getBirthDateTo().plusDays(1)));
+        }
+        if (!query.getDepartmentIds().isEmpty()) {
+            List<String> placeholders = new ArrayList<>();
+            for (Integer departmentId : query.getDepartmentIds()) {
+                placeholders.add("?");
+                parameters.add(departmentId);
+            }
+            conditions.add("seller.DepartmentId IN (" + String.join(", ", placeholders) + ")");
+        }
+    }
+
+    // Keyset: continua a partir do (coluna de ordenação, Id) da linha âncora.
+    private static void addSeek(SellerQuery.SortColumn sortColumn, Seller anchor, boolean descending,
+                                List<String> conditions, List<Object> parameters) {
+        String operator = descending ? "<" : ">";
+        if (sortColumn == SellerQuery.SortColumn.ID) {
+            conditions.add("seller.Id " + operator + " ?");
+            parameters.add(anchor.getId());
+            return;
+        }
+        String column = columnOf(sortColumn);
+        Object value = sortValueOf(sortColumn, anchor);
+        conditions.add("(" + column + " " + operator + " ? OR (" + column + " = ? AND seller.Id " + operator + " ?))");
+        parameters.add(value);
+        parameters.add(value);
+        parameters.add(anchor.getId());
+    }
+
+    private static String where(List<String> conditions) {
+        return conditions.isEmpty() ? "" : "\nWHERE " + String.join(" AND ", conditions);
+    }
+
+    private static String orderBy(SellerQuery.SortColumn sortColumn, boolean descending) {
+        String direction = descending ? " DESC" : "";
+        if (sortColumn == SellerQuery.SortColumn.ID) {
+            return "\nORDER BY seller.Id" + direction;
+        }
+        return "\nORDER BY " + columnOf(sortColumn) + direction + ", seller.Id" + direction;
+    }
+
+    private static String columnOf(SellerQuery.SortColumn sortColumn) {
+        switch (sortColumn) {
+            case NAME:
+                return "seller.Name";
+            case EMAIL:
+                return "seller.Email";
+            case BIRTH_DATE:
+                return "seller.BirthDate";
+            case BASE_SALARY:
+                return "seller.BaseSalary";
+            default:
+                return "seller.Id";
+        }
+    }
+
+    private static Object sortValueOf(SellerQuery.SortColumn sortColumn, Seller seller) {
+        switch (sortColumn) {
+            case NAME:
+                return seller.getName();
+            case EMAIL:
+                return seller.getEmail();
+            case BIRTH_DATE:
+                return new Timestamp(seller.getBirthDate().getTime());
+            case BASE_SALARY:
+                return seller.getBaseSalary();
+            default:
+                return seller.getId();
+        }
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static void bindParameters(PreparedStatement preparedStatement, List<Object> parameters) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            preparedStatement.setObject(i + 1, parameters.get(i));
+        }
+    }
+
+    // Todas as consultas de várias linhas passam por aqui (ou pelo SellerSpliterator): cada
+    // departamento vira uma única instância, compartilhada pelos vendedores dele.
+    private List<Seller> instantiateSellers(ResultSet resultSet) throws SQLException {
+        SellerRowMapper mapper = SellerRowMapper.of(resultSet, departmentCache);
+        List<Seller> list = new ArrayList<>();
+        DepartmentIdentityMap departments = new DepartmentIdentityMap();
+
+        while (resultSet.next()){
+            list.add(mapper.seller(resultSet, departments.department(resultSet, mapper)));
+        }
+        return list;
+    }
+
+    @Override
+    public Stream<Seller> streamAll() {
+        return stream(STREAM_ALL, Collections.emptyList());
+    }
+
+    @Override
+    public Stream<Seller> stream(SellerQuery query) {
+        List<Object> parameters = new ArrayList<>();
+        String sql = streamSql(query, parameters);
+        return stream(sql, parameters);
+    }
+
+    private Stream<Seller> stream(String sql, List<Object> parameters) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+
+        try {
+            connection = readDataSource.getConnection();
+            preparedStatement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            preparedStatement.setFetchSize(fetchSize);
+            bindParameters(preparedStatement, parameters);
+            resultSet = preparedStatement.executeQuery();
+
+            SellerRowMapper mapper = SellerRowMapper.of(resultSet, departmentCache);
+            Connection streamConnection = connection;
+            PreparedStatement streamStatement = preparedStatement;
+            ResultSet streamResultSet = resultSet;
+            SellerSpliterator spliterator = new SellerSpliterator(resultSet, mapper);
+
+            return StreamSupport.stream(spliterator, false)
+                    .onClose(() -> {
+                        try {
+                            if (spliterator.isExhausted()) {
+                                DB.closeResultSet(streamResultSet);
+                            } else {
+                                // fechado antes da última linha (exportação cancelada, por exemplo): sem o
+                                // cancel o Connector/J lê o resto do streaming result set antes de fechar
+                                cancelAndClose(streamStatement, streamResultSet);
+                            }
+                            DB.closeStatement(streamStatement);
+                        }
+                        finally {
+                            DB.closeConnection(streamConnection);
+                        }
+                    });
+        }
+        catch (SQLException sqlException){
+            DB.closeResultSet(resultSet);
+            DB.closeStatement(preparedStatement);
+            DB.closeConnection(connection);
+            throw new DbException(sqlException.getMessage(), sqlException);
+        }
+    }
+
+    private static void cancelAndClose(Statement statement, ResultSet resultSet) {
+        try {
+            statement.cancel();
+        } catch (SQLException ignored) {
+            // sem suporte a cancel: o close abaixo só demora mais
+        }
+        try {
+            DB.closeResultSet(resultSet);
+        } catch (DbException ignored) {
+            // a consulta cancelada pode avisar a interrupção ao fechar
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<Seller> action) {
+        try (Stream<Seller> stream = streamAll()) {
+            stream.forEach(action);
+        }
+    }
+
+    // Lê o ResultSet sob demanda; só os departamentos ficam guardados, as linhas não.
+    private static final class SellerSpliterator extends Spliterators.AbstractSpliterator<Seller> {
+
+        private final ResultSet resultSet;
+        private final SellerRowMapper mapper;
+        private final DepartmentIdentityMap departments = new DepartmentIdentityMap();
+        private boolean exhausted;
+
+        SellerSpliterator(ResultSet resultSet, SellerRowMapper mapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.resultSet = resultSet;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Seller> action) {
+            try {
+                if (!resultSet.next()) {
+                    exhausted = true;
+                    return false;
+                }
+                action.accept(mapper.seller(resultSet, departments.department(resultSet, mapper)));
+                return true;
+            }
+            catch (SQLException sqlException){
+                throw new DbException(sqlException.getMessage(), sqlException);
+            }
+        }
+
+        boolean isExhausted() {
+            return exhausted;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package model.dao;
+
+import model.entities.Seller;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+// Critérios de busca e ordenação de vendedores, convertidos em SQL parametrizado pelo SellerDaoJDBC.
+// Campos nulos (ou vazios) não filtram nada.
+public class SellerQuery {
+
+    public enum SortColumn {
+        ID,
+        NAME,
+        EMAIL,
+        BIRTH_DATE,
+        BASE_SALARY
+    }
+
+    public enum SortOrder {
+        ASCENDING,
+        DESCENDING
+    }
+
+    private String namePrefix;
+    private String emailContains;
+    private Double minBaseSalary;
+    private Double maxBaseSalary;
+    private LocalDate birthDateFrom;
+    private LocalDate birthDateTo;
+    private Set<Integer> departmentIds = new LinkedHashSet<>();
+
+    private SortColumn sortColumn = SortColumn.NAME;
+    private SortOrder sortOrder = SortOrder.ASCENDING;
+
+    public SellerQuery() {
+    }
+
+    public SellerQuery(SellerQuery other) {
+        this.namePrefix = other.namePrefix;
+        this.emailContains = other.emailContains;
+        this.minBaseSalary = other.minBaseSalary;
+        this.maxBaseSalary = other.maxBaseSalary;
+        this.birthDateFrom = other.birthDateFrom;
+        this.birthDateTo = other.birthDateTo;
+        this.departmentIds = new LinkedHashSet<>(other.departmentIds);
+        this.sortColumn = other.sortColumn;
+        this.sortOrder = other.sortOrder;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public void setNamePrefix(String namePrefix) {
+        this.namePrefix = blankToNull(namePrefix);
+    }
+
+    public String getEmailContains() {
+        return emailContains;
+    }
+
+    public void setEmailContains(String emailContains) {
+        this.emailContains = blankToNull(emailContains);
+    }
+
+    public Double getMinBaseSalary() {
+        return minBaseSalary;
+    }
+
+    public void setMinBaseSalary(Double minBaseSalary) {
+        this.minBaseSalary = minBaseSalary;
+    }
+
+    public Double getMaxBaseSalary() {
+        return maxBaseSalary;
+    }
+
+    public void setMaxBaseSalary(Double maxBaseSalary) {
+        this.maxBaseSalary = maxBaseSalary;
+    }
+
+    public LocalDate getBirthDateFrom() {
+        return birthDateFrom;
+    }
+
+    public void setBirthDateFrom(LocalDate birthDateFrom) {
+        this.birthDateFrom = birthDateFrom;
+    }
+
+    public LocalDate getBirthDateTo() {
+        return birthDateTo;
+    }
+
+    public void setBirthDateTo(LocalDate birthDateTo) {
+        this.birthDateTo = birthDateTo;
+    }
+
+    public Set<Integer> getDepartmentIds() {
+        return Collections.unmodifiableSet(departmentIds);
+    }
+
+    public void setDepartmentIds(Set<Integer> departmentIds) {
+        this.departmentIds = departmentIds == null ? new LinkedHashSet<>() : new LinkedHashSet<>(departmentIds);
+    }
+
+    public SortColumn getSortColumn() {
+        return sortColumn;
+    }
+
+    public void setSortColumn(SortColumn sortColumn) {
+        this.sortColumn = Objects.requireNonNull(sortColumn);
+    }
+
+    public SortOrder getSortOrder() {
+        return sortOrder;
+    }
+
+    public void setSortOrder(SortOrder sortOrder) {
+        this.sortOrder = Objects.requireNonNull(sortOrder);
+    }
+
+    // Mesmo critério do WHERE montado pelo SellerDaoJDBC, para decidir se uma linha gravada entra na lista.
+    // Textos comparados sem diferenciar maiúsculas, como a collation padrão do MySQL.
+    public boolean matches(Seller seller) {
+        if (namePrefix != null && (seller.getName() == null
+                || !seller.getName().regionMatches(true, 0, namePrefix, 0, namePrefix.length()))) {
+            return false;
+        }
+        if (emailContains != null && (seller.getEmail() == null
+                || !seller.getEmail().toLowerCase().contains(emailContains.toLowerCase()))) {
+            return false;
+        }
+        if (minBaseSalary != null && (seller.getBaseSalary() == null || seller.getBaseSalary() < minBaseSalary)) {
+            return false;
+        }
+        if (maxBaseSalary != null && (seller.getBaseSalary() == null || seller.getBaseSalary() > maxBaseSalary)) {
+            return false;
+        }
+        if (birthDateFrom != null || birthDateTo != null) {
+            if (seller.getBirthDate() == null) {
+                return false;
+            }
+            LocalDate birthDate = seller.getBirthDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+            if (birthDateFrom != null && birthDate.isBefore(birthDateFrom)) {
+                return false;
+            }
+            if (birthDateTo != null && birthDate.isAfter(birthDateTo)) {
+                return false;
+            }
+        }
+        if (!departmentIds.isEmpty() && (seller.getDepartment() == null
+                || !departmentIds.contains(seller.getDepartment().getId()))) {
+            return false;
+        }
+        return true;
+    }
+
+    // Mesma ordem do ORDER BY: coluna escolhida e depois Id.
+    public Comparator<Seller> comparator() {
+        Comparator<Seller> comparator;
+        switch (sortColumn) {
+            case NAME:
+                comparator = Comparator.comparing(Seller::getName, String.CASE_INSENSITIVE_ORDER);
+                break;
+            case EMAIL:
+                comparator = Comparator.comparing(Seller::getEmail, String.CASE_INSENSITIVE_ORDER);
+                break;
+            case BIRTH_DATE:
+                comparator = Comparator.comparing(Seller::getBirthDate);
+                break;
+            case BASE_SALARY:
+                comparator = Comparator.comparing(Seller::getBaseSalary);
+                break;
+            default:
+                comparator = (a, b) -> 0;
+        }
+        comparator = comparator.thenComparing(Seller::getId);
+        return sortOrder == SortOrder.DESCENDING ? comparator.reversed() : comparator;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SellerQuery that = (SellerQuery) o;
+        return Objects.equals(namePrefix, that.namePrefix) && Objects.equals(emailContains, that.emailContains)
+                && Objects.equals(minBaseSalary, that.minBaseSalary) && Objects.equals(maxBaseSalary, that.maxBaseSalary)
+                && Objects.equals(birthDateFrom, that.birthDateFrom) && Objects.equals(birthDateTo, that.birthDateTo)
+                && departmentIds.equals(that.departmentIds) && sortColumn == that.sortColumn && sortOrder == that.sortOrder;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(namePrefix, emailContains, minBaseSalary, maxBaseSalary, birthDateFrom, birthDateTo,
+                departmentIds, sortColumn, sortOrder);
+    }
+
+    @Override
+    public String toString() {
+        return "SellerQuery{" +
+                "namePrefix='" + namePrefix + '\'' +
+                ", emailContains='" + emailContains + '\'' +
+                ", minBaseSalary=" + minBaseSalary +
+                ", maxBaseSalary=" + maxBaseSalary +
+                ", birthDateFrom=" + birthDateFrom +
+                ", birthDateTo=" + birthDateTo +
+                ", departmentIds=" + departmentIds +
+                ", sortColumn=" + sortColumn +
+                ", sortOrder=" + sortOrder +
+                '}';
+    }
+}
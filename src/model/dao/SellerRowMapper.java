@@ -0,0 +1,111 @@
+package model.dao;
+
+import model.entities.Department;
+import model.entities.Seller;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+// Mapeia as linhas de "seller.*, department.Name as DepName" para entidades.
+// Os índices das colunas são resolvidos uma vez pelo ResultSetMetaData, então cada célula é lida
+// por posição em vez de procurar o label a cada linha.
+final class SellerRowMapper {
+
+    private final CachedDepartmentDao departmentCache;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final int id;
+    private final int name;
+    private final int email;
+    private final int birthDate;
+    private final int baseSalary;
+    private final int departmentId;
+    private final int departmentName;
+    // 0 quando a consulta não traz a coluna (banco ainda sem a migração 5)
+    private final int version;
+
+    private SellerRowMapper(ResultSetMetaData metaData, CachedDepartmentDao departmentCache) throws SQLException {
+        this.departmentCache = departmentCache;
+        int id = 0, name = 0, email = 0, birthDate = 0, baseSalary = 0, departmentId = 0, departmentName = 0,
+                version = 0;
+
+        for (int column = metaData.getColumnCount(); column >= 1; column--) {
+            // percorre de trás para frente para que a primeira coluna com o label vença
+            String label = metaData.getColumnLabel(column);
+            if (label.equalsIgnoreCase("Id")) {
+                id = column;
+            } else if (label.equalsIgnoreCase("Name")) {
+                name = column;
+            } else if (label.equalsIgnoreCase("Email")) {
+                email = column;
+            } else if (label.equalsIgnoreCase("BirthDate")) {
+                birthDate = column;
+            } else if (label.equalsIgnoreCase("BaseSalary")) {
+                baseSalary = column;
+            } else if (label.equalsIgnoreCase("DepartmentId")) {
+                departmentId = column;
+            } else if (label.equalsIgnoreCase("DepName")) {
+                departmentName = column;
+            } else if (label.equalsIgnoreCase("Version")) {
+                version = column;
+            }
+        }
+        if (id == 0 || name == 0 || email == 0 || birthDate == 0 || baseSalary == 0
+                || departmentId == 0 || departmentName == 0) {
+            throw new SQLException("Result set does not have the seller columns");
+        }
+
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.birthDate = birthDate;
+        this.baseSalary = baseSalary;
+        this.departmentId = departmentId;
+        this.departmentName = departmentName;
+        this.version = version;
+    }
+
+    static SellerRowMapper of(ResultSet resultSet, CachedDepartmentDao departmentCache) throws SQLException {
+        return new SellerRowMapper(resultSet.getMetaData(), departmentCache);
+    }
+
+    int departmentId(ResultSet resultSet) throws SQLException {
+        return resultSet.getInt(departmentId);
+    }
+
+    Department department(ResultSet resultSet) throws SQLException {
+        int depId = resultSet.getInt(departmentId);
+        String depName = resultSet.getString(departmentName);
+        if (departmentCache != null) {
+            return departmentCache.canonical(depId, depName);
+        }
+        return new Department(depId, depName);
+    }
+
+    Seller seller(ResultSet resultSet, Department department) throws SQLException {
+        Seller seller = new Seller();
+        seller.setId(resultSet.getInt(id));
+        seller.setName(resultSet.getString(name));
+        seller.setEmail(resultSet.getString(email));
+        seller.setBaseSalary(resultSet.getDouble(baseSalary));
+        seller.setBirthDate(toDate(resultSet.getObject(birthDate, LocalDate.class)));
+        seller.setDepartment(department);
+        if (version > 0) {
+            seller.setVersion(resultSet.getInt(version));
+        }
+        // acabou de sair do banco: nada a gravar
+        seller.markClean();
+        return seller;
+    }
+
+    private Date toDate(LocalDate localDate) {
+        if (localDate == null) {
+            return null;
+        }
+        return new Date(localDate.atStartOfDay(zone).toEpochSecond() * 1000L);
+    }
+}
@@ -0,0 +1,21 @@
+package model.dao;
+
+import model.entities.DepartmentStats;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface SellerStatsDao {
+
+    // uma linha por departamento, ordenada por nome; os números vêm do banco já agregados
+    List<DepartmentStats> findAll();
+
+    // true quando os números vêm da tabela de resumo e quem grava vendedores deve chamar refresh
+    boolean isSummaryMaintained();
+
+    // Recalcula o resumo só destes departamentos; sem efeito quando o resumo está desligado.
+    void refresh(Collection<Integer> departmentIds);
+
+    // Recalcula o resumo inteiro; sem efeito quando o resumo está desligado.
+    void rebuild();
+}
@@ -0,0 +1,277 @@
+package model.dao;
+
+import db.DB;
+import db.DbException;
+import db.Transaction;
+import model.entities.Department;
+import model.entities.DepartmentStats;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Números por departamento calculados no banco com GROUP BY DepartmentId: a tela recebe uma linha
+// por departamento, não os vendedores.
+// As faixas de idade comparam BirthDate com datas calculadas aqui (ver ageLimits), então a mesma
+// consulta vale no MySQL e no H2 e não depende do relógio do banco.
+// Com setSummaryMaintained(true) findAll lê a tabela department_stats, recalculada por departamento
+// a cada gravação (refresh) e inteira uma vez por dia, quando as idades mudam (rebuild).
+public class SellerStatsDaoJDBC implements SellerStatsDao {
+
+    private static final Logger LOGGER = Logger.getLogger(SellerStatsDaoJDBC.class.getName());
+
+    // oito parâmetros, na ordem de ageLimits
+    static final String AGGREGATE_COLUMNS = "COUNT(*) AS Headcount, SUM(BaseSalary) AS TotalSalary,\n" +
+            "  MIN(BaseSalary) AS MinSalary, MAX(BaseSalary) AS MaxSalary,\n" +
+            "  SUM(CASE WHEN BirthDate > ? THEN 1 ELSE 0 END) AS Under25,\n" +
+            "  SUM(CASE WHEN BirthDate <= ? AND BirthDate > ? THEN 1 ELSE 0 END) AS From25To34,\n" +
+            "  SUM(CASE WHEN BirthDate <= ? AND BirthDate > ? THEN 1 ELSE 0 END) AS From35To44,\n" +
+            "  SUM(CASE WHEN BirthDate <= ? AND BirthDate > ? THEN 1 ELSE 0 END) AS From45To54,\n" +
+            "  SUM(CASE WHEN BirthDate <= ? THEN 1 ELSE 0 END) AS From55\n";
+
+    static final String STATS_COLUMNS = "department.Id, department.Name, s.Headcount, s.TotalSalary,\n" +
+            "  s.MinSalary, s.MaxSalary, s.Under25, s.From25To34, s.From35To44, s.From45To54, s.From55\n";
+
+    // LEFT JOIN: departamento sem vendedores também aparece, com zero
+    static final String FIND_ALL = "SELECT " + STATS_COLUMNS +
+            "FROM department LEFT JOIN (\n" +
+            "  SELECT DepartmentId, " + AGGREGATE_COLUMNS +
+            "  FROM seller GROUP BY DepartmentId) s ON s.DepartmentId = department.Id\n" +
+            "ORDER BY department.Name";
+
+    static final String FIND_SUMMARY = "SELECT " + STATS_COLUMNS +
+            "FROM department LEFT JOIN department_stats s ON s.DepartmentId = department.Id\n" +
+            "ORDER BY department.Name";
+
+    static final String SUMMARY_STATE = "SELECT COUNT(*), MIN(AsOf) FROM department_stats";
+
+    static final String ANY_SUMMARY = "SELECT DepartmentId FROM department_stats LIMIT 1";
+
+    // oito parâmetros de ageLimits e a data do cálculo
+    static final String INSERT_SUMMARY = "INSERT INTO department_stats (DepartmentId, Headcount, TotalSalary,\n" +
+            "  MinSalary, MaxSalary, Under25, From25To34, From35To44, From45To54, From55, AsOf)\n" +
+            "SELECT DepartmentId, " + AGGREGATE_COLUMNS + ", ?\n" +
+            "FROM seller\n";
+
+    private DataSource dataSource;
+
+    // consultas; pode ser uma réplica (ver DaoFactory)
+    private DataSource readDataSource;
+
+    private boolean summaryMaintained;
+
+    // um refresh falhou: o resumo deste processo não é confiável até o próximo rebuild
+    private volatile boolean stale;
+
+    public SellerStatsDaoJDBC(DataSource dataSource){
+        this.dataSource = dataSource;
+        this.readDataSource = dataSource;
+    }
+
+    public void setReadDataSource(DataSource readDataSource) {
+        this.readDataSource = readDataSource;
+    }
+
+    public void setSummaryMaintained(boolean summaryMaintained) {
+        this.summaryMaintained = summaryMaintained;
+    }
+
+    @Override
+    public boolean isSummaryMaintained() {
+        return summaryMaintained;
+    }
+
+    @Override
+    public List<DepartmentStats> findAll() {
+        LocalDate today = LocalDate.now();
+        if (!summaryMaintained) {
+            return query(FIND_ALL, ageLimits(today));
+        }
+        if (stale || summaryOutdated(today)) {
+            rebuild();
+        }
+        return query(FIND_SUMMARY);
+    }
+
+    @Override
+    public void refresh(Collection<Integer> departmentIds) {
+        if (!summaryMaintained || departmentIds.isEmpty()) {
+            return;
+        }
+        try {
+            writeSummary(departmentIds);
+        }
+        catch (DbException e) {
+            // a gravação do vendedor já foi confirmada; o painel se corrige no próximo findAll
+            stale = true;
+            LOGGER.log(Level.WARNING, "Could not refresh department_stats for " + departmentIds, e);
+        }
+    }
+
+    @Override
+    public void rebuild() {
+        if (!summaryMaintained) {
+            return;
+        }
+        writeSummary(null);
+        stale = false;
+    }
+
+    // Datas de corte das faixas de idade, na ordem dos parâmetros de AGGREGATE_COLUMNS.
+    // Quem nasceu até today.minusYears(25), inclusive, já fez 25 anos.
+    static Object[] ageLimits(LocalDate today) {
+        LocalDate age25 = today.minusYears(25);
+        LocalDate age35 = today.minusYears(35);
+        LocalDate age45 = today.minusYears(45);
+        LocalDate age55 = today.minusYears(55);
+        return new Object[]{age25, age25, age35, age35, age45, age45, age55, age55};
+    }
+
+    // Vazio ou calculado em outro dia: as faixas de idade já não batem.
+    private boolean summaryOutdated(LocalDate today) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+
+        try {
+            connection = readDataSource.getConnection();
+            preparedStatement = connection.prepareStatement(SUMMARY_STATE);
+            resultSet = preparedStatement.executeQuery();
+            if (!resultSet.next() || resultSet.getInt(1) == 0) {
+                return true;
+            }
+            LocalDate asOf = resultSet.getObject(2, LocalDate.class);
+            return asOf == null || asOf.isBefore(today);
+        }
+        catch (SQLException sqlException) {
+            throw new DbException(sqlException.getMessage(), sqlException);
+        }
+        finally {
+            DB.closeResultSet(resultSet);
+            DB.closeStatement(preparedStatement);
+            DB.closeConnection(connection);
+        }
+    }
+
+    // departmentIds null = todos. Apaga e insere na mesma transação, então quem lê o resumo nunca
+    // vê um departamento faltando.
+    private void writeSummary(Collection<Integer> departmentIds) {
+        LocalDate today = LocalDate.now();
+
+        try (Transaction transaction = Transaction.begin(dataSource, Transaction.DEFAULT_ISOLATION, false)) {
+            Connection connection = transaction.getDataSource().getConnection();
+            // tabela vazia = resumo ainda não montado; montar só alguns departamentos faria o
+            // painel mostrar os outros zerados. O próximo findAll monta tudo.
+            if (departmentIds != null && !hasSummary(connection)) {
+                return;
+            }
+
+            String filter = departmentIds == null ? ""
+                    : "WHERE DepartmentId IN (" + String.join(", ", Collections.nCopies(departmentIds.size(), "?")) + ")\n";
+            PreparedStatement preparedStatement = null;
+            try {
+                preparedStatement = connection.prepareStatement("DELETE FROM department_stats\n" + filter);
+                int index = 1;
+                if (departmentIds != null) {
+                    for (Integer id : departmentIds) {
+                        preparedStatement.setInt(index++, id);
+                    }
+                }
+                preparedStatement.executeUpdate();
+                DB.closeStatement(preparedStatement);
+
+                preparedStatement = connection.prepareStatement(INSERT_SUMMARY + filter + "GROUP BY DepartmentId");
+                index = 1;
+                for (Object limit : ageLimits(today)) {
+                    preparedStatement.setObject(index++, limit);
+                }
+                preparedStatement.setObject(index++, today);
+                if (departmentIds != null) {
+                    for (Integer id : departmentIds) {
+                        preparedStatement.setInt(index++, id);
+                    }
+                }
+                preparedStatement.executeUpdate();
+            }
+            finally {
+                DB.closeStatement(preparedStatement);
+            }
+            transaction.commit();
+        }
+        catch (SQLException sqlException) {
+            throw new DbException(sqlException.getMessage(), sqlException);
+        }
+    }
+
+    private static boolean hasSummary(Connection connection) throws SQLException {
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        try {
+            preparedStatement = connection.prepareStatement(ANY_SUMMARY);
+            resultSet = preparedStatement.executeQuery();
+            return resultSet.next();
+        }
+        finally {
+            DB.closeResultSet(resultSet);
+            DB.closeStatement(preparedStatement);
+        }
+    }
+
+    private List<DepartmentStats> query(String sql, Object... parameters) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+
+        try {
+            connection = readDataSource.getConnection();
+            preparedStatement = connection.prepareStatement(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                preparedStatement.setObject(i + 1, parameters[i]);
+            }
+            resultSet = preparedStatement.executeQuery();
+
+            List<DepartmentStats> list = new ArrayList<>();
+            while (resultSet.next()) {
+                list.add(instantiateStats(resultSet));
+            }
+            return list;
+        }
+        catch (SQLException sqlException) {
+            throw new DbException(sqlException.getMessage(), sqlException);
+        }
+        finally {
+            DB.closeResultSet(resultSet);
+            DB.closeStatement(preparedStatement);
+            DB.closeConnection(connection);
+        }
+    }
+
+    // Colunas na ordem de STATS_COLUMNS; sem vendedores as colunas de s vêm null.
+    private static DepartmentStats instantiateStats(ResultSet resultSet) throws SQLException {
+        DepartmentStats stats = new DepartmentStats(new Department(resultSet.getInt(1), resultSet.getString(2)));
+        stats.setHeadcount(resultSet.getInt(3));
+        stats.setTotalSalary(doubleOrNull(resultSet, 4));
+        stats.setMinSalary(doubleOrNull(resultSet, 5));
+        stats.setMaxSalary(doubleOrNull(resultSet, 6));
+        stats.setUnder25(resultSet.getInt(7));
+        stats.setFrom25To34(resultSet.getInt(8));
+        stats.setFrom35To44(resultSet.getInt(9));
+        stats.setFrom45To54(resultSet.getInt(10));
+        stats.setFrom55(resultSet.getInt(11));
+        return stats;
+    }
+
+    private static Double doubleOrNull(ResultSet resultSet, int column) throws SQLException {
+        double value = resultSet.getDouble(column);
+        return resultSet.wasNull() ? null : value;
+    }
+}
@@ -0,0 +1,97 @@
+package model.dao;
+
+import db.Transaction;
+
+import javax.sql.DataSource;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Roda um bloco de código em uma transação: confirma se o bloco terminar normalmente e desfaz
+// se ele lançar exceção. Todas as gravações feitas pelos DAOs do UnitOfWork viram um só commit.
+//
+//   template.inTransaction(work -> {
+//       work.getSellerDao().insertAll(novos);
+//       work.getSellerDao().updateAll(alterados);
+//       return null;
+//   });
+//
+// Os DAOs do UnitOfWork saem das fábricas configuradas aqui (por padrão SellerDaoJDBC e
+// DepartmentDaoJDBC sobre a conexão da transação); o DaoFactory troca pelas do db.properties.
+public class TransactionTemplate {
+
+    private final DataSource dataSource;
+
+    private Function<DataSource, SellerDao> sellerDaoFactory = SellerDaoJDBC::new;
+
+    private Function<DataSource, DepartmentDao> departmentDaoFactory = DepartmentDaoJDBC::new;
+
+    // chamado depois de um commit que usou o DAO de departamentos; null = nada a fazer
+    private Runnable departmentsChanged;
+
+    private int isolation = Transaction.DEFAULT_ISOLATION;
+
+    private boolean readOnly;
+
+    public TransactionTemplate(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public int getIsolation() {
+        return isolation;
+    }
+
+    // Connection.TRANSACTION_READ_COMMITTED, TRANSACTION_REPEATABLE_READ etc.
+    public void setIsolation(int isolation) {
+        this.isolation = isolation;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    // No MySQL vira START TRANSACTION READ ONLY, que dispensa o controle de escrita do InnoDB.
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    // Recebe o DataSource da transação; o DAO criado precisa usar só ele.
+    public void setSellerDaoFactory(Function<DataSource, SellerDao> sellerDaoFactory) {
+        this.sellerDaoFactory = sellerDaoFactory;
+    }
+
+    public void setDepartmentDaoFactory(Function<DataSource, DepartmentDao> departmentDaoFactory) {
+        this.departmentDaoFactory = departmentDaoFactory;
+    }
+
+    // Ex.: invalidar um cache de departamentos, que não enxerga a transação.
+    public void setDepartmentsChanged(Runnable departmentsChanged) {
+        this.departmentsChanged = departmentsChanged;
+    }
+
+    public <T> T inTransaction(Function<UnitOfWork, T> callback) {
+        UnitOfWork work;
+        T result;
+        boolean committed = false;
+        try (Transaction transaction = Transaction.begin(dataSource, isolation, readOnly)) {
+            work = new UnitOfWork(transaction, sellerDaoFactory, departmentDaoFactory);
+            result = callback.apply(work);
+            if (work.isRollbackOnly()) {
+                transaction.rollback();
+            } else {
+                transaction.commit();
+                committed = true;
+            }
+        }
+        if (committed && work.usedDepartments() && departmentsChanged != null) {
+            departmentsChanged.run();
+        }
+        return result;
+    }
+
+    public void runInTransaction(Consumer<UnitOfWork> callback) {
+        inTransaction(work -> {
+            callback.accept(work);
+            return null;
+        });
+    }
+}
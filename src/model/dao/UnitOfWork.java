@@ -0,0 +1,72 @@
+package model.dao;
+
+import db.Transaction;
+
+import javax.sql.DataSource;
+import java.sql.Savepoint;
+import java.util.function.Function;
+
+// DAOs que compartilham a conexão de uma transação aberta pelo TransactionTemplate.
+// Os DAOs são criados na primeira vez que são pedidos, pelas fábricas do template.
+public class UnitOfWork {
+
+    private final Transaction transaction;
+    private final Function<DataSource, SellerDao> sellerDaoFactory;
+    private final Function<DataSource, DepartmentDao> departmentDaoFactory;
+
+    private SellerDao sellerDao;
+    private DepartmentDao departmentDao;
+    private boolean rollbackOnly;
+
+    UnitOfWork(Transaction transaction, Function<DataSource, SellerDao> sellerDaoFactory,
+               Function<DataSource, DepartmentDao> departmentDaoFactory) {
+        this.transaction = transaction;
+        this.sellerDaoFactory = sellerDaoFactory;
+        this.departmentDaoFactory = departmentDaoFactory;
+    }
+
+    public SellerDao getSellerDao() {
+        if (sellerDao == null) {
+            sellerDao = sellerDaoFactory.apply(transaction.getDataSource());
+        }
+        return sellerDao;
+    }
+
+    // Sem o cache: dentro da transação a leitura tem que ver o que ela mesma gravou.
+    public DepartmentDao getDepartmentDao() {
+        if (departmentDao == null) {
+            departmentDao = departmentDaoFactory.apply(transaction.getDataSource());
+        }
+        return departmentDao;
+    }
+
+    public Savepoint setSavepoint(String name) {
+        return transaction.setSavepoint(name);
+    }
+
+    public void rollbackTo(Savepoint savepoint) {
+        transaction.rollback(savepoint);
+    }
+
+    public void releaseSavepoint(Savepoint savepoint) {
+        transaction.releaseSavepoint(savepoint);
+    }
+
+    // Desfaz tudo no final em vez de confirmar, sem precisar lançar exceção. Os DAOs continuam
+    // usáveis até o fim do bloco.
+    public void setRollbackOnly() {
+        rollbackOnly = true;
+    }
+
+    public boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+
+    boolean usedDepartments() {
+        return departmentDao != null;
+    }
+
+    Transaction getTransaction() {
+        return transaction;
+    }
+}
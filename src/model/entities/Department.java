@@ -1,12 +1,17 @@
 package model.entities;
 
+import java.io.Serializable;
 import java.util.Objects;
 
-public class Department {
+public class Department implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     private Integer id;
     private String Name;
 
+    // versão lida do banco; o update só grava se ela ainda for a mesma
+    private int version;
+
     public Department(){
 
     }
@@ -32,12 +37,20 @@ public class Department {
         Name = name;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Department that = (Department) o;
-        return id.equals(that.id) && Name.equals(that.Name);
+        return Objects.equals(id, that.id) && Objects.equals(Name, that.Name);
     }
 
     @Override
@@ -0,0 +1,131 @@
+package model.entities;
+
+import java.io.Serializable;
+
+// Números de um departamento para o painel: quantidade de vendedores, salários e faixas de idade.
+// Departamento sem vendedores vem com headcount 0 e salários null.
+public class DepartmentStats implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private Department department;
+    private int headcount;
+    private Double totalSalary;
+    private Double minSalary;
+    private Double maxSalary;
+
+    // idade em anos completos na data da consulta
+    private int under25;
+    private int from25To34;
+    private int from35To44;
+    private int from45To54;
+    private int from55;
+
+    public DepartmentStats(){
+
+    }
+
+    public DepartmentStats(Department department) {
+        this.department = department;
+    }
+
+    public Department getDepartment() {
+        return department;
+    }
+
+    public void setDepartment(Department department) {
+        this.department = department;
+    }
+
+    public int getHeadcount() {
+        return headcount;
+    }
+
+    public void setHeadcount(int headcount) {
+        this.headcount = headcount;
+    }
+
+    public Double getTotalSalary() {
+        return totalSalary;
+    }
+
+    public void setTotalSalary(Double totalSalary) {
+        this.totalSalary = totalSalary;
+    }
+
+    // calculada aqui para que o resumo guarde só somas, que se recalculam por departamento
+    public Double getAverageSalary() {
+        return headcount == 0 || totalSalary == null ? null : totalSalary / headcount;
+    }
+
+    public Double getMinSalary() {
+        return minSalary;
+    }
+
+    public void setMinSalary(Double minSalary) {
+        this.minSalary = minSalary;
+    }
+
+    public Double getMaxSalary() {
+        return maxSalary;
+    }
+
+    public void setMaxSalary(Double maxSalary) {
+        this.maxSalary = maxSalary;
+    }
+
+    public int getUnder25() {
+        return under25;
+    }
+
+    public void setUnder25(int under25) {
+        this.under25 = under25;
+    }
+
+    public int getFrom25To34() {
+        return from25To34;
+    }
+
+    public void setFrom25To34(int from25To34) {
+        this.from25To34 = from25To34;
+    }
+
+    public int getFrom35To44() {
+        return from35To44;
+    }
+
+    public void setFrom35To44(int from35To44) {
+        this.from35To44 = from35To44;
+    }
+
+    public int getFrom45To54() {
+        return from45To54;
+    }
+
+    public void setFrom45To54(int from45To54) {
+        this.from45To54 = from45To54;
+    }
+
+    public int getFrom55() {
+        return from55;
+    }
+
+    public void setFrom55(int from55) {
+        this.from55 = from55;
+    }
+
+    @Override
+    public String toString() {
+        return "DepartmentStats{" +
+                "department=" + department +
+                ", headcount=" + headcount +
+                ", totalSalary=" + totalSalary +
+                ", minSalary=" + minSalary +
+                ", maxSalary=" + maxSalary +
+                ", under25=" + under25 +
+                ", from25To34=" + from25To34 +
+                ", from35To44=" + from35To44 +
+                ", from45To54=" + from45To54 +
+                ", from55=" + from55 +
+                '}';
+    }
+}
@@ -1,9 +1,19 @@
 package model.entities;
 
+import java.io.Serializable;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.Objects;
+import java.util.Set;
 
-public class Seller {
+public class Seller implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // Colunas que podem ser gravadas por um update
+    public enum Field {
+        NAME, EMAIL, BIRTH_DATE, BASE_SALARY, DEPARTMENT
+    }
 
     private Integer id;
     private String name;
@@ -13,10 +23,32 @@ public class Seller {
 
     private Department department;
 
+    // versão lida do banco; o update só grava se ela ainda for a mesma
+    private int version;
+
+    // campos alterados desde a leitura; o DAO grava só estes
+    private final Set<Field> dirtyFields = EnumSet.noneOf(Field.class);
+
+    // departamento gravado no banco na última leitura ou gravação; null se o vendedor não veio do banco
+    private Integer loadedDepartmentId;
+
     public Seller(){
 
     }
 
+    // Cópia para edição: a versão e os campos alterados vêm junto, o original fica intacto.
+    public Seller(Seller other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.email = other.email;
+        this.birthDate = other.birthDate;
+        this.baseSalary = other.baseSalary;
+        this.department = other.department;
+        this.version = other.version;
+        this.dirtyFields.addAll(other.dirtyFields);
+        this.loadedDepartmentId = other.loadedDepartmentId;
+    }
+
     public Seller(Integer id, String name, String email, Date birthDate, Double baseSalary,
                   Department department) {
         this.id = id;
@@ -25,6 +57,7 @@ public class Seller {
         this.birthDate = birthDate;
         this.baseSalary = baseSalary;
         this.department = department;
+        dirtyFields.addAll(EnumSet.allOf(Field.class));
     }
 
     public Integer getId() {
@@ -40,6 +73,9 @@ public class Seller {
     }
 
     public void setName(String name) {
+        if (!Objects.equals(this.name, name)) {
+            dirtyFields.add(Field.NAME);
+        }
         this.name = name;
     }
 
@@ -48,6 +84,9 @@ public class Seller {
     }
 
     public void setEmail(String email) {
+        if (!Objects.equals(this.email, email)) {
+            dirtyFields.add(Field.EMAIL);
+        }
         this.email = email;
     }
 
@@ -56,6 +95,9 @@ public class Seller {
     }
 
     public void setBirthDate(Date birthDate) {
+        if (!Objects.equals(this.birthDate, birthDate)) {
+            dirtyFields.add(Field.BIRTH_DATE);
+        }
         this.birthDate = birthDate;
     }
 
@@ -64,6 +106,9 @@ public class Seller {
     }
 
     public void setBaseSalary(Double baseSalary) {
+        if (!Objects.equals(this.baseSalary, baseSalary)) {
+            dirtyFields.add(Field.BASE_SALARY);
+        }
         this.baseSalary = baseSalary;
     }
 
@@ -72,9 +117,42 @@ public class Seller {
     }
 
     public void setDepartment(Department department) {
+        if (!Objects.equals(departmentId(this.department), departmentId(department))) {
+            dirtyFields.add(Field.DEPARTMENT);
+        }
         this.department = department;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    public boolean isDirty() {
+        return !dirtyFields.isEmpty();
+    }
+
+    public Set<Field> getDirtyFields() {
+        return Collections.unmodifiableSet(dirtyFields);
+    }
+
+    public Integer getLoadedDepartmentId() {
+        return loadedDepartmentId;
+    }
+
+    // Chamado pelo DAO depois de ler ou gravar a linha.
+    public void markClean() {
+        dirtyFields.clear();
+        loadedDepartmentId = departmentId(department);
+    }
+
+    private static Integer departmentId(Department department) {
+        return department == null ? null : department.getId();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -97,6 +175,7 @@ public class Seller {
                 ", birthDate=" + birthDate +
                 ", baseSalary=" + baseSalary +
                 ", department=" + department +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,166 @@
+package model.services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Lê um CSV em UTF-8 (RFC 4180: aspas duplas, "" dentro de aspas, quebras de linha dentro de aspas)
+// por janelas mapeadas do arquivo, então a memória usada não depende do tamanho do arquivo.
+// Separador, aspas e quebras de linha são ASCII e nunca aparecem dentro de um caractere UTF-8
+// de vários bytes, por isso os bytes são varridos direto e só cada campo pronto é decodificado.
+// Erros de leitura do arquivo saem como UncheckedIOException.
+public class CsvReader implements Closeable {
+
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final byte separator;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    private byte[] field = new byte[256];
+    private int fieldLength;
+
+    private long line = 1;
+    private long recordLine;
+
+    public CsvReader(Path file, char separator) {
+        this.separator = (byte) separator;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            size = channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open " + file + ": " + e.getMessage(), e);
+        }
+        // BOM do Excel
+        if (peek() == 0xEF && size >= 3 && window.get(1) == (byte) 0xBB && window.get(2) == (byte) 0xBF) {
+            window.position(3);
+        }
+    }
+
+    // Próximo registro, ou null no fim do arquivo. Linhas em branco são puladas.
+    public String[] next() {
+        List<String> fields = new ArrayList<>();
+        boolean quoted = false;
+        boolean fieldQuoted = false;
+        recordLine = line;
+        while (true) {
+            int b = read();
+            if (b < 0) {
+                if (fields.isEmpty() && fieldLength == 0 && !fieldQuoted) {
+                    return null;
+                }
+                fields.add(takeField());
+                return fields.toArray(new String[0]);
+            }
+            if (quoted) {
+                if (b == '"') {
+                    if (peek() == '"') {
+                        read();
+                        append(b);
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (b == '\n') {
+                        line++;
+                    }
+                    append(b);
+                }
+            } else if (b == '"') {
+                quoted = true;
+                fieldQuoted = true;
+            } else if (b == separator) {
+                fields.add(takeField());
+                fieldQuoted = false;
+            } else if (b == '\n') {
+                line++;
+                if (fields.isEmpty() && fieldLength == 0 && !fieldQuoted) {
+                    recordLine = line;
+                    continue;
+                }
+                fields.add(takeField());
+                return fields.toArray(new String[0]);
+            } else if (b != '\r') {
+                append(b);
+            }
+        }
+    }
+
+    // Linha do arquivo onde começa o último registro devolvido por next().
+    public long getLineNumber() {
+        return recordLine;
+    }
+
+    public long getPosition() {
+        return window == null ? 0 : windowStart + window.position();
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int read() {
+        if (!hasRemaining()) {
+            return -1;
+        }
+        return window.get() & 0xFF;
+    }
+
+    private int peek() {
+        if (!hasRemaining()) {
+            return -1;
+        }
+        return window.get(window.position()) & 0xFF;
+    }
+
+    private boolean hasRemaining() {
+        if (window != null && window.hasRemaining()) {
+            return true;
+        }
+        long start = window == null ? 0 : windowStart + window.limit();
+        if (start >= size) {
+            return false;
+        }
+        try {
+            // a janela anterior é liberada pelo GC; o heap só guarda o registro corrente
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, size - start));
+            windowStart = start;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the file: " + e.getMessage(), e);
+        }
+        return true;
+    }
+
+    private void append(int b) {
+        if (fieldLength == field.length) {
+            field = Arrays.copyOf(field, field.length * 2);
+        }
+        field[fieldLength++] = (byte) b;
+    }
+
+    private String takeField() {
+        String value = new String(field, 0, fieldLength, StandardCharsets.UTF_8);
+        fieldLength = 0;
+        return value;
+    }
+}
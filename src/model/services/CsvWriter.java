@@ -0,0 +1,44 @@
+package model.services;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// Escreve linhas de CSV (RFC 4180): campos com separador, aspas ou quebra de linha vão entre aspas.
+public class CsvWriter {
+
+    private final Writer out;
+    private final char separator;
+
+    public CsvWriter(Writer out, char separator) {
+        this.out = out;
+        this.separator = separator;
+    }
+
+    public void writeRow(String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(separator);
+            }
+            writeField(values[i]);
+        }
+        out.write("\r\n");
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == separator || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
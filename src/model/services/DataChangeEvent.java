@@ -0,0 +1,51 @@
+package model.services;
+
+// Uma gravação feita por um service: o tipo da mudança, o id e a entidade como foi gravada.
+// sequence é o número da gravação no service; leituras feitas depois que ela começou
+// (currentWriteSequence() >= sequence) podem já conter a mudança.
+public class DataChangeEvent<T> {
+
+    public enum Type {
+        INSERTED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+    private final Integer id;
+    private final T entity;
+    private final long sequence;
+
+    public DataChangeEvent(Type type, Integer id, T entity, long sequence) {
+        this.type = type;
+        this.id = id;
+        this.entity = entity;
+        this.sequence = sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public T getEntity() {
+        return entity;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public String toString() {
+        return "DataChangeEvent{" +
+                "type=" + type +
+                ", id=" + id +
+                ", entity=" + entity +
+                ", sequence=" + sequence +
+                '}';
+    }
+}
@@ -0,0 +1,8 @@
+package model.services;
+
+// Os services chamam o listener na thread que fez a gravação (normalmente a do ServiceExecutor);
+// quem mexe na tela deve repassar com Platform.runLater.
+public interface DataChangeListener<T> {
+
+    void onDataChanged(DataChangeEvent<T> event);
+}
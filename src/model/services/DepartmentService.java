@@ -6,26 +6,81 @@ import model.dao.DepartmentDao;
 import model.entities.Department;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class DepartmentService {
 
-    private DepartmentDao departmentDao = DaoFactory.createDepartmentDao();
+    private final DepartmentDao departmentDao;
+
+    private final List<DataChangeListener<Department>> dataChangeListeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong writeSequence = new AtomicLong();
+
+    // DAO do DaoFactory, conforme o db.properties
+    public DepartmentService(){
+        this(DaoFactory.createDepartmentDao());
+    }
+
+    public DepartmentService(DepartmentDao departmentDao){
+        this.departmentDao = departmentDao;
+    }
 
     public List<Department> findAll(){
         return departmentDao.findAll();
     }
 
+    // Número da última gravação iniciada; ver DataChangeEvent.getSequence().
+    public long currentWriteSequence(){
+        return writeSequence.get();
+    }
+
+    public void subscribeChangeListener(DataChangeListener<Department> listener){
+        dataChangeListeners.add(listener);
+    }
+
+    public void unsubscribeChangeListener(DataChangeListener<Department> listener){
+        dataChangeListeners.remove(listener);
+    }
+
     public void savedOrUpdate(Department department){
+        long sequence = writeSequence.incrementAndGet();
+        DataChangeEvent.Type type;
         if(department.getId() == null){
             departmentDao.insert(department);
+            type = DataChangeEvent.Type.INSERTED;
         }
         else {
             departmentDao.update(department);
+            type = DataChangeEvent.Type.UPDATED;
         }
+        notifyDataChangeListeners(type, department, sequence);
     }
 
     public void remove(Department obj){
+        long sequence = writeSequence.incrementAndGet();
         departmentDao.deleteById(obj.getId());
+        notifyDataChangeListeners(DataChangeEvent.Type.DELETED, obj, sequence);
+    }
+
+    private void notifyDataChangeListeners(DataChangeEvent.Type type, Department department, long sequence){
+        DataChangeEvent<Department> event = new DataChangeEvent<>(type, department.getId(), department, sequence);
+        for (DataChangeListener<Department> listener : dataChangeListeners){
+            listener.onDataChanged(event);
+        }
+    }
+
+    public CompletableFuture<List<Department>> findAllAsync(){
+        return CompletableFuture.supplyAsync(this::findAll, ServiceExecutor.get());
+    }
+
+    public CompletableFuture<Void> savedOrUpdateAsync(Department department){
+        return CompletableFuture.runAsync(() -> savedOrUpdate(department), ServiceExecutor.get());
+    }
+
+    public CompletableFuture<Void> removeAsync(Department obj){
+        return CompletableFuture.runAsync(() -> remove(obj), ServiceExecutor.get());
     }
 
 }
@@ -0,0 +1,67 @@
+package model.services;
+
+// Retrato do andamento de uma importação; o último é o resultado final.
+public class ImportProgress {
+
+    private final long rowsRead;
+    private final long rowsImported;
+    private final long rowsRejected;
+    private final long bytesRead;
+    private final long totalBytes;
+    private final long elapsedNanos;
+    private final boolean finished;
+
+    public ImportProgress(long rowsRead, long rowsImported, long rowsRejected, long bytesRead, long totalBytes,
+                          long elapsedNanos, boolean finished) {
+        this.rowsRead = rowsRead;
+        this.rowsImported = rowsImported;
+        this.rowsRejected = rowsRejected;
+        this.bytesRead = bytesRead;
+        this.totalBytes = totalBytes;
+        this.elapsedNanos = elapsedNanos;
+        this.finished = finished;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    // De 0 a 1, pelos bytes já lidos do arquivo.
+    public double getFraction() {
+        return totalBytes == 0 ? 1 : (double) bytesRead / totalBytes;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : (rowsImported + rowsRejected) * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d rows read, %,d imported, %,d rejected (%.0f%%, %,.0f rows/s)",
+                rowsRead, rowsImported, rowsRejected, getFraction() * 100, getRowsPerSecond());
+    }
+}
@@ -0,0 +1,401 @@
+package model.services;
+
+import db.DbException;
+import model.dao.DaoFactory;
+import model.dao.DepartmentDao;
+import model.dao.SellerDao;
+import model.dao.SellerStatsDao;
+import model.entities.Department;
+import model.entities.Seller;
+import model.exceptions.ValidationException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Importa vendedores de um CSV com cabeçalho (Name, Email, BirthDate, BaseSalary, Department,
+// em qualquer ordem e sem diferenciar maiúsculas).
+// Uma thread lê o arquivo em blocos de CHUNK_SIZE registros, as threads de validação convertem e
+// validam os blocos em paralelo e a thread que chamou importFile grava os válidos com insertAll,
+// na ordem do arquivo. No máximo dois blocos por thread de validação existem ao mesmo tempo, então
+// a memória não cresce com o tamanho do arquivo.
+// As linhas recusadas vão para o arquivo de rejeitados com o número da linha e o motivo.
+// Problemas com o CSV ou com o arquivo de rejeitados saem como UncheckedIOException; os do banco,
+// como DbException.
+public class SellerCsvImporter {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final String[] COLUMNS = {"name", "email", "birthdate", "basesalary", "department"};
+    private static final int NAME = 0, EMAIL = 1, BIRTH_DATE = 2, BASE_SALARY = 3, DEPARTMENT = 4;
+
+    private static final Future<Chunk> END = CompletableFuture.completedFuture(null);
+
+    private final SellerDao sellerDao;
+    private final DepartmentDao departmentDao;
+
+    // resumo do painel, recalculado no fim para os departamentos que receberam vendedores; null = nenhum
+    private final SellerStatsDao statsDao;
+
+    // departamentos dos vendedores gravados; só a thread de importFile mexe
+    private final Set<Integer> loadedDepartments = new HashSet<>();
+
+    private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private char separator = ',';
+    private DateTimeFormatter dateFormat = DateTimeFormatter.ISO_LOCAL_DATE;
+    private long progressIntervalMillis = 250;
+    private Consumer<ImportProgress> progressListener = progress -> { };
+
+    // DAOs do DaoFactory, conforme o db.properties
+    public SellerCsvImporter() {
+        this(DaoFactory.createSellerDao(), DaoFactory.createDepartmentDao(), DaoFactory.createSellerStatsDao());
+    }
+
+    public SellerCsvImporter(SellerDao sellerDao, DepartmentDao departmentDao) {
+        this(sellerDao, departmentDao, null);
+    }
+
+    public SellerCsvImporter(SellerDao sellerDao, DepartmentDao departmentDao, SellerStatsDao statsDao) {
+        this.sellerDao = sellerDao;
+        this.departmentDao = departmentDao;
+        this.statsDao = statsDao;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public void setSeparator(char separator) {
+        this.separator = separator;
+    }
+
+    // Padrão do DateTimeFormatter para a coluna BirthDate; o padrão é yyyy-MM-dd.
+    public void setDateFormat(String pattern) {
+        this.dateFormat = DateTimeFormatter.ofPattern(pattern);
+    }
+
+    public void setProgressIntervalMillis(long progressIntervalMillis) {
+        this.progressIntervalMillis = progressIntervalMillis;
+    }
+
+    // Chamado pela thread do importFile no máximo a cada progressIntervalMillis e uma vez no fim.
+    public void setProgressListener(Consumer<ImportProgress> progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    public ImportProgress importFile(Path csvFile, Path rejectFile) {
+        long start = System.nanoTime();
+        // os departamentos são lidos uma vez e cada linha só consulta o mapa
+        Map<String, Department> departments = new HashMap<>();
+        for (Department department : departmentDao.findAll()) {
+            departments.put(key(department.getName()), department);
+        }
+
+        CsvReader reader = new CsvReader(csvFile, separator);
+        ExecutorService workers = null;
+        Thread readerThread = null;
+        try (Writer rejectWriter = Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8)) {
+            String[] header = reader.next();
+            int[] columns = columns(header);
+            CsvWriter rejects = new CsvWriter(rejectWriter, separator);
+            String[] rejectHeader = new String[header.length + 2];
+            rejectHeader[0] = "Line";
+            rejectHeader[1] = "Error";
+            System.arraycopy(header, 0, rejectHeader, 2, header.length);
+            rejects.writeRow(rejectHeader);
+
+            Semaphore inFlight = new Semaphore(threads * 2);
+            BlockingQueue<Future<Chunk>> chunks = new LinkedBlockingQueue<>();
+            AtomicInteger threadNumber = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "csv-import-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            ExecutorService validators = workers;
+            readerThread = new Thread(() -> readChunks(reader, columns, departments, validators, inFlight, chunks),
+                    "csv-import-reader");
+            readerThread.setDaemon(true);
+            readerThread.start();
+
+            long rowsRead = 0, imported = 0, rejected = 0, position = 0;
+            long lastReport = System.nanoTime();
+            Chunk chunk;
+            while ((chunk = take(chunks)) != null) {
+                List<Row> valid = new ArrayList<>(chunk.rows.size());
+                for (Row row : chunk.rows) {
+                    if (row.error == null) {
+                        valid.add(row);
+                    } else {
+                        reject(rejects, row, row.error);
+                        rejected++;
+                    }
+                }
+                int loaded = load(valid, rejects);
+                imported += loaded;
+                rejected += valid.size() - loaded;
+                rowsRead += chunk.rows.size();
+                position = chunk.position;
+                inFlight.release();
+
+                long now = System.nanoTime();
+                if (now - lastReport >= progressIntervalMillis * 1_000_000) {
+                    lastReport = now;
+                    progressListener.accept(new ImportProgress(rowsRead, imported, rejected, position,
+                            reader.getSize(), now - start, false));
+                }
+            }
+            ImportProgress result = new ImportProgress(rowsRead, imported, rejected, reader.getSize(),
+                    reader.getSize(), System.nanoTime() - start, true);
+            progressListener.accept(result);
+            return result;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + rejectFile + ": " + e.getMessage(), e);
+        }
+        finally {
+            if (readerThread != null) {
+                readerThread.interrupt();
+            }
+            if (workers != null) {
+                workers.shutdownNow();
+            }
+            reader.close();
+            // também quando a importação parou no meio: o que foi gravado fica
+            if (statsDao != null) {
+                statsDao.refresh(loadedDepartments);
+            }
+            loadedDepartments.clear();
+        }
+    }
+
+    private void readChunks(CsvReader reader, int[] columns, Map<String, Department> departments,
+                            ExecutorService validators, Semaphore inFlight, BlockingQueue<Future<Chunk>> chunks) {
+        try {
+            while (true) {
+                inFlight.acquire();
+                List<Row> rows = new ArrayList<>(CHUNK_SIZE);
+                String[] record;
+                while (rows.size() < CHUNK_SIZE && (record = reader.next()) != null) {
+                    rows.add(new Row(reader.getLineNumber(), record));
+                }
+                if (rows.isEmpty()) {
+                    chunks.put(END);
+                    return;
+                }
+                long position = reader.getPosition();
+                chunks.put(validators.submit(() -> {
+                    for (Row row : rows) {
+                        convert(row, columns, departments);
+                    }
+                    return new Chunk(rows, position);
+                }));
+            }
+        }
+        catch (InterruptedException e) {
+            // importFile terminou antes (erro na gravação)
+        }
+        catch (RuntimeException e) {
+            chunks.add(CompletableFuture.failedFuture(e));
+        }
+    }
+
+    // Roda nas threads de validação.
+    private void convert(Row row, int[] columns, Map<String, Department> departments) {
+        Seller seller = new Seller();
+        Map<String, String> errors = new HashMap<>();
+
+        seller.setName(value(row, columns[NAME]));
+        seller.setEmail(value(row, columns[EMAIL]));
+
+        String birthDate = value(row, columns[BIRTH_DATE]);
+        if (birthDate != null) {
+            try {
+                LocalDate date = LocalDate.parse(birthDate, dateFormat);
+                seller.setBirthDate(Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+            } catch (DateTimeParseException e) {
+                errors.put("birthDate", "Invalid date '" + birthDate + "'");
+            }
+        }
+
+        String baseSalary = value(row, columns[BASE_SALARY]);
+        if (baseSalary != null) {
+            try {
+                seller.setBaseSalary(Double.parseDouble(baseSalary));
+            } catch (NumberFormatException e) {
+                errors.put("baseSalary", "Invalid number '" + baseSalary + "'");
+            }
+        }
+
+        String departmentName = value(row, columns[DEPARTMENT]);
+        Department department = departmentName == null ? null : departments.get(key(departmentName));
+        if (department == null) {
+            errors.put("department", departmentName == null
+                    ? SellerValidator.EMPTY_FIELD : "Unknown department '" + departmentName + "'");
+        }
+        seller.setDepartment(department);
+
+        SellerValidator.errors(seller).forEach(errors::putIfAbsent);
+        if (errors.isEmpty()) {
+            row.seller = seller;
+        } else {
+            StringBuilder message = new StringBuilder();
+            errors.forEach((field, error) ->
+                    message.append(message.length() == 0 ? "" : "; ").append(field).append(": ").append(error));
+            row.error = message.toString();
+        }
+    }
+
+    // Um vendedor ruim (e-mail repetido, por exemplo) derruba o lote inteiro; aí os vendedores do
+    // bloco são gravados um a um para recusar só os que o banco não aceita. Qualquer outro erro
+    // (conexão perdida, pool esgotado, lock timeout) não é culpa das linhas e interrompe a importação.
+    private int load(List<Row> rows, CsvWriter rejects) throws IOException {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<Seller> sellers = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            sellers.add(row.seller);
+        }
+        try {
+            sellerDao.insertAll(sellers);
+            for (Seller seller : sellers) {
+                loadedDepartments.add(seller.getDepartment().getId());
+            }
+            return sellers.size();
+        }
+        catch (DbException e) {
+            if (!e.isIntegrityViolation()) {
+                throw e;
+            }
+            int loaded = 0;
+            for (Row row : rows) {
+                // o lote foi desfeito, mas os ids dos blocos que chegaram a executar ficaram preenchidos
+                row.seller.setId(null);
+                try {
+                    sellerDao.insert(row.seller);
+                    loadedDepartments.add(row.seller.getDepartment().getId());
+                    loaded++;
+                }
+                catch (DbException rowException) {
+                    if (!rowException.isIntegrityViolation()) {
+                        throw rowException;
+                    }
+                    reject(rejects, row, rowException.getMessage());
+                }
+            }
+            return loaded;
+        }
+    }
+
+    private static void reject(CsvWriter rejects, Row row, String error) throws IOException {
+        String[] values = new String[row.fields.length + 2];
+        values[0] = String.valueOf(row.line);
+        values[1] = error;
+        System.arraycopy(row.fields, 0, values, 2, row.fields.length);
+        rejects.writeRow(values);
+    }
+
+    private static Chunk take(BlockingQueue<Future<Chunk>> chunks) {
+        try {
+            return chunks.take().get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DbException("Import interrupted");
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new DbException(e.getCause().getMessage());
+        }
+    }
+
+    private static int[] columns(String[] header) {
+        ValidationException exception = new ValidationException("Invalid CSV header");
+        if (header == null) {
+            exception.addError("header", "The file is empty");
+            throw exception;
+        }
+        int[] columns = new int[COLUMNS.length];
+        for (int column = 0; column < COLUMNS.length; column++) {
+            columns[column] = -1;
+            for (int i = 0; i < header.length; i++) {
+                if (key(header[i]).equals(COLUMNS[column])) {
+                    columns[column] = i;
+                }
+            }
+            if (columns[column] < 0) {
+                exception.addError(COLUMNS[column], "Missing column");
+            }
+        }
+        if (!exception.getErrors().isEmpty()) {
+            throw exception;
+        }
+        return columns;
+    }
+
+    private static String value(Row row, int column) {
+        if (column >= row.fields.length) {
+            return null;
+        }
+        String value = row.fields[column].trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String key(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static class Row {
+
+        final long line;
+        final String[] fields;
+        // preenchido pela validação: seller quando a linha é válida, error quando não é
+        Seller seller;
+        String error;
+
+        Row(long line, String[] fields) {
+            this.line = line;
+            this.fields = fields;
+        }
+    }
+
+    private static class Chunk {
+
+        final List<Row> rows;
+        // bytes do arquivo lidos até o fim deste bloco
+        final long position;
+
+        Chunk(List<Row> rows, long position) {
+            this.rows = rows;
+            this.position = position;
+        }
+    }
+}
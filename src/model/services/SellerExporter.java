@@ -0,0 +1,178 @@
+package model.services;
+
+import model.dao.DaoFactory;
+import model.dao.SellerDao;
+import model.dao.SellerQuery;
+import model.entities.Seller;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+// Exporta o resultado de um SellerQuery direto do ResultSet (forward-only, com o fetch size de
+// streaming do DAO) para o arquivo, um vendedor por vez; nenhuma lista de vendedores é montada.
+// Grava num arquivo temporário ao lado do destino e só troca no fim, então um cancelamento ou
+// um erro não deixam arquivo pela metade. Erros do arquivo saem como UncheckedIOException.
+public class SellerExporter {
+
+    public enum Format {
+        CSV, XLSX;
+
+        // Pela extensão; tudo que não for .xlsx sai em CSV.
+        public static Format of(Path file) {
+            return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".xlsx") ? XLSX : CSV;
+        }
+    }
+
+    // mesmas colunas que a importação lê, então um CSV exportado pode ser importado de volta
+    private static final String[] HEADER = {"Id", "Name", "Email", "BirthDate", "BaseSalary", "Department"};
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final SellerDao sellerDao;
+
+    private volatile boolean cancelled;
+    private long progressIntervalMillis = 250;
+    private LongConsumer progressListener = rows -> { };
+
+    // DAO do DaoFactory, conforme o db.properties
+    public SellerExporter() {
+        this(DaoFactory.createSellerDao());
+    }
+
+    public SellerExporter(SellerDao sellerDao) {
+        this.sellerDao = sellerDao;
+    }
+
+    public void setProgressIntervalMillis(long progressIntervalMillis) {
+        this.progressIntervalMillis = progressIntervalMillis;
+    }
+
+    // Recebe as linhas já gravadas, na thread do export, no máximo a cada progressIntervalMillis e no fim.
+    public void setProgressListener(LongConsumer progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    // Pode ser chamado de qualquer thread; export para antes da próxima linha com CancellationException
+    // e o DAO cancela a consulta no servidor ao fechar o stream.
+    public void cancel() {
+        cancelled = true;
+    }
+
+    // Devolve quantos vendedores foram exportados.
+    public long export(SellerQuery query, Path file, Format format) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        long rows;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+             Stream<Seller> sellers = sellerDao.stream(query)) {
+            rows = format == Format.XLSX ? writeXlsx(sellers, out) : writeCsv(sellers, out);
+        }
+        catch (IOException e) {
+            delete(temp);
+            throw new UncheckedIOException("Could not write " + file + ": " + e.getMessage(), e);
+        }
+        catch (RuntimeException e) {
+            delete(temp);
+            throw e;
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e) {
+            delete(temp);
+            throw new UncheckedIOException("Could not write " + file + ": " + e.getMessage(), e);
+        }
+        progressListener.accept(rows);
+        return rows;
+    }
+
+    private long writeCsv(Stream<Seller> sellers, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        // BOM para o Excel reconhecer o UTF-8; a importação o ignora
+        writer.write('\uFEFF');
+        CsvWriter csv = new CsvWriter(writer, ',');
+        csv.writeRow(HEADER);
+        long rows = copy(sellers, seller -> {
+            LocalDate birthDate = birthDate(seller);
+            csv.writeRow(String.valueOf(seller.getId()), seller.getName(), seller.getEmail(),
+                    birthDate == null ? null : birthDate.toString(),
+                    seller.getBaseSalary() == null ? null : BigDecimal.valueOf(seller.getBaseSalary()).toPlainString(),
+                    departmentName(seller));
+        });
+        writer.flush();
+        return rows;
+    }
+
+    private long writeXlsx(Stream<Seller> sellers, OutputStream out) throws IOException {
+        try (XlsxWriter xlsx = new XlsxWriter(out, "Sellers", (Object[]) HEADER)) {
+            return copy(sellers, seller -> xlsx.writeRow(seller.getId(), seller.getName(), seller.getEmail(),
+                    birthDate(seller), seller.getBaseSalary(), departmentName(seller)));
+        }
+    }
+
+    private long copy(Stream<Seller> sellers, RowWriter writer) throws IOException {
+        long rows = 0;
+        long lastReport = System.nanoTime();
+        Iterator<Seller> iterator = sellers.iterator();
+        while (iterator.hasNext()) {
+            if (cancelled) {
+                throw new CancellationException("Export cancelled");
+            }
+            writer.write(iterator.next());
+            rows++;
+            if ((rows & 1023) == 0) {
+                long now = System.nanoTime();
+                if (now - lastReport >= progressIntervalMillis * 1_000_000) {
+                    lastReport = now;
+                    progressListener.accept(rows);
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static LocalDate birthDate(Seller seller) {
+        if (seller.getBirthDate() == null) {
+            return null;
+        }
+        return Instant.ofEpochMilli(seller.getBirthDate().getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    private static String departmentName(Seller seller) {
+        return seller.getDepartment() == null ? null : seller.getDepartment().getName();
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException ignored) {
+            // só o temporário; o destino não foi tocado
+        }
+    }
+
+    private interface RowWriter {
+        void write(Seller seller) throws IOException;
+    }
+}
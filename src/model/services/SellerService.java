@@ -2,32 +2,213 @@ package model.services;
 
 import model.dao.DaoFactory;
 import model.dao.DepartmentDao;
+import model.dao.PageDirection;
 import model.dao.SellerDao;
+import model.dao.SellerQuery;
+import model.dao.SellerStatsDao;
+import model.dao.TransactionTemplate;
 import model.entities.Department;
 import model.entities.Seller;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class SellerService {
 
-    private SellerDao sellerDao = DaoFactory.createSellerDao();
+    private final SellerDao sellerDao;
 
+    private final TransactionTemplate transactionTemplate;
+
+    // resumo do painel a manter depois das gravações; null = nenhum
+    private final SellerStatsDao statsDao;
+
+    private final List<DataChangeListener<Seller>> dataChangeListeners = new CopyOnWriteArrayList<>();
+
+    // compartilhado por todas as instâncias: a fila de gravação adiada grava por outro service
+    private static final AtomicLong writeSequence = new AtomicLong();
+
+    // DAO e transações do DaoFactory, conforme o db.properties
+    public SellerService(){
+        this(DaoFactory.createSellerDao(), DaoFactory.createTransactionTemplate(), DaoFactory.createSellerStatsDao());
+    }
+
+    public SellerService(SellerDao sellerDao, TransactionTemplate transactionTemplate){
+        this(sellerDao, transactionTemplate, null);
+    }
+
+    public SellerService(SellerDao sellerDao, TransactionTemplate transactionTemplate, SellerStatsDao statsDao){
+        this.sellerDao = sellerDao;
+        this.transactionTemplate = transactionTemplate;
+        this.statsDao = statsDao;
+    }
+
+    public Seller findById(Integer id){
+        return sellerDao.findById(id);
+    }
 
     public List<Seller> findAll(){
         return sellerDao.findAll();
     }
 
+    public List<Seller> findPage(Seller anchor, int pageSize, PageDirection direction){
+        return sellerDao.findPage(anchor, pageSize, direction);
+    }
+
+    public List<Seller> findPage(int offset, int pageSize){
+        return sellerDao.findPage(offset, pageSize);
+    }
+
+    public int count(){
+        return sellerDao.count();
+    }
+
+    public List<Seller> findPage(SellerQuery query, Seller anchor, int pageSize, PageDirection direction){
+        return sellerDao.findPage(query, anchor, pageSize, direction);
+    }
+
+    public List<Seller> findPage(SellerQuery query, int offset, int pageSize){
+        return sellerDao.findPage(query, offset, pageSize);
+    }
+
+    public int count(SellerQuery query){
+        return sellerDao.count(query);
+    }
+
+    // Número da última gravação iniciada; ver DataChangeEvent.getSequence().
+    public long currentWriteSequence(){
+        return writeSequence.get();
+    }
+
+    public void subscribeChangeListener(DataChangeListener<Seller> listener){
+        dataChangeListeners.add(listener);
+    }
+
+    public void unsubscribeChangeListener(DataChangeListener<Seller> listener){
+        dataChangeListeners.remove(listener);
+    }
+
     public void savedOrUpdate(Seller seller){
+        long sequence = writeSequence.incrementAndGet();
+        Set<Integer> statsDepartments = statsDepartments(Collections.singletonList(seller));
         if(seller.getId() == null){
             sellerDao.insert(seller);
+            refreshStats(statsDepartments);
+            notifyDataChangeListeners(DataChangeEvent.Type.INSERTED, seller, sequence);
         }
         else {
             sellerDao.update(seller);
+            refreshStats(statsDepartments);
+            notifyDataChangeListeners(DataChangeEvent.Type.UPDATED, seller, sequence);
+        }
+    }
+
+    public void saveAll(Collection<Seller> sellers){
+        List<Seller> newSellers = new ArrayList<>();
+        List<Seller> existingSellers = new ArrayList<>();
+        for (Seller seller : sellers) {
+            if (seller.getId() == null) {
+                newSellers.add(seller);
+            }
+            else {
+                existingSellers.add(seller);
+            }
+        }
+        long sequence = writeSequence.incrementAndGet();
+        Set<Integer> statsDepartments = statsDepartments(sellers);
+        // inserções e alterações em um só commit; os eventos só saem depois dele
+        transactionTemplate.runInTransaction(work -> {
+            work.getSellerDao().insertAll(newSellers);
+            work.getSellerDao().updateAll(existingSellers);
+        });
+        refreshStats(statsDepartments);
+        for (Seller seller : newSellers) {
+            notifyDataChangeListeners(DataChangeEvent.Type.INSERTED, seller, sequence);
+        }
+        for (Seller seller : existingSellers) {
+            notifyDataChangeListeners(DataChangeEvent.Type.UPDATED, seller, sequence);
         }
     }
 
     public void remove(Seller obj){
+        long sequence = writeSequence.incrementAndGet();
         sellerDao.deleteById(obj.getId());
+        if (obj.getDepartment() != null) {
+            refreshStats(Collections.singleton(obj.getDepartment().getId()));
+        }
+        notifyDataChangeListeners(DataChangeEvent.Type.DELETED, obj, sequence);
+    }
+
+    // Departamentos cujo resumo muda com a gravação; lido antes dela, porque o DAO limpa os campos
+    // alterados. Nome e e-mail não entram no resumo. Quem troca de departamento tira uma linha do
+    // departamento antigo, que o próprio Seller guarda desde a leitura (uma réplica atrasada poderia
+    // devolver outro). null quando ele não é conhecido: o resumo inteiro é recalculado.
+    private Set<Integer> statsDepartments(Collection<Seller> sellers){
+        Set<Integer> departmentIds = new HashSet<>();
+        if (statsDao == null || !statsDao.isSummaryMaintained()) {
+            return departmentIds;
+        }
+        for (Seller seller : sellers) {
+            Set<Seller.Field> fields = seller.getDirtyFields();
+            boolean moved = seller.getId() != null && fields.contains(Seller.Field.DEPARTMENT);
+            if (seller.getDepartment() != null && (seller.getId() == null || moved
+                    || fields.contains(Seller.Field.BIRTH_DATE) || fields.contains(Seller.Field.BASE_SALARY))) {
+                departmentIds.add(seller.getDepartment().getId());
+            }
+            if (moved) {
+                if (seller.getLoadedDepartmentId() == null) {
+                    // não veio do banco (ex.: fila de gravação salva por uma versão anterior)
+                    return null;
+                }
+                departmentIds.add(seller.getLoadedDepartmentId());
+            }
+        }
+        return departmentIds;
+    }
+
+    private void refreshStats(Set<Integer> departmentIds){
+        if (statsDao == null) {
+            return;
+        }
+        if (departmentIds == null) {
+            statsDao.rebuild();
+        } else {
+            statsDao.refresh(departmentIds);
+        }
+    }
+
+    // Avisa a lista sem gravar nada; usado pela fila de gravação adiada.
+    void publish(DataChangeEvent.Type type, Seller seller){
+        notifyDataChangeListeners(type, seller, writeSequence.incrementAndGet());
+    }
+
+    private void notifyDataChangeListeners(DataChangeEvent.Type type, Seller seller, long sequence){
+        DataChangeEvent<Seller> event = new DataChangeEvent<>(type, seller.getId(), seller, sequence);
+        for (DataChangeListener<Seller> listener : dataChangeListeners){
+            listener.onDataChanged(event);
+        }
+    }
+
+    public CompletableFuture<List<Seller>> findAllAsync(){
+        return CompletableFuture.supplyAsync(this::findAll, ServiceExecutor.get());
+    }
+
+    public CompletableFuture<Integer> countAsync(){
+        return CompletableFuture.supplyAsync(this::count, ServiceExecutor.get());
+    }
+
+    public CompletableFuture<Void> savedOrUpdateAsync(Seller seller){
+        return CompletableFuture.runAsync(() -> savedOrUpdate(seller), ServiceExecutor.get());
+    }
+
+    public CompletableFuture<Void> removeAsync(Seller obj){
+        return CompletableFuture.runAsync(() -> remove(obj), ServiceExecutor.get());
     }
 
 }
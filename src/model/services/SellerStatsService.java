@@ -0,0 +1,30 @@
+package model.services;
+
+import model.dao.DaoFactory;
+import model.dao.SellerStatsDao;
+import model.entities.DepartmentStats;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class SellerStatsService {
+
+    private final SellerStatsDao statsDao;
+
+    // DAO do DaoFactory, conforme o db.properties
+    public SellerStatsService(){
+        this(DaoFactory.createSellerStatsDao());
+    }
+
+    public SellerStatsService(SellerStatsDao statsDao){
+        this.statsDao = statsDao;
+    }
+
+    public List<DepartmentStats> findAll(){
+        return statsDao.findAll();
+    }
+
+    public CompletableFuture<List<DepartmentStats>> findAllAsync(){
+        return CompletableFuture.supplyAsync(this::findAll, ServiceExecutor.get());
+    }
+}
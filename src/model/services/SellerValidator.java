@@ -0,0 +1,45 @@
+package model.services;
+
+import model.entities.Seller;
+import model.exceptions.ValidationException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Regras de um vendedor válido, usadas pelo formulário e pela importação de CSV.
+public class SellerValidator {
+
+    public static final String EMPTY_FIELD = "Field can't be empty";
+
+    // Erro por campo (name, email, birthDate, baseSalary); vazio quando o vendedor é válido.
+    // Não lança exceção, para a importação validar milhões de linhas sem montar stack traces.
+    public static Map<String, String> errors(Seller seller) {
+        Map<String, String> errors = new LinkedHashMap<>();
+        if (isBlank(seller.getName())) {
+            errors.put("name", EMPTY_FIELD);
+        }
+        if (isBlank(seller.getEmail())) {
+            errors.put("email", EMPTY_FIELD);
+        }
+        if (seller.getBirthDate() == null) {
+            errors.put("birthDate", EMPTY_FIELD);
+        }
+        if (seller.getBaseSalary() == null) {
+            errors.put("baseSalary", EMPTY_FIELD);
+        }
+        return errors;
+    }
+
+    public static void validate(Seller seller) {
+        Map<String, String> errors = errors(seller);
+        if (!errors.isEmpty()) {
+            ValidationException exception = new ValidationException("Validation error");
+            errors.forEach(exception::addError);
+            throw exception;
+        }
+    }
+
+    private static boolean isBlank(String text) {
+        return text == null || text.trim().isEmpty();
+    }
+}
@@ -0,0 +1,27 @@
+package model.services;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Executor dedicado para as chamadas ao banco feitas fora da thread do JavaFX.
+public class ServiceExecutor {
+
+    private static final int THREADS = 4;
+
+    private static final AtomicInteger threadNumber = new AtomicInteger();
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "service-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static ExecutorService get() {
+        return executor;
+    }
+
+    public static void shutdown() {
+        executor.shutdownNow();
+    }
+}
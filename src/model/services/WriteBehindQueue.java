@@ -0,0 +1,434 @@
+package model.services;
+
+import db.DB;
+import db.DbException;
+import model.entities.Seller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Gravação adiada dos formulários de vendedor (writeBehind.enabled=true em db.properties).
+// O formulário só enfileira e fecha; uma thread grava a fila em lotes pelo SellerService.
+// Alterações repetidas no mesmo id viram uma só. A fila fica em disco (writeBehind.file) e é
+// retomada na próxima execução; um item que estava sendo gravado quando a aplicação caiu é
+// gravado de novo e, se já tinha ido para o banco, falha pela versão ou pelo e-mail único.
+// Itens que falham ficam na fila como FAILED até serem reenviados ou descartados.
+public class WriteBehindQueue {
+
+    private static final Logger LOGGER = Logger.getLogger(WriteBehindQueue.class.getName());
+
+    public enum Status {
+        PENDING, FAILED
+    }
+
+    // Um vendedor esperando para ser gravado. A chave é o id nas alterações e um número negativo
+    // nas inclusões, que ainda não têm id.
+    public static class Item implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final long key;
+        private Seller seller;
+        private Status status = Status.PENDING;
+        private String error;
+        private int attempts;
+
+        private Item(long key, Seller seller) {
+            this.key = key;
+            this.seller = seller;
+        }
+
+        private Item(Item other) {
+            this(other.key, new Seller(other.seller));
+            this.status = other.status;
+            this.error = other.error;
+            this.attempts = other.attempts;
+        }
+
+        public long getKey() {
+            return key;
+        }
+
+        public Seller getSeller() {
+            return seller;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public boolean isInsert() {
+            return key < 0;
+        }
+
+        @Override
+        public String toString() {
+            return (isInsert() ? "insert " : "update ") + seller.getName() + " (" + status
+                    + (error == null ? "" : ": " + error) + ")";
+        }
+    }
+
+    private static WriteBehindQueue instance;
+
+    private final SellerService service;
+    private final Path file;
+    private final int capacity;
+    private final int batchSize;
+
+    // pendentes e com falha, na ordem em que chegaram
+    private final Map<Long, Item> items = new LinkedHashMap<>();
+    // sendo gravados agora; uma alteração nova no mesmo id entra em items e espera este lote
+    private final Map<Long, Item> inFlight = new LinkedHashMap<>();
+    private long nextInsertKey = -1;
+
+    private final List<Runnable> queueListeners = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService writer;
+
+    public WriteBehindQueue(SellerService service, Path file, int capacity, int batchSize, long flushMillis) {
+        this.service = service;
+        this.file = file;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        load();
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "seller-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(DB.getProperties().getProperty("writeBehind.enabled", "false"));
+    }
+
+    public static synchronized WriteBehindQueue get() {
+        if (instance == null) {
+            Properties props = DB.getProperties();
+            instance = new WriteBehindQueue(new SellerService(),
+                    Paths.get(props.getProperty("writeBehind.file", "seller-writes.queue")),
+                    Integer.parseInt(props.getProperty("writeBehind.capacity", "1000")),
+                    Integer.parseInt(props.getProperty("writeBehind.batchSize", "100")),
+                    Long.parseLong(props.getProperty("writeBehind.flushMillis", "500")));
+        }
+        return instance;
+    }
+
+    // Para a thread de gravação; o que não foi gravado continua no arquivo.
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.stop();
+            instance = null;
+        }
+    }
+
+    // Devolve false quando a fila está cheia; quem chamou deve gravar direto.
+    public synchronized boolean enqueue(Seller seller) {
+        Seller copy = new Seller(seller);
+        Item existing = copy.getId() == null ? null : items.get((long) copy.getId());
+        Item added = null;
+        if (existing != null) {
+            existing.seller = merge(existing.seller, copy);
+            existing.status = Status.PENDING;
+            existing.error = null;
+        } else {
+            if (items.size() + inFlight.size() >= capacity) {
+                return false;
+            }
+            long key = copy.getId() != null ? copy.getId() : nextInsertKey--;
+            added = new Item(key, copy);
+            items.put(key, added);
+        }
+        try {
+            persist();
+        } catch (DbException e) {
+            if (added != null) {
+                items.remove(added.key);
+            }
+            throw e;
+        }
+        if (copy.getId() != null) {
+            // a linha já mostra o valor novo, marcada como pendente na lista
+            service.publish(DataChangeEvent.Type.UPDATED, new Seller(items.get((long) copy.getId()).seller));
+        }
+        notifyQueueListeners();
+        return true;
+    }
+
+    public synchronized List<Item> items() {
+        List<Item> list = new ArrayList<>();
+        for (Item item : inFlight.values()) {
+            list.add(new Item(item));
+        }
+        for (Item item : items.values()) {
+            list.add(new Item(item));
+        }
+        return list;
+    }
+
+    // Situação do vendedor na fila, ou null se não há nada pendente para ele.
+    public synchronized Status statusOf(Integer id) {
+        if (id == null) {
+            return null;
+        }
+        Item item = items.get((long) id);
+        if (item != null) {
+            return item.status;
+        }
+        return inFlight.containsKey((long) id) ? Status.PENDING : null;
+    }
+
+    public synchronized void retry(Item item) {
+        Item current = items.get(item.key);
+        if (current != null && current.status == Status.FAILED) {
+            current.status = Status.PENDING;
+            current.error = null;
+            persist();
+            notifyQueueListeners();
+        }
+    }
+
+    public synchronized void retryFailed() {
+        for (Item item : items.values()) {
+            if (item.status == Status.FAILED) {
+                item.status = Status.PENDING;
+                item.error = null;
+            }
+        }
+        persist();
+        notifyQueueListeners();
+    }
+
+    // Tira o item da fila; numa alteração, a linha da lista volta ao que está no banco.
+    public void discard(Item item) {
+        synchronized (this) {
+            if (items.remove(item.key) == null) {
+                return;
+            }
+            persist();
+        }
+        notifyQueueListeners();
+        if (!item.isInsert()) {
+            CompletableFuture.runAsync(() -> {
+                Seller current = service.findById((int) item.key);
+                if (current != null) {
+                    service.publish(DataChangeEvent.Type.UPDATED, current);
+                } else {
+                    service.publish(DataChangeEvent.Type.DELETED, item.seller);
+                }
+            }, ServiceExecutor.get());
+        }
+    }
+
+    public void subscribeChangeListener(DataChangeListener<Seller> listener) {
+        service.subscribeChangeListener(listener);
+    }
+
+    public void unsubscribeChangeListener(DataChangeListener<Seller> listener) {
+        service.unsubscribeChangeListener(listener);
+    }
+
+    // Chamado, fora da thread do JavaFX, sempre que a fila muda.
+    public void addQueueListener(Runnable listener) {
+        queueListeners.add(listener);
+    }
+
+    public void removeQueueListener(Runnable listener) {
+        queueListeners.remove(listener);
+    }
+
+    private void flush() {
+        try {
+            List<Item> batch = takeBatch();
+            if (batch.isEmpty()) {
+                return;
+            }
+            // cópias: se o lote for desfeito, ids e versões atribuídos pelo DAO não podem ficar nos itens
+            List<Seller> sellers = new ArrayList<>();
+            for (Item item : batch) {
+                sellers.add(new Seller(item.seller));
+            }
+            try {
+                service.saveAll(sellers);
+                for (int i = 0; i < batch.size(); i++) {
+                    completed(batch.get(i), sellers.get(i));
+                }
+            } catch (RuntimeException e) {
+                if (batch.size() == 1) {
+                    failed(batch.get(0), e);
+                    return;
+                }
+                // um item ruim derrubou o lote: grava um a um para achar qual foi
+                for (Item item : batch) {
+                    Seller seller = new Seller(item.seller);
+                    try {
+                        service.savedOrUpdate(seller);
+                        completed(item, seller);
+                    } catch (RuntimeException itemError) {
+                        failed(item, itemError);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Write-behind flush failed", e);
+        }
+    }
+
+    private synchronized List<Item> takeBatch() {
+        List<Item> batch = new ArrayList<>();
+        for (Item item : new ArrayList<>(items.values())) {
+            if (batch.size() == batchSize) {
+                break;
+            }
+            if (item.status == Status.PENDING) {
+                items.remove(item.key);
+                inFlight.put(item.key, item);
+                item.attempts++;
+                batch.add(item);
+            }
+        }
+        return batch;
+    }
+
+    private void completed(Item item, Seller saved) {
+        synchronized (this) {
+            inFlight.remove(item.key);
+            Item newer = items.get(item.key);
+            if (newer != null) {
+                // alteração feita durante a gravação: parte da versão que acabou de ser gravada
+                newer.seller.setVersion(saved.getVersion());
+            }
+            persist();
+        }
+        notifyQueueListeners();
+    }
+
+    private void failed(Item item, RuntimeException error) {
+        synchronized (this) {
+            inFlight.remove(item.key);
+            item.status = Status.FAILED;
+            item.error = error.getMessage();
+            Item newer = items.get(item.key);
+            if (newer != null) {
+                // a alteração mais nova leva junto os campos que não foram gravados
+                newer.seller = merge(item.seller, newer.seller);
+            } else {
+                items.put(item.key, item);
+            }
+            persist();
+        }
+        notifyQueueListeners();
+    }
+
+    // Aplica sobre "newer" os campos alterados em "older" que "newer" não alterou.
+    private static Seller merge(Seller older, Seller newer) {
+        Seller merged = new Seller(newer);
+        for (Seller.Field field : older.getDirtyFields()) {
+            if (newer.getDirtyFields().contains(field)) {
+                continue;
+            }
+            switch (field) {
+                case NAME:
+                    merged.setName(older.getName());
+                    break;
+                case EMAIL:
+                    merged.setEmail(older.getEmail());
+                    break;
+                case BIRTH_DATE:
+                    merged.setBirthDate(older.getBirthDate());
+                    break;
+                case BASE_SALARY:
+                    merged.setBaseSalary(older.getBaseSalary());
+                    break;
+                case DEPARTMENT:
+                    merged.setDepartment(older.getDepartment());
+                    break;
+            }
+        }
+        return merged;
+    }
+
+    private void notifyQueueListeners() {
+        for (Runnable listener : queueListeners) {
+            listener.run();
+        }
+    }
+
+    // Grava a fila inteira em um arquivo temporário e troca pelo atual, para nunca deixar meio arquivo.
+    private void persist() {
+        List<Item> snapshot = new ArrayList<>(inFlight.values());
+        snapshot.addAll(items.values());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp);
+             ObjectOutputStream objectOut = new ObjectOutputStream(out)) {
+            objectOut.writeObject(snapshot);
+        } catch (IOException e) {
+            throw new DbException("Could not save the write-behind queue: " + e.getMessage());
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new DbException("Could not save the write-behind queue: " + e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(file);
+             ObjectInputStream objectIn = new ObjectInputStream(in)) {
+            for (Item item : (List<Item>) objectIn.readObject()) {
+                items.put(item.key, item);
+                nextInsertKey = Math.min(nextInsertKey, item.key - 1);
+            }
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            // um arquivo ilegível não pode impedir a aplicação de abrir; fica guardado ao lado
+            LOGGER.log(Level.WARNING, "Could not read the write-behind queue " + file, e);
+            items.clear();
+            try {
+                Files.move(file, file.resolveSibling(file.getFileName() + ".bad"), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException moveError) {
+                LOGGER.log(Level.WARNING, "Could not move " + file + " aside", moveError);
+            }
+        }
+    }
+
+    private void stop() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package model.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Planilha XLSX gravada linha a linha: a planilha é um XML dentro de um zip, então cada linha vai
+// direto para o zip e nada fica em memória. Os textos vão como inline strings (sem tabela de strings
+// compartilhadas, que exigiria guardar todos). Passando do limite de linhas do Excel, o writer
+// abre outra aba repetindo o cabeçalho.
+public class XlsxWriter implements AutoCloseable {
+
+    private static final int MAX_ROWS_PER_SHEET = 1_048_576;
+
+    // dia zero das datas do Excel (já descontado o 29/02/1900 que ele considera existir)
+    private static final LocalDate EPOCH = LocalDate.of(1899, 12, 30);
+
+    private static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String PKG_REL_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+
+    private final ZipOutputStream zip;
+    private final Writer out;
+    private final String sheetName;
+    private final Object[] header;
+
+    private int sheets;
+    private int rowsInSheet;
+
+    // header pode ser null; com ele, toda aba começa pelo cabeçalho
+    public XlsxWriter(OutputStream output, String sheetName, Object... header) throws IOException {
+        this.zip = new ZipOutputStream(output);
+        this.out = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+        this.sheetName = sheetName;
+        this.header = header;
+        startSheet();
+    }
+
+    // String, Number e LocalDate (com formato de data); null vira célula vazia.
+    public void writeRow(Object... cells) throws IOException {
+        if (rowsInSheet == MAX_ROWS_PER_SHEET) {
+            endSheet();
+            startSheet();
+        }
+        writeRowXml(cells);
+    }
+
+    @Override
+    public void close() throws IOException {
+        endSheet();
+        writeEntry("xl/styles.xml", "<styleSheet xmlns=\"" + MAIN_NS + "\">"
+                + "<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+                + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>"
+                + "<fill><patternFill patternType=\"gray125\"/></fill></fills>"
+                + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+                + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+                + "<cellXfs count=\"2\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+                + "<xf numFmtId=\"14\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+                + "</cellXfs></styleSheet>");
+
+        StringBuilder sheetList = new StringBuilder();
+        StringBuilder sheetRels = new StringBuilder();
+        StringBuilder sheetTypes = new StringBuilder();
+        for (int sheet = 1; sheet <= sheets; sheet++) {
+            String name = sheets == 1 ? sheetName : sheetName + " " + sheet;
+            sheetList.append("<sheet name=\"").append(escape(name)).append("\" sheetId=\"").append(sheet)
+                    .append("\" r:id=\"rId").append(sheet).append("\"/>");
+            sheetRels.append("<Relationship Id=\"rId").append(sheet)
+                    .append("\" Type=\"").append(REL_NS).append("/worksheet\" Target=\"worksheets/sheet")
+                    .append(sheet).append(".xml\"/>");
+            sheetTypes.append("<Override PartName=\"/xl/worksheets/sheet").append(sheet)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        writeEntry("xl/workbook.xml", "<workbook xmlns=\"" + MAIN_NS + "\" xmlns:r=\"" + REL_NS + "\"><sheets>"
+                + sheetList + "</sheets></workbook>");
+        writeEntry("xl/_rels/workbook.xml.rels", "<Relationships xmlns=\"" + PKG_REL_NS + "\">" + sheetRels
+                + "<Relationship Id=\"rId" + (sheets + 1) + "\" Type=\"" + REL_NS + "/styles\" Target=\"styles.xml\"/>"
+                + "</Relationships>");
+        writeEntry("_rels/.rels", "<Relationships xmlns=\"" + PKG_REL_NS + "\">"
+                + "<Relationship Id=\"rId1\" Type=\"" + REL_NS + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>");
+        writeEntry("[Content_Types].xml", "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>"
+                + sheetTypes + "</Types>");
+        out.flush();
+        zip.close();
+    }
+
+    private void startSheet() throws IOException {
+        sheets++;
+        rowsInSheet = 0;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheets + ".xml"));
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n<worksheet xmlns=\"" + MAIN_NS
+                + "\"><sheetData>");
+        if (header != null && header.length > 0) {
+            writeRowXml(header);
+        }
+    }
+
+    private void endSheet() throws IOException {
+        out.write("</sheetData></worksheet>");
+        out.flush();
+        zip.closeEntry();
+    }
+
+    private void writeRowXml(Object[] cells) throws IOException {
+        rowsInSheet++;
+        out.write("<row>");
+        for (Object cell : cells) {
+            if (cell == null) {
+                out.write("<c/>");
+            } else if (cell instanceof Number) {
+                out.write("<c><v>");
+                out.write(cell.toString());
+                out.write("</v></c>");
+            } else if (cell instanceof LocalDate) {
+                out.write("<c s=\"1\"><v>");
+                out.write(Long.toString(ChronoUnit.DAYS.between(EPOCH, (LocalDate) cell)));
+                out.write("</v></c>");
+            } else {
+                out.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                out.write(escape(cell.toString()));
+                out.write("</t></is></c>");
+            }
+        }
+        out.write("</row>");
+    }
+
+    private void writeEntry(String name, String xml) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+        out.write(xml);
+        out.flush();
+        zip.closeEntry();
+    }
+
+    // Escapa o XML e descarta os caracteres de controle, que o XML 1.0 não aceita.
+    private static String escape(String text) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String replacement;
+            switch (c) {
+                case '&': replacement = "&amp;"; break;
+                case '<': replacement = "&lt;"; break;
+                case '>': replacement = "&gt;"; break;
+                case '"': replacement = "&quot;"; break;
+                default:
+                    replacement = c < 0x20 && c != '\t' && c != '\n' && c != '\r' ? "" : null;
+            }
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(text.length() + 16).append(text, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped == null ? text : escaped.toString();
+    }
+}